@@ -1,5 +1,6 @@
 package com.abiodunelijah.auth_users.dtos;
 
+import com.abiodunelijah.enums.ImageStatus;
 import com.abiodunelijah.role.dtos.RoleDto;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
@@ -22,6 +23,8 @@ public class UserDto {
 
     private String photoUrl;
 
+    private ImageStatus profileImageStatus;
+
     @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private String password;
 
@@ -1,6 +1,7 @@
 package com.abiodunelijah.auth_users.entities;
 
 import com.abiodunelijah.cart.entities.Cart;
+import com.abiodunelijah.enums.ImageStatus;
 import com.abiodunelijah.order.entities.Order;
 import com.abiodunelijah.payment.entities.Payment;
 import com.abiodunelijah.review.entities.Review;
@@ -37,6 +38,9 @@ public class User {
 
     private String profileUrl;
 
+    @Enumerated(EnumType.STRING)
+    private ImageStatus profileImageStatus;
+
     private String address;
 
     private boolean isActive;
@@ -1,7 +1,12 @@
 package com.abiodunelijah.auth_users.repository;
 
 import com.abiodunelijah.auth_users.entities.User;
+import com.abiodunelijah.enums.ImageStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -10,4 +15,11 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
 
     boolean existsByEmail(String email);
+
+    //compare-and-set on the url, so a slow upload never overwrites a newer profile picture
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.profileUrl = :profileUrl, u.profileImageStatus = :imageStatus WHERE u.id = :userId AND u.profileUrl = :expectedUrl")
+    int updateProfileImage(@Param("userId") Long userId, @Param("expectedUrl") String expectedUrl,
+                           @Param("profileUrl") String profileUrl, @Param("imageStatus") ImageStatus imageStatus);
 }
@@ -10,6 +10,7 @@ import java.util.List;
 public interface UserService {
 
     User getCurrentLoggedInUser();
+    Long getCurrentLoggedInUserId();
     Response<List<UserDto>> getAllUsers();
     Response<UserDto> getOwnAccountDetails();
     Response<?> updateOwnAccount(UserDto userDTO);
@@ -4,26 +4,27 @@ package com.abiodunelijah.auth_users.services;
 import com.abiodunelijah.auth_users.dtos.UserDto;
 import com.abiodunelijah.auth_users.entities.User;
 import com.abiodunelijah.auth_users.repository.UserRepository;
-import com.abiodunelijah.aws.AwsS3Service;
 import com.abiodunelijah.email_notification.dtos.NotificationDto;
 import com.abiodunelijah.email_notification.services.NotificationService;
+import com.abiodunelijah.enums.ImageStatus;
 import com.abiodunelijah.exceptions.BadRequestException;
 import com.abiodunelijah.exceptions.NotFoundException;
 import com.abiodunelijah.response.Response;
+import com.abiodunelijah.security.AuthUser;
+import com.abiodunelijah.storage.ImageUploadPipeline;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
 import org.modelmapper.TypeToken;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.net.URL;
 import java.util.List;
-import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
@@ -32,7 +33,7 @@ public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
-    private final AwsS3Service awsS3Service;
+    private final ImageUploadPipeline imageUploadPipeline;
     private final ModelMapper modelMapper;
     private final NotificationService notificationService;
 
@@ -44,6 +45,17 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow(() -> new NotFoundException("user not found."));
     }
 
+    //the auth filter has already loaded the user for this request, so hot paths that only need the id skip the lookup
+    @Override
+    public Long getCurrentLoggedInUserId() {
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthUser authUser) {
+            return authUser.getUser().getId();
+        }
+        return getCurrentLoggedInUser().getId();
+    }
+
     @Override
     public Response<List<UserDto>> getAllUsers() {
 
@@ -89,47 +101,51 @@ public class UserServiceImpl implements UserService {
 
         MultipartFile imageFile = userDto.getImageFile();
 
-        //check if new imageFile is provided
-        if (imageFile != null && !imageFile.isEmpty()) {
-            //delete old image in cloud if exists.
-            if (profileUrl != null && !profileUrl.isEmpty()) {
-                String keyName = profileUrl.substring(profileUrl.lastIndexOf("/") + 1);
-                awsS3Service.deleteFile("profile/" + keyName);
+        ImageUploadPipeline.StagedImage stagedImage = null;
 
-                log.info("Deleted old profile image from s3.");
-            }
+        try {
+            //check if new imageFile is provided, it is uploaded in the background after the account is saved
+            if (imageFile != null && !imageFile.isEmpty()) {
+                stagedImage = imageUploadPipeline.stage(imageFile, "profile");
 
-            //upload new image
-            String imageName = UUID.randomUUID().toString() + "_" + imageFile.getOriginalFilename();
-            URL uploadFile = awsS3Service.uploadFile("profile/" + imageName, imageFile);
-            currentLoggedInUser.setProfileUrl(uploadFile.toString());
-        }
+                currentLoggedInUser.setProfileUrl(imageUploadPipeline.urlOf(stagedImage.keyName()).toString());
+                currentLoggedInUser.setProfileImageStatus(ImageStatus.PENDING);
+            }
 
-        //update other stuff
+            //update other stuff
 
-        if (userDto.getName() != null){
-            currentLoggedInUser.setName(userDto.getName());
-        }
-        if (userDto.getAddress() != null){
-            currentLoggedInUser.setAddress(userDto.getAddress());
-        }
+            if (userDto.getName() != null){
+                currentLoggedInUser.setName(userDto.getName());
+            }
+            if (userDto.getAddress() != null){
+                currentLoggedInUser.setAddress(userDto.getAddress());
+            }
 
-        if (userDto.getPhoneNumber() != null){
-            currentLoggedInUser.setPhoneNumber(userDto.getPhoneNumber());
-        }
-        if (userDto.getPassword() != null){
-            currentLoggedInUser.setPassword(passwordEncoder.encode(userDto.getPassword()));
-        }
+            if (userDto.getPhoneNumber() != null){
+                currentLoggedInUser.setPhoneNumber(userDto.getPhoneNumber());
+            }
+            if (userDto.getPassword() != null){
+                currentLoggedInUser.setPassword(passwordEncoder.encode(userDto.getPassword()));
+            }
 
-        if (userDto.getEmail() != null && !userDto.getEmail().equals(currentLoggedInUser.getEmail())){
-            if (userRepository.existsByEmail(userDto.getEmail())){
-                throw new BadRequestException("Email already exists.");
+            if (userDto.getEmail() != null && !userDto.getEmail().equals(currentLoggedInUser.getEmail())){
+                if (userRepository.existsByEmail(userDto.getEmail())){
+                    throw new BadRequestException("Email already exists.");
+                }
             }
-        }
 
-        currentLoggedInUser.setEmail(userDto.getEmail());
+            currentLoggedInUser.setEmail(userDto.getEmail());
 
-        userRepository.save(currentLoggedInUser);
+            User savedUser = userRepository.save(currentLoggedInUser);
+
+            if (stagedImage != null) {
+                uploadProfileImageInBackground(savedUser.getId(), stagedImage, savedUser.getProfileUrl(), profileUrl);
+            }
+        } catch (RuntimeException e) {
+            //the background upload never got the staged file, nothing else would remove it
+            imageUploadPipeline.release(stagedImage);
+            throw e;
+        }
 
         return Response.builder()
                 .statusCode(HttpStatus.OK.value())
@@ -160,4 +176,27 @@ public class UserServiceImpl implements UserService {
                 .message("Your account has been deactivated.")
                 .build();
     }
+
+    //marks the profile picture READY once storage has it, or restores the previous one when every retry failed
+    private void uploadProfileImageInBackground(Long userId, ImageUploadPipeline.StagedImage stagedImage,
+                                                String profileUrl, String previousProfileUrl) {
+
+        imageUploadPipeline.upload(stagedImage).whenComplete((url, error) -> {
+            try {
+                if (error == null) {
+                    userRepository.updateProfileImage(userId, profileUrl, profileUrl, ImageStatus.READY);
+                } else {
+                    log.error("Upload of profile image for user {} failed: {}", userId, error.getMessage());
+
+                    if (previousProfileUrl != null && !previousProfileUrl.isEmpty()) {
+                        userRepository.updateProfileImage(userId, profileUrl, previousProfileUrl, ImageStatus.READY);
+                    } else {
+                        userRepository.updateProfileImage(userId, profileUrl, profileUrl, ImageStatus.FAILED);
+                    }
+                }
+            } catch (RuntimeException e) {
+                log.error("Could not record profile image status of user {}: {}", userId, e.getMessage());
+            }
+        });
+    }
 }
@@ -1,6 +1,7 @@
 package com.abiodunelijah.aws;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
@@ -8,8 +9,12 @@ import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+
+import java.net.URI;
 
 @Configuration
+@ConditionalOnProperty(name = "storage.type", havingValue = "s3", matchIfMissing = true)
 public class AwsConfig {
 
     @Value("${aws.s3.region}")
@@ -23,7 +28,11 @@ public class AwsConfig {
 
     @Value("${aws.secretKey}")
     public String awsSecretKey;
-    
+
+    //optional S3-compatible endpoint (MinIO, LocalStack) for local runs
+    @Value("${aws.s3.endpoint:}")
+    public String awsEndpoint;
+
     
     @Bean
     public StaticCredentialsProvider staticCredentialsProvider(){
@@ -32,10 +41,16 @@ public class AwsConfig {
 
     @Bean
     public S3Client s3Client(StaticCredentialsProvider staticCredentialsProvider){
-        return S3Client.builder()
+        S3ClientBuilder builder = S3Client.builder()
                 .region(Region.of(awsRegion))
-                .credentialsProvider(staticCredentialsProvider)
-                .build();
+                .credentialsProvider(staticCredentialsProvider);
+
+        if (awsEndpoint != null && !awsEndpoint.isBlank()) {
+            builder.endpointOverride(URI.create(awsEndpoint))
+                    .forcePathStyle(true);
+        }
+
+        return builder.build();
     }
 
 }
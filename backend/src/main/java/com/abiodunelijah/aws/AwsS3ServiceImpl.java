@@ -1,46 +1,154 @@
 package com.abiodunelijah.aws;
 
+import com.abiodunelijah.storage.ContentKeys;
+import com.abiodunelijah.storage.StorageService;
+import com.abiodunelijah.storage.StoredObject;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CopyObjectRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
 import software.amazon.awssdk.services.s3.model.Delete;
 import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.MetadataDirective;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 @Service
+@ConditionalOnProperty(name = "storage.type", havingValue = "s3", matchIfMissing = true)
 @RequiredArgsConstructor
 @Slf4j
-public class AwsS3ServiceImpl implements AwsS3Service {
+public class AwsS3ServiceImpl implements StorageService {
+
+    //S3 rejects parts below 5 MB, except the last one
+    private static final long MIN_PART_SIZE = DataSize.ofMegabytes(5).toBytes();
+
+    //largest number of keys a single DeleteObjects request accepts
+    private static final int DELETE_BATCH_SIZE = 1000;
 
     private final S3Client s3Client;
 
+    private final ExecutorService partUploadExecutor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("s3-part-upload-", 0).factory());
+
     @Value("${aws.s3.bucket}")
     private String bucketName;
 
+    @Value("${aws.s3.multipart-threshold:16MB}")
+    private DataSize multipartThreshold;
+
+    @Value("${aws.s3.part-size:8MB}")
+    private DataSize partSize;
+
+    @Value("${aws.s3.upload-concurrency:4}")
+    private int uploadConcurrency;
+
     @Override
     public URL uploadFile(String keyName, MultipartFile file) {
 
         log.info("Inside uploadFile method of AwsS3ServiceImpl");
 
-        try {
+        //streamed from the multipart temp file, never copied onto the heap as a whole
+        try (InputStream inputStream = file.getInputStream()) {
+            return uploadFile(keyName, inputStream, file.getSize(), file.getContentType());
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage());
+        }
+    }
+
+    @Override
+    public URL uploadFile(String keyName, InputStream inputStream, long contentLength, String contentType) {
+
+        log.info("Inside uploadFile(InputStream) method of AwsS3ServiceImpl");
+
+        if (contentLength >= multipartThreshold.toBytes()) {
+            uploadMultipart(keyName, inputStream, contentLength, contentType);
+        } else {
             PutObjectRequest putObjectRequest = PutObjectRequest.builder()
                     .bucket(bucketName)
                     .key(keyName)
-                    .contentType(file.getContentType())
+                    .contentType(contentType)
+                    .contentLength(contentLength)
+                    .cacheControl(ContentKeys.IMMUTABLE_CACHE_CONTROL)
                     .build();
 
-            s3Client.putObject(putObjectRequest, RequestBody.fromBytes(file.getBytes()));
-            return s3Client.utilities().getUrl(builder -> builder.bucket(bucketName).key(keyName));
+            s3Client.putObject(putObjectRequest, RequestBody.fromInputStream(inputStream, contentLength));
+        }
 
-        } catch (Exception e) {
-            throw new RuntimeException(e.getMessage());
+        return getUrl(keyName);
+    }
+
+    @Override
+    public URL getUrl(String keyName) {
+        return s3Client.utilities().getUrl(builder -> builder.bucket(bucketName).key(keyName));
+    }
+
+    @Override
+    public boolean exists(String keyName) {
+        try {
+            s3Client.headObject(HeadObjectRequest.builder().bucket(bucketName).key(keyName).build());
+            return true;
+        } catch (NoSuchKeyException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean touch(String keyName) {
+
+        HeadObjectResponse head;
+        try {
+            head = s3Client.headObject(HeadObjectRequest.builder().bucket(bucketName).key(keyName).build());
+        } catch (NoSuchKeyException e) {
+            return false;
         }
+
+        //S3 only accepts a copy onto the same key when the metadata is replaced, so the current one is sent back
+        s3Client.copyObject(CopyObjectRequest.builder()
+                .sourceBucket(bucketName)
+                .sourceKey(keyName)
+                .destinationBucket(bucketName)
+                .destinationKey(keyName)
+                .metadataDirective(MetadataDirective.REPLACE)
+                .contentType(head.contentType())
+                .cacheControl(head.cacheControl())
+                .metadata(head.metadata())
+                .build());
+
+        return true;
     }
 
     @Override
@@ -56,4 +164,160 @@ public class AwsS3ServiceImpl implements AwsS3Service {
 
         log.info("File {} Delete object successful from bucket {}", keyName, bucketName);
     }
+
+    @Override
+    public void listObjects(String prefix, Consumer<StoredObject> consumer) {
+
+        log.info("Inside listObjects method of AwsS3ServiceImpl");
+
+        ListObjectsV2Request listRequest = ListObjectsV2Request.builder()
+                .bucket(bucketName)
+                .prefix(prefix)
+                .build();
+
+        //the paginator fetches the next page of up to 1000 keys only once the previous one is consumed
+        s3Client.listObjectsV2Paginator(listRequest).contents()
+                .forEach(object -> consumer.accept(new StoredObject(object.key(), object.lastModified())));
+    }
+
+    @Override
+    public int deleteFiles(List<String> keyNames) {
+
+        log.info("Inside deleteFiles method of AwsS3ServiceImpl");
+
+        int deleted = 0;
+
+        for (int from = 0; from < keyNames.size(); from += DELETE_BATCH_SIZE) {
+            List<ObjectIdentifier> objects = keyNames.subList(from, Math.min(from + DELETE_BATCH_SIZE, keyNames.size()))
+                    .stream()
+                    .map(keyName -> ObjectIdentifier.builder().key(keyName).build())
+                    .toList();
+
+            //quiet mode only reports the keys that failed
+            DeleteObjectsResponse response = s3Client.deleteObjects(DeleteObjectsRequest.builder()
+                    .bucket(bucketName)
+                    .delete(Delete.builder().objects(objects).quiet(true).build())
+                    .build());
+
+            response.errors().forEach(error ->
+                    log.error("Could not delete {} from bucket {}: {}", error.key(), bucketName, error.message()));
+
+            deleted += objects.size() - response.errors().size();
+        }
+
+        log.info("Deleted {} of {} objects from bucket {}", deleted, keyNames.size(), bucketName);
+        return deleted;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        partUploadExecutor.shutdownNow();
+    }
+
+    //parts are read sequentially and uploaded in parallel, at most uploadConcurrency part buffers exist per upload
+    private void uploadMultipart(String keyName, InputStream inputStream, long contentLength, String contentType) {
+
+        int bufferSize = (int) Math.max(partSize.toBytes(), MIN_PART_SIZE);
+        int concurrency = Math.max(uploadConcurrency, 1);
+
+        String uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(bucketName)
+                .key(keyName)
+                .contentType(contentType)
+                .cacheControl(ContentKeys.IMMUTABLE_CACHE_CONTROL)
+                .build()).uploadId();
+
+        log.info("Started multipart upload of {} ({} bytes, {} byte parts)", keyName, contentLength, bufferSize);
+
+        BlockingQueue<byte[]> freeBuffers = new ArrayBlockingQueue<>(concurrency);
+        int allocatedBuffers = 0;
+        List<Future<CompletedPart>> parts = new ArrayList<>();
+
+        try {
+            for (int partNumber = 1; ; partNumber++) {
+
+                byte[] buffer = freeBuffers.poll();
+                if (buffer == null && allocatedBuffers < concurrency) {
+                    buffer = new byte[bufferSize];
+                    allocatedBuffers++;
+                } else if (buffer == null) {
+                    //wait for an in-flight part to hand its buffer back
+                    buffer = freeBuffers.take();
+                }
+
+                int length = inputStream.readNBytes(buffer, 0, bufferSize);
+                if (length == 0 && partNumber > 1) {
+                    break;
+                }
+
+                byte[] partBuffer = buffer;
+                int currentPart = partNumber;
+                parts.add(partUploadExecutor.submit(() -> {
+                    try {
+                        return uploadPart(keyName, uploadId, currentPart, partBuffer, length);
+                    } finally {
+                        freeBuffers.offer(partBuffer);
+                    }
+                }));
+
+                if (length < bufferSize) {
+                    break;
+                }
+            }
+
+            List<CompletedPart> completedParts = new ArrayList<>(parts.size());
+            for (Future<CompletedPart> part : parts) {
+                completedParts.add(part.get());
+            }
+            completedParts.sort(Comparator.comparing(CompletedPart::partNumber));
+
+            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(keyName)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
+                    .build());
+
+            log.info("Completed multipart upload of {} in {} parts", keyName, completedParts.size());
+
+        } catch (IOException | ExecutionException | InterruptedException | RuntimeException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            parts.forEach(part -> part.cancel(true));
+            abortQuietly(keyName, uploadId);
+
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            throw new RuntimeException("Multipart upload of " + keyName + " failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    private CompletedPart uploadPart(String keyName, String uploadId, int partNumber, byte[] buffer, int length) {
+
+        UploadPartRequest uploadPartRequest = UploadPartRequest.builder()
+                .bucket(bucketName)
+                .key(keyName)
+                .uploadId(uploadId)
+                .partNumber(partNumber)
+                .contentLength((long) length)
+                .build();
+
+        //wrapping the buffer in a stream avoids the defensive copy RequestBody.fromBytes makes
+        String eTag = s3Client.uploadPart(uploadPartRequest,
+                RequestBody.fromInputStream(new ByteArrayInputStream(buffer, 0, length), length)).eTag();
+
+        return CompletedPart.builder().partNumber(partNumber).eTag(eTag).build();
+    }
+
+    private void abortQuietly(String keyName, String uploadId) {
+        try {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(keyName)
+                    .uploadId(uploadId)
+                    .build());
+        } catch (RuntimeException e) {
+            log.warn("Could not abort multipart upload {} of {}: {}", uploadId, keyName, e.getMessage());
+        }
+    }
 }
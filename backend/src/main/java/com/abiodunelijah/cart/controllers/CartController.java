@@ -2,8 +2,11 @@ package com.abiodunelijah.cart.controllers;
 
 
 import com.abiodunelijah.cart.dtos.CartDto;
+import com.abiodunelijah.cart.dtos.CartSummaryDto;
+import com.abiodunelijah.cart.dtos.CartUpdateDto;
 import com.abiodunelijah.cart.services.CartService;
 import com.abiodunelijah.response.Response;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -36,11 +39,23 @@ public class CartController {
     }
 
 
+    //many line changes in one request, e.g. debounced taps of the cart page
+    @PatchMapping
+    public ResponseEntity<Response<CartSummaryDto>> updateCart(@RequestBody @Valid CartUpdateDto cartUpdateDto){
+        return ResponseEntity.ok(cartService.updateCart(cartUpdateDto));
+    }
+
     @GetMapping
     public ResponseEntity<Response<CartDto>> getShoppingCart(){
         return ResponseEntity.ok(cartService.getShoppingCart());
     }
 
+    //totals only, e.g. for a cart badge
+    @GetMapping("/summary")
+    public ResponseEntity<Response<CartSummaryDto>> getCartSummary(){
+        return ResponseEntity.ok(cartService.getCartSummary());
+    }
+
     @DeleteMapping
     public ResponseEntity<Response<?>> clearShoppingCart(){
         return ResponseEntity.ok(cartService.clearShoppingCart());
@@ -17,4 +17,7 @@ public class CartDto {
     private Long menuId;
     private int quantity;
     private BigDecimal totalAmount;
+    private Long totalCents;
+    private Integer itemCount;
+    private Long version;
 }
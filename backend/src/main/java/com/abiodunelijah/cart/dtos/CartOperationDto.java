@@ -0,0 +1,21 @@
+package com.abiodunelijah.cart.dtos;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+//One line change of a batch cart update: either a delta added to the current quantity or an absolute quantity.
+//A line whose quantity ends at zero or below is removed.
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class CartOperationDto {
+
+    @NotNull(message = "Menu id is required.")
+    private Long menuId;
+
+    private Integer delta;
+
+    private Integer quantity;
+}
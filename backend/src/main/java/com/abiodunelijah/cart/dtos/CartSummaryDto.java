@@ -0,0 +1,28 @@
+package com.abiodunelijah.cart.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+//The cart row alone: totals without the lines, answered by a single-row lookup.
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CartSummaryDto {
+
+    private Long id;
+    private long totalCents;
+    private BigDecimal totalAmount;
+    private int itemCount;
+    private long version;
+
+    public CartSummaryDto(Long id, long totalCents, int itemCount, long version) {
+        this.id = id;
+        this.totalCents = totalCents;
+        this.totalAmount = BigDecimal.valueOf(totalCents, 2);
+        this.itemCount = itemCount;
+        this.version = version;
+    }
+}
@@ -0,0 +1,17 @@
+package com.abiodunelijah.cart.dtos;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class CartUpdateDto {
+
+    //applied in order, several operations on the same menu add up
+    @NotEmpty(message = "At least one operation is required.")
+    private List<@Valid CartOperationDto> operations;
+}
@@ -4,6 +4,7 @@ package com.abiodunelijah.cart.entities;
 import com.abiodunelijah.auth_users.entities.User;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.List;
 
@@ -21,11 +22,25 @@ public class Cart {
     private Long id;
 
     @OneToOne
-    @JoinColumn(name = "user_id")
+    @JoinColumn(name = "user_id", unique = true)
     private User user;
 
     @OneToMany(mappedBy = "cart", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<CartItem> cartItems;
 
     private String promoteCode;
+
+    //running totals kept by the cart_items statements themselves, so reading them needs no per-line arithmetic
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long totalCents;
+
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private int itemCount;
+
+    //bumped on every change, lets clients tell whether their cart view is stale
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long version;
 }
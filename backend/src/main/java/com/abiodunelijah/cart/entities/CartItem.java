@@ -10,7 +10,7 @@ import lombok.NoArgsConstructor;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "cart_items")
+@Table(name = "cart_items", uniqueConstraints = @UniqueConstraint(columnNames = {"cart_id", "menu_id"}))
 @AllArgsConstructor
 @NoArgsConstructor
 @Data
@@ -18,7 +18,8 @@ import java.math.BigDecimal;
 public class CartItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cart_items_seq")
+    @SequenceGenerator(name = "cart_items_seq", sequenceName = "cart_items_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -2,7 +2,69 @@ package com.abiodunelijah.cart.repository;
 
 import com.abiodunelijah.cart.entities.CartItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+//Cart taps are single statements keyed on the user, the unique (cart_id, menu_id) index keeps concurrent taps from losing updates.
+//Each statement locks the cart row first and moves its total_cents/item_count/version by the change it made to the line,
+//so every writer takes the cart lock before any line lock.
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
 
+    //creates the user's cart when missing and adds the quantity to the menu's line, 0 when the menu does not exist
+    //(or a concurrent first add created the cart, a retry then sees it); a new cart starts out with the line's totals
+    @Query(value = "WITH existing AS (SELECT id FROM carts WHERE user_id = :userId FOR UPDATE), " +
+            "created AS (INSERT INTO carts (user_id, total_cents, item_count, version) " +
+            "SELECT :userId, CAST(ROUND(m.price * 100) AS bigint) * :quantity, :quantity, 1 FROM menus m " +
+            "WHERE m.id = :menuId AND NOT EXISTS (SELECT 1 FROM existing) " +
+            "ON CONFLICT (user_id) DO NOTHING RETURNING id), " +
+            "cart AS (SELECT id FROM existing UNION ALL SELECT id FROM created), " +
+            "line AS (INSERT INTO cart_items (cart_id, menu_id, quantity, price_per_unit, sub_total) " +
+            "SELECT cart.id, m.id, :quantity, m.price, m.price * :quantity FROM cart, menus m WHERE m.id = :menuId " +
+            "ON CONFLICT (cart_id, menu_id) DO UPDATE SET quantity = cart_items.quantity + EXCLUDED.quantity, " +
+            "sub_total = cart_items.price_per_unit * (cart_items.quantity + EXCLUDED.quantity) " +
+            "RETURNING cart_id, price_per_unit), " +
+            "totals AS (UPDATE carts c SET total_cents = c.total_cents + CAST(ROUND(line.price_per_unit * 100) AS bigint) * :quantity, " +
+            "item_count = c.item_count + :quantity, version = c.version + 1 " +
+            "FROM line JOIN existing ON existing.id = line.cart_id WHERE c.id = line.cart_id RETURNING c.id) " +
+            "SELECT CAST(COUNT(*) AS integer) FROM line", nativeQuery = true)
+    int addToLine(@Param("userId") Long userId, @Param("menuId") Long menuId, @Param("quantity") int quantity);
+
+    @Modifying
+    @Query(value = "WITH cart AS (SELECT id FROM carts WHERE user_id = :userId FOR UPDATE), " +
+            "line AS (UPDATE cart_items ci SET quantity = ci.quantity + 1, sub_total = ci.price_per_unit * (ci.quantity + 1) " +
+            "FROM cart WHERE ci.cart_id = cart.id AND ci.menu_id = :menuId RETURNING ci.cart_id, ci.price_per_unit) " +
+            "UPDATE carts c SET total_cents = c.total_cents + CAST(ROUND(line.price_per_unit * 100) AS bigint), " +
+            "item_count = c.item_count + 1, version = c.version + 1 " +
+            "FROM line WHERE c.id = line.cart_id", nativeQuery = true)
+    int incrementLine(@Param("userId") Long userId, @Param("menuId") Long menuId);
+
+    //lowers the quantity, or removes the line when it would reach zero; the row lock makes the choice on the latest quantity
+    @Query(value = "WITH cart AS (SELECT id FROM carts WHERE user_id = :userId FOR UPDATE), " +
+            "target AS (SELECT ci.id, ci.cart_id, ci.quantity, ci.price_per_unit FROM cart_items ci JOIN cart ON cart.id = ci.cart_id " +
+            "WHERE ci.menu_id = :menuId FOR UPDATE OF ci), " +
+            "updated AS (UPDATE cart_items ci SET quantity = ci.quantity - 1, sub_total = ci.price_per_unit * (ci.quantity - 1) " +
+            "FROM target t WHERE ci.id = t.id AND t.quantity > 1 RETURNING ci.id), " +
+            "deleted AS (DELETE FROM cart_items ci USING target t WHERE ci.id = t.id AND t.quantity <= 1 RETURNING ci.id), " +
+            "totals AS (UPDATE carts c SET total_cents = c.total_cents - CAST(ROUND(t.price_per_unit * 100) AS bigint), " +
+            "item_count = c.item_count - 1, version = c.version + 1 FROM target t WHERE c.id = t.cart_id RETURNING c.id) " +
+            "SELECT CAST((SELECT COUNT(*) FROM updated) + (SELECT COUNT(*) FROM deleted) AS integer)", nativeQuery = true)
+    int decrementLine(@Param("userId") Long userId, @Param("menuId") Long menuId);
+
+    @Query(value = "WITH cart AS (SELECT id FROM carts WHERE user_id = :userId FOR UPDATE), " +
+            "deleted AS (DELETE FROM cart_items ci USING cart WHERE ci.id = :cartItemId AND ci.cart_id = cart.id " +
+            "RETURNING ci.cart_id, ci.quantity, ci.price_per_unit), " +
+            "totals AS (UPDATE carts c SET total_cents = c.total_cents - CAST(ROUND(d.price_per_unit * 100) AS bigint) * d.quantity, " +
+            "item_count = c.item_count - d.quantity, version = c.version + 1 FROM deleted d WHERE c.id = d.cart_id RETURNING c.id) " +
+            "SELECT CAST(COUNT(*) AS integer) FROM deleted", nativeQuery = true)
+    int deleteLine(@Param("userId") Long userId, @Param("cartItemId") Long cartItemId);
+
+    //run after lockCart in the same transaction, so no line can change between the delete and the reset
+    @Modifying
+    @Query(value = "WITH deleted AS (DELETE FROM cart_items ci USING carts c WHERE c.id = ci.cart_id AND c.user_id = :userId RETURNING ci.id) " +
+            "UPDATE carts SET total_cents = 0, item_count = 0, version = version + 1 WHERE user_id = :userId", nativeQuery = true)
+    int deleteAllLines(@Param("userId") Long userId);
+
+    @Query(value = "SELECT CAST(COUNT(*) AS integer) FROM (SELECT id FROM carts WHERE user_id = :userId FOR UPDATE) cart", nativeQuery = true)
+    int lockCart(@Param("userId") Long userId);
 }
@@ -1,11 +1,28 @@
 package com.abiodunelijah.cart.repository;
 
+import com.abiodunelijah.cart.dtos.CartSummaryDto;
 import com.abiodunelijah.cart.entities.Cart;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 
 public interface CartRepository extends JpaRepository<Cart, Long> {
 
     Optional<Cart> findByUser_Id(Long userId);
+
+    @Query("SELECT new com.abiodunelijah.cart.dtos.CartSummaryDto(c.id, c.totalCents, c.itemCount, c.version) " +
+            "FROM Cart c WHERE c.user.id = :userId")
+    Optional<CartSummaryDto> findSummaryByUserId(@Param("userId") Long userId);
+
+    //recomputes every cart's totals from its lines, used to backfill carts filled before the totals existed
+    @Modifying
+    @Query(value = "UPDATE carts c SET total_cents = COALESCE(s.total_cents, 0), item_count = COALESCE(s.item_count, 0), " +
+            "version = c.version + 1 " +
+            "FROM carts k LEFT JOIN (SELECT ci.cart_id, SUM(CAST(ROUND(ci.price_per_unit * 100) AS bigint) * ci.quantity) AS total_cents, " +
+            "SUM(ci.quantity) AS item_count FROM cart_items ci GROUP BY ci.cart_id) s ON s.cart_id = k.id " +
+            "WHERE k.id = c.id", nativeQuery = true)
+    int rebuildTotals();
 }
@@ -0,0 +1,41 @@
+package com.abiodunelijah.cart.services;
+
+import com.abiodunelijah.cart.dtos.CartOperationDto;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//Folds a batch of cart operations into one change per menu: the deltas of a menu add up, and an absolute quantity
+//replaces whatever came before it. The result is applied to the line's quantity at write time, so the database
+//store can apply it in SQL against the latest quantity.
+final class CartOperations {
+
+    private CartOperations() {
+    }
+
+    //quantity is null when only deltas were given
+    record LineChange(Integer quantity, int delta) {
+
+        //0 or less means the line is removed
+        int applyTo(int currentQuantity) {
+            return Math.max((quantity != null ? quantity : currentQuantity) + delta, 0);
+        }
+    }
+
+    static Map<Long, LineChange> fold(List<CartOperationDto> operations) {
+
+        Map<Long, LineChange> changes = new LinkedHashMap<>();
+
+        for (CartOperationDto operation : operations) {
+            LineChange previous = changes.get(operation.getMenuId());
+            LineChange next = operation.getQuantity() != null
+                    ? new LineChange(operation.getQuantity(), 0)
+                    : new LineChange(previous != null ? previous.quantity() : null,
+                            (previous != null ? previous.delta() : 0) + operation.getDelta());
+            changes.put(operation.getMenuId(), next);
+        }
+
+        return changes;
+    }
+}
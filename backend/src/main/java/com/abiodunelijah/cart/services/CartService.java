@@ -2,6 +2,8 @@ package com.abiodunelijah.cart.services;
 
 
 import com.abiodunelijah.cart.dtos.CartDto;
+import com.abiodunelijah.cart.dtos.CartSummaryDto;
+import com.abiodunelijah.cart.dtos.CartUpdateDto;
 import com.abiodunelijah.response.Response;
 
 public interface CartService {
@@ -10,7 +12,9 @@ public interface CartService {
     Response<?> incrementMenuItem(Long menuItemId);
     Response<?> decrementMenuItem(Long menuItemId);
     Response<?> removeMenuItem(Long cartItem);
+    Response<CartSummaryDto> updateCart(CartUpdateDto cartUpdateDto);
     Response<CartDto> getShoppingCart();
+    Response<CartSummaryDto> getCartSummary();
     Response<?> clearShoppingCart();
 
 }
@@ -1,40 +1,29 @@
 package com.abiodunelijah.cart.services;
 
 
-import com.abiodunelijah.auth_users.entities.User;
 import com.abiodunelijah.auth_users.services.UserService;
 import com.abiodunelijah.cart.dtos.CartDto;
-import com.abiodunelijah.cart.entities.Cart;
-import com.abiodunelijah.cart.entities.CartItem;
-import com.abiodunelijah.cart.repository.CartItemRepository;
-import com.abiodunelijah.cart.repository.CartRepository;
-import com.abiodunelijah.exceptions.NotFoundException;
-import com.abiodunelijah.menu.entities.Menu;
-import com.abiodunelijah.menu.repository.MenuRepository;
+import com.abiodunelijah.cart.dtos.CartOperationDto;
+import com.abiodunelijah.cart.dtos.CartSummaryDto;
+import com.abiodunelijah.cart.dtos.CartUpdateDto;
+import com.abiodunelijah.exceptions.BadRequestException;
 import com.abiodunelijah.response.Response;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
-@Transactional
 public class CartServiceImpl implements CartService {
 
+    private static final int MAX_OPERATIONS = 100;
+
     private final UserService userService;
-    private final CartItemRepository cartItemRepository;
-    private final CartRepository cartRepository;
-    private final ModelMapper modelMapper;
-    private final MenuRepository menuRepository;
+    private final CartStore cartStore;
 
 
     @Override
@@ -44,41 +33,12 @@ public class CartServiceImpl implements CartService {
         Long menuId = cartDTO.getMenuId();
         int quantity = cartDTO.getQuantity();
 
-        User user = userService.getCurrentLoggedInUser();
-
-        Menu menu = menuRepository.findById(menuId).orElseThrow(() -> new NotFoundException("Menu Item not found."));
-        Cart cart = cartRepository.findByUser_Id(user.getId())
-                .orElseGet(() -> {
-                    Cart newCart = new Cart();
-                    newCart.setUser(user);
-                    newCart.setCartItems(new ArrayList<>());
-                    return cartRepository.save(newCart);
-                });
-
-        //check if item already exists in cart
-        Optional<CartItem> optionalCartItem = cart.getCartItems().stream()
-                .filter(cartItem -> cartItem.getMenu().getId().equals(menuId))
-                .findFirst();
-
-        //if present, increment item
-        if (optionalCartItem.isPresent()){
-            CartItem cartItem = optionalCartItem.get();
-            cartItem.setQuantity(cartItem.getQuantity() + quantity);
-            cartItem.setSubTotal(cartItem.getPricePerUnit().multiply(BigDecimal.valueOf(cartItem.getQuantity())));
-            cartItemRepository.save(cartItem);
-        }else {
-            //if not present, and add it
-            CartItem cartItem = CartItem.builder()
-                    .cart(cart)
-                    .menu(menu)
-                    .quantity(quantity)
-                    .pricePerUnit(menu.getPrice())
-                    .subTotal(menu.getPrice().multiply(BigDecimal.valueOf(quantity)))
-                    .build();
-            cart.getCartItems().add(cartItem);
-            cartItemRepository.save(cartItem);
+        if (menuId == null || quantity <= 0) {
+            throw new BadRequestException("A menu id and a quantity of at least 1 are required.");
         }
 
+        cartStore.addToLine(userService.getCurrentLoggedInUserId(), menuId, quantity);
+
         return Response.builder()
                 .statusCode(HttpStatus.OK.value())
                 .message("Item successfully added to cart")
@@ -90,20 +50,7 @@ public class CartServiceImpl implements CartService {
     public Response<?> incrementMenuItem(Long menuItemId) {
         log.info("Inside incrementMenuItem()");
 
-        User user = userService.getCurrentLoggedInUser();
-
-        Cart cart = cartRepository.findByUser_Id(user.getId())
-                .orElseThrow(() -> new NotFoundException("cart not found."));
-
-        CartItem cartItem = cart.getCartItems().stream()
-                .filter(item -> item.getMenu().getId().equals(menuItemId))
-                .findFirst().orElseThrow(() -> new NotFoundException("Menu not found in cart."));
-
-        int newQuantity = cartItem.getQuantity() + 1;
-
-        cartItem.setQuantity(newQuantity);
-        cartItem.setSubTotal(cartItem.getPricePerUnit().multiply(BigDecimal.valueOf(newQuantity)));
-        cartItemRepository.save(cartItem);
+        cartStore.incrementLine(userService.getCurrentLoggedInUserId(), menuItemId);
 
         return Response.builder()
                 .statusCode(HttpStatus.OK.value())
@@ -115,25 +62,7 @@ public class CartServiceImpl implements CartService {
     public Response<?> decrementMenuItem(Long menuItemId) {
         log.info("Inside decrementMenuItem()");
 
-        User user = userService.getCurrentLoggedInUser();
-
-        Cart cart = cartRepository.findByUser_Id(user.getId())
-                .orElseThrow(() -> new NotFoundException("cart not found."));
-
-        CartItem cartItem = cart.getCartItems().stream()
-                .filter(item -> item.getMenu().getId().equals(menuItemId))
-                .findFirst().orElseThrow(() -> new NotFoundException("Menu not found in cart."));
-
-        int newQuantity = cartItem.getQuantity() - 1;
-
-        if (newQuantity > 0) {
-            cartItem.setQuantity(newQuantity);
-            cartItem.setSubTotal(cartItem.getPricePerUnit().multiply(BigDecimal.valueOf(newQuantity)));
-            cartItemRepository.save(cartItem);
-        } else {
-            cart.getCartItems().remove(cartItem);
-            cartItemRepository.delete(cartItem);
-        }
+        cartStore.decrementLine(userService.getCurrentLoggedInUserId(), menuItemId);
 
         return Response.builder()
                 .statusCode(HttpStatus.OK.value())
@@ -144,20 +73,8 @@ public class CartServiceImpl implements CartService {
     @Override
     public Response<?> removeMenuItem(Long cartItemId) {
         log.info("Inside removeMenuItem()");
-        User user = userService.getCurrentLoggedInUser();
-
-        Cart cart = cartRepository.findByUser_Id(user.getId())
-                .orElseThrow(() -> new NotFoundException("Cart not found for user"));
-
-        CartItem cartItem = cartItemRepository.findById(cartItemId)
-                .orElseThrow(() -> new NotFoundException("Cart item not found"));
-
-        if (!cart.getCartItems().contains(cartItem)) {
-            throw new NotFoundException("Cart item does not belong to this user's cart");
-        }
-        cart.getCartItems().remove(cartItem);
-        cartItemRepository.delete(cartItem);
 
+        cartStore.removeLine(userService.getCurrentLoggedInUserId(), cartItemId);
 
         return Response.builder()
                 .statusCode(HttpStatus.OK.value())
@@ -166,33 +83,39 @@ public class CartServiceImpl implements CartService {
     }
 
     @Override
-    @Transactional(readOnly = true)
-    public Response<CartDto> getShoppingCart() {
-        log.info("Inside getShoppingCart()");
-        User user = userService.getCurrentLoggedInUser();
-
-        Cart cart = cartRepository.findByUser_Id(user.getId())
-                .orElseThrow(() -> new NotFoundException("Cart not found for user"));
+    public Response<CartSummaryDto> updateCart(CartUpdateDto cartUpdateDto) {
+        log.info("Inside updateCart()");
 
-        List<CartItem> cartItems = cart.getCartItems();
+        List<CartOperationDto> operations = cartUpdateDto.getOperations();
 
-        CartDto cartDTO = modelMapper.map(cart, CartDto.class);
-
-        // Calculate total amount
-        BigDecimal totalAmount = BigDecimal.ZERO;
-        if (cartItems != null) { // Add null check here
-            for (CartItem item : cartItems) {
-                totalAmount = totalAmount.add(item.getSubTotal());
+        if (operations.size() > MAX_OPERATIONS) {
+            throw new BadRequestException("At most " + MAX_OPERATIONS + " operations are allowed per request.");
+        }
+        for (CartOperationDto operation : operations) {
+            if ((operation.getDelta() == null) == (operation.getQuantity() == null)) {
+                throw new BadRequestException("Each operation needs either a delta or a quantity.");
+            }
+            if (operation.getQuantity() != null && operation.getQuantity() < 0) {
+                throw new BadRequestException("Quantity cannot be negative.");
             }
         }
 
-        cartDTO.setTotalAmount(totalAmount); //set the totalAmount
+        Long userId = userService.getCurrentLoggedInUserId();
 
-        //remove the review from the response
-        if (cartDTO.getCartItemsDto() != null) {
-            cartDTO.getCartItemsDto()
-                    .forEach(item -> item.getMenuDto().setReviews(null));
-        }
+        cartStore.applyOperations(userId, operations);
+
+        return Response.<CartSummaryDto>builder()
+                .statusCode(HttpStatus.OK.value())
+                .message("Shopping cart updated successfully")
+                .data(cartStore.getSummary(userId))
+                .build();
+    }
+
+    @Override
+    public Response<CartDto> getShoppingCart() {
+        log.info("Inside getShoppingCart()");
+
+        CartDto cartDTO = cartStore.getCart(userService.getCurrentLoggedInUserId());
 
         return Response.<CartDto>builder()
                 .statusCode(HttpStatus.OK.value())
@@ -202,21 +125,23 @@ public class CartServiceImpl implements CartService {
     }
 
     @Override
-    public Response<?> clearShoppingCart() {
-        log.info("Inside clearShoppingCart()");
-        User user = userService.getCurrentLoggedInUser();
+    public Response<CartSummaryDto> getCartSummary() {
+        log.info("Inside getCartSummary()");
 
-        Cart cart = cartRepository.findByUser_Id(user.getId())
-                .orElseThrow(() -> new NotFoundException("Cart not found for user"));
+        CartSummaryDto summary = cartStore.getSummary(userService.getCurrentLoggedInUserId());
 
-        //Delete cart items from the database first
-        cartItemRepository.deleteAll(cart.getCartItems());
+        return Response.<CartSummaryDto>builder()
+                .statusCode(HttpStatus.OK.value())
+                .message("Shopping cart summary retrieved successfully")
+                .data(summary)
+                .build();
+    }
 
-        //Clear the cart's items collection
-        cart.getCartItems().clear();
+    @Override
+    public Response<?> clearShoppingCart() {
+        log.info("Inside clearShoppingCart()");
 
-        //update the database
-        cartRepository.save(cart);
+        cartStore.clear(userService.getCurrentLoggedInUserId());
 
         return Response.builder()
                 .statusCode(HttpStatus.OK.value())
@@ -0,0 +1,25 @@
+package com.abiodunelijah.cart.services;
+
+import com.abiodunelijah.cart.dtos.CartDto;
+import com.abiodunelijah.cart.dtos.CartOperationDto;
+import com.abiodunelijah.cart.dtos.CartSummaryDto;
+
+import java.util.List;
+import java.util.Map;
+
+//Where cart lines live between taps, cart.store picks the implementation (database or memory).
+public interface CartStore {
+    void addToLine(Long userId, Long menuId, int quantity);
+    void incrementLine(Long userId, Long menuId);
+    void decrementLine(Long userId, Long menuId);
+    void removeLine(Long userId, Long cartItemId);
+    //applies the whole batch or nothing of it
+    void applyOperations(Long userId, List<CartOperationDto> operations);
+    void clear(Long userId);
+    CartDto getCart(Long userId);
+    CartSummaryDto getSummary(Long userId);
+    //makes carts/cart_items hold the user's latest cart, checkout reads the tables right after
+    void flush(Long userId);
+    //checkout has moved these quantities per menu id into the order and emptied cart_items in its own statement
+    void checkedOut(Long userId, Map<Long, Integer> orderedQuantities);
+}
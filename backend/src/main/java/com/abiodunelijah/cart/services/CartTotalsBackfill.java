@@ -0,0 +1,34 @@
+package com.abiodunelijah.cart.services;
+
+import com.abiodunelijah.cart.repository.CartRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+//One-off recomputation of the cart totals from cart_items, enabled by property.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CartTotalsBackfill {
+
+    private final CartRepository cartRepository;
+
+    @Value("${cart.totals.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuildTotals() {
+
+        if (!rebuildOnStartup) {
+            return;
+        }
+
+        int updated = cartRepository.rebuildTotals();
+        log.info("Rebuilt totals for {} carts", updated);
+    }
+}
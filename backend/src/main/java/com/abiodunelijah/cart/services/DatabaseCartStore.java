@@ -0,0 +1,178 @@
+package com.abiodunelijah.cart.services;
+
+import com.abiodunelijah.cart.dtos.CartDto;
+import com.abiodunelijah.cart.dtos.CartOperationDto;
+import com.abiodunelijah.cart.dtos.CartSummaryDto;
+import com.abiodunelijah.cart.entities.Cart;
+import com.abiodunelijah.cart.repository.CartItemRepository;
+import com.abiodunelijah.cart.repository.CartRepository;
+import com.abiodunelijah.exceptions.NotFoundException;
+import com.abiodunelijah.menu.repository.MenuRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.modelmapper.ModelMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+//Every tap is one statement against carts/cart_items, see CartItemRepository.
+@Service
+@ConditionalOnProperty(name = "cart.store", havingValue = "database", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class DatabaseCartStore implements CartStore {
+
+    //creates the cart when missing and locks its row, so two batches on the same cart apply one after the other
+    private static final String LOCK_CART_SQL =
+            "INSERT INTO carts (user_id) VALUES (?) " +
+            "ON CONFLICT (user_id) DO UPDATE SET user_id = EXCLUDED.user_id RETURNING id";
+
+    //applies the folded changes against the latest line quantities and moves the cart totals by the difference;
+    //returns the menus that would need a new line but do not exist
+    private static final String APPLY_CHANGES_SQL =
+            "WITH ops AS (SELECT * FROM unnest(?, ?, ?) AS o(menu_id, quantity, delta)), " +
+            "target AS (SELECT o.menu_id, ci.quantity AS old_quantity, COALESCE(ci.price_per_unit, m.price) AS price, " +
+            "GREATEST(COALESCE(o.quantity, ci.quantity, 0) + o.delta, 0) AS quantity " +
+            "FROM ops o LEFT JOIN cart_items ci ON ci.cart_id = ? AND ci.menu_id = o.menu_id " +
+            "LEFT JOIN menus m ON m.id = o.menu_id), " +
+            "deleted AS (DELETE FROM cart_items ci USING target t " +
+            "WHERE ci.cart_id = ? AND ci.menu_id = t.menu_id AND t.quantity = 0), " +
+            "written AS (INSERT INTO cart_items (cart_id, menu_id, quantity, price_per_unit, sub_total) " +
+            "SELECT ?, t.menu_id, t.quantity, t.price, t.price * t.quantity FROM target t " +
+            "WHERE t.quantity > 0 AND t.price IS NOT NULL ORDER BY t.menu_id " +
+            "ON CONFLICT (cart_id, menu_id) DO UPDATE SET quantity = EXCLUDED.quantity, " +
+            "sub_total = cart_items.price_per_unit * EXCLUDED.quantity), " +
+            "totals AS (UPDATE carts SET " +
+            "total_cents = total_cents + (SELECT COALESCE(SUM(CAST(ROUND(t.price * 100) AS bigint) " +
+            "* (t.quantity - COALESCE(t.old_quantity, 0))), 0) FROM target t WHERE t.price IS NOT NULL), " +
+            "item_count = item_count + (SELECT COALESCE(SUM(t.quantity - COALESCE(t.old_quantity, 0)), 0) " +
+            "FROM target t WHERE t.price IS NOT NULL), " +
+            "version = version + 1 WHERE id = ?) " +
+            "SELECT t.menu_id FROM target t WHERE t.quantity > 0 AND t.price IS NULL";
+
+    private final CartItemRepository cartItemRepository;
+    private final CartRepository cartRepository;
+    private final MenuRepository menuRepository;
+    private final ModelMapper modelMapper;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void addToLine(Long userId, Long menuId, int quantity) {
+
+        //one upsert creates the cart if needed and adds to the existing line or inserts a new one
+        if (cartItemRepository.addToLine(userId, menuId, quantity) == 0) {
+            if (!menuRepository.existsById(menuId)) {
+                throw new NotFoundException("Menu Item not found.");
+            }
+            //a concurrent first add created the cart in the meantime, it is visible to the next statement
+            cartItemRepository.addToLine(userId, menuId, quantity);
+        }
+    }
+
+    @Override
+    public void incrementLine(Long userId, Long menuId) {
+        if (cartItemRepository.incrementLine(userId, menuId) == 0) {
+            throw new NotFoundException("Menu not found in cart.");
+        }
+    }
+
+    @Override
+    public void decrementLine(Long userId, Long menuId) {
+        //the line is removed instead once its quantity would drop to zero
+        if (cartItemRepository.decrementLine(userId, menuId) == 0) {
+            throw new NotFoundException("Menu not found in cart.");
+        }
+    }
+
+    @Override
+    public void removeLine(Long userId, Long cartItemId) {
+        //only deletes the item when it belongs to this user's cart
+        if (cartItemRepository.deleteLine(userId, cartItemId) == 0) {
+            throw new NotFoundException("Cart item not found in this user's cart");
+        }
+    }
+
+    @Override
+    public void applyOperations(Long userId, List<CartOperationDto> operations) {
+
+        Long cartId = jdbcTemplate.queryForObject(LOCK_CART_SQL, Long.class, userId);
+
+        //the cart row is locked from here on, so the next statement reads and writes the latest lines
+        Map<Long, CartOperations.LineChange> changes = CartOperations.fold(operations);
+        Long[] menuIds = changes.keySet().toArray(Long[]::new);
+        Integer[] quantities = changes.values().stream().map(CartOperations.LineChange::quantity).toArray(Integer[]::new);
+        Integer[] deltas = changes.values().stream().map(CartOperations.LineChange::delta).toArray(Integer[]::new);
+
+        List<Long> unknownMenus = jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement(APPLY_CHANGES_SQL);
+            statement.setArray(1, connection.createArrayOf("bigint", menuIds));
+            statement.setArray(2, connection.createArrayOf("integer", quantities));
+            statement.setArray(3, connection.createArrayOf("integer", deltas));
+            statement.setLong(4, cartId);
+            statement.setLong(5, cartId);
+            statement.setLong(6, cartId);
+            statement.setLong(7, cartId);
+            return statement;
+        }, (resultSet, rowNum) -> resultSet.getLong("menu_id"));
+
+        //rolls the whole batch back
+        if (!unknownMenus.isEmpty()) {
+            throw new NotFoundException("Menu Item not found.");
+        }
+    }
+
+    @Override
+    public void clear(Long userId) {
+        //the cart row lock keeps taps out while the lines are deleted and the totals reset
+        if (cartItemRepository.lockCart(userId) > 0) {
+            cartItemRepository.deleteAllLines(userId);
+        }
+    }
+
+    @Override
+    public void checkedOut(Long userId, Map<Long, Integer> orderedQuantities) {
+        //the tables are the cart, nothing else holds the lines
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CartDto getCart(Long userId) {
+
+        Cart cart = cartRepository.findByUser_Id(userId)
+                .orElseThrow(() -> new NotFoundException("Cart not found for user"));
+
+        CartDto cartDTO = modelMapper.map(cart, CartDto.class);
+
+        //kept up to date by every line change, no need to add up the lines
+        cartDTO.setTotalCents(cart.getTotalCents());
+        cartDTO.setTotalAmount(BigDecimal.valueOf(cart.getTotalCents(), 2));
+        cartDTO.setItemCount(cart.getItemCount());
+        cartDTO.setVersion(cart.getVersion());
+
+        //remove the review from the response
+        if (cartDTO.getCartItemsDto() != null) {
+            cartDTO.getCartItemsDto()
+                    .forEach(item -> item.getMenuDto().setReviews(null));
+        }
+
+        return cartDTO;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CartSummaryDto getSummary(Long userId) {
+        return cartRepository.findSummaryByUserId(userId)
+                .orElseThrow(() -> new NotFoundException("Cart not found for user"));
+    }
+
+    @Override
+    public void flush(Long userId) {
+        //every tap is already written
+    }
+}
@@ -0,0 +1,719 @@
+package com.abiodunelijah.cart.services;
+
+import com.abiodunelijah.cart.dtos.CartDto;
+import com.abiodunelijah.cart.dtos.CartItemDto;
+import com.abiodunelijah.cart.dtos.CartOperationDto;
+import com.abiodunelijah.cart.dtos.CartSummaryDto;
+import com.abiodunelijah.cart.entities.CartItem;
+import com.abiodunelijah.cart.repository.CartRepository;
+import com.abiodunelijah.enums.ImageRendition;
+import com.abiodunelijah.exceptions.NotFoundException;
+import com.abiodunelijah.menu.dtos.MenuDto;
+import com.abiodunelijah.menu.entities.Menu;
+import com.abiodunelijah.menu.repository.MenuRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+//Write-behind cart store: active carts live in memory keyed by user id and taps never touch the database.
+//Dirty carts are written to carts/cart_items in batches on a schedule, and synchronously before checkout.
+//Only correct while a single instance serves a given user, carts are not shared between instances.
+@Service
+@ConditionalOnProperty(name = "cart.store", havingValue = "memory")
+@Slf4j
+public class InMemoryCartStore implements CartStore {
+
+    //one lock per stripe rather than per user, a fixed number of locks guards any number of carts
+    private static final int STRIPES = 64;
+
+    private static final String UPSERT_CARTS_SQL =
+            "INSERT INTO carts (user_id) SELECT unnest(?) " +
+            "ON CONFLICT (user_id) DO UPDATE SET user_id = EXCLUDED.user_id RETURNING user_id, id";
+
+    private static final String DELETE_LINES_SQL =
+            "DELETE FROM cart_items ci USING unnest(?, ?) AS r(cart_id, menu_id) " +
+            "WHERE ci.cart_id = r.cart_id AND ci.menu_id = r.menu_id";
+
+    //lines of menus deleted in the meantime are dropped instead of failing the whole batch
+    private static final String UPSERT_LINES_SQL =
+            "INSERT INTO cart_items (cart_id, menu_id, quantity, price_per_unit, sub_total) " +
+            "SELECT u.cart_id, u.menu_id, u.quantity, u.price, u.price * u.quantity " +
+            "FROM unnest(?, ?, ?, ?) AS u(cart_id, menu_id, quantity, price) JOIN menus m ON m.id = u.menu_id " +
+            "ON CONFLICT (cart_id, menu_id) DO UPDATE SET quantity = EXCLUDED.quantity, sub_total = EXCLUDED.sub_total " +
+            "RETURNING cart_id, menu_id, id";
+
+    //the memory copy is authoritative, its totals are written as they are
+    private static final String UPDATE_TOTALS_SQL =
+            "UPDATE carts c SET total_cents = u.total_cents, item_count = u.item_count, version = u.version " +
+            "FROM unnest(?, ?, ?, ?) AS u(cart_id, total_cents, item_count, version) WHERE c.id = u.cart_id";
+
+    private final CartRepository cartRepository;
+    private final MenuRepository menuRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate flushTransaction;
+
+    private final Map<Long, MemoryCart> carts = new ConcurrentHashMap<>();
+    private final Set<Long> dirtyUsers = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+    //one flush at a time, so a checkout flush also waits for a scheduled batch holding the same cart
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final int flushBatchSize;
+    private final long idleMillis;
+
+    public InMemoryCartStore(CartRepository cartRepository,
+                             MenuRepository menuRepository,
+                             JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${cart.memory.flush-batch-size:500}") int flushBatchSize,
+                             @Value("${cart.memory.idle-minutes:30}") long idleMinutes) {
+        this.cartRepository = cartRepository;
+        this.menuRepository = menuRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        //a flush commits on its own, also when called from inside the checkout transaction
+        this.flushTransaction = new TransactionTemplate(transactionManager);
+        this.flushTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.flushBatchSize = Math.max(flushBatchSize, 1);
+        this.idleMillis = TimeUnit.MINUTES.toMillis(idleMinutes);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        log.info("In-memory cart store enabled");
+    }
+
+    private static final class MemoryCart {
+        Long cartId;
+        final Map<Long, Line> lines = new LinkedHashMap<>();
+        //menu ids whose rows have to be deleted by the next flush
+        final Set<Long> removedMenuIds = new HashSet<>();
+        long totalCents;
+        int itemCount;
+        long version;
+        long lastAccessMillis;
+    }
+
+    private static final class Line {
+        Long id;
+        final MenuDto menu;
+        final BigDecimal pricePerUnit;
+        final long priceCents;
+        int quantity;
+        boolean dirty;
+
+        Line(Long id, MenuDto menu, BigDecimal pricePerUnit, int quantity) {
+            this.id = id;
+            this.menu = menu;
+            this.pricePerUnit = pricePerUnit;
+            this.priceCents = pricePerUnit.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+            this.quantity = quantity;
+        }
+    }
+
+    private record LineSnapshot(Long menuId, int quantity, BigDecimal pricePerUnit, long priceCents) {
+    }
+
+    private record CartSnapshot(Long userId, Long cartId, List<LineSnapshot> lines, List<Long> removedMenuIds,
+                                long totalCents, int itemCount, long version) {
+    }
+
+    @Override
+    public void addToLine(Long userId, Long menuId, int quantity) {
+
+        boolean added = withCart(userId, cart -> {
+            Line line = cart.lines.get(menuId);
+            if (line == null) {
+                return false;
+            }
+            setQuantity(userId, cart, menuId, line, line.quantity + quantity);
+            return true;
+        });
+
+        if (added) {
+            return;
+        }
+
+        //the menu is read outside the stripe lock, only new lines need it
+        Menu menu = menuRepository.findById(menuId)
+                .orElseThrow(() -> new NotFoundException("Menu Item not found."));
+        MenuDto menuDto = toMenuDto(menu);
+
+        withCart(userId, cart -> {
+            Line line = cart.lines.get(menuId);
+            setQuantity(userId, cart, menuId,
+                    line != null ? line : new Line(null, menuDto, menu.getPrice(), 0),
+                    (line != null ? line.quantity : 0) + quantity);
+            return null;
+        });
+    }
+
+    @Override
+    public void incrementLine(Long userId, Long menuId) {
+        withCart(userId, cart -> {
+            Line line = cart.lines.get(menuId);
+            if (line == null) {
+                throw new NotFoundException("Menu not found in cart.");
+            }
+            setQuantity(userId, cart, menuId, line, line.quantity + 1);
+            return null;
+        });
+    }
+
+    @Override
+    public void decrementLine(Long userId, Long menuId) {
+        withCart(userId, cart -> {
+            Line line = cart.lines.get(menuId);
+            if (line == null) {
+                throw new NotFoundException("Menu not found in cart.");
+            }
+            //the line is removed once its quantity reaches zero
+            setQuantity(userId, cart, menuId, line, line.quantity - 1);
+            return null;
+        });
+    }
+
+    @Override
+    public void removeLine(Long userId, Long cartItemId) {
+        withCart(userId, cart -> {
+            Map.Entry<Long, Line> entry = cart.lines.entrySet().stream()
+                    .filter(candidate -> cartItemId.equals(candidate.getValue().id))
+                    .findFirst()
+                    .orElseThrow(() -> new NotFoundException("Cart item not found in this user's cart"));
+            setQuantity(userId, cart, entry.getKey(), entry.getValue(), 0);
+            return null;
+        });
+    }
+
+    @Override
+    public void applyOperations(Long userId, List<CartOperationDto> operations) {
+
+        Map<Long, CartOperations.LineChange> changes = CartOperations.fold(operations);
+
+        //menus needing a new line are read outside the stripe lock, then the batch is checked again under it:
+        //a line removed meanwhile sends its menu back for a lookup instead of failing the batch
+        Map<Long, Menu> menus = new HashMap<>();
+        Set<Long> absent = new HashSet<>();
+
+        while (true) {
+            Set<Long> unloaded = withCart(userId, cart -> {
+                Map<Long, Integer> targets = new LinkedHashMap<>();
+                changes.forEach((menuId, change) -> {
+                    Line line = cart.lines.get(menuId);
+                    targets.put(menuId, change.applyTo(line != null ? line.quantity : 0));
+                });
+
+                Set<Long> needed = new HashSet<>();
+                for (Map.Entry<Long, Integer> target : targets.entrySet()) {
+                    Long menuId = target.getKey();
+                    if (target.getValue() > 0 && !cart.lines.containsKey(menuId) && !menus.containsKey(menuId)) {
+                        //checked before anything changes, so a bad menu id leaves the cart as it was
+                        if (absent.contains(menuId)) {
+                            throw new NotFoundException("Menu Item not found.");
+                        }
+                        needed.add(menuId);
+                    }
+                }
+                if (!needed.isEmpty()) {
+                    return needed;
+                }
+
+                targets.forEach((menuId, quantity) -> {
+                    Line line = cart.lines.get(menuId);
+                    if (line == null && quantity > 0) {
+                        Menu menu = menus.get(menuId);
+                        line = new Line(null, toMenuDto(menu), menu.getPrice(), 0);
+                    }
+                    if (line != null) {
+                        setQuantity(userId, cart, menuId, line, quantity);
+                    }
+                });
+                return Set.<Long>of();
+            });
+
+            if (unloaded.isEmpty()) {
+                return;
+            }
+
+            menuRepository.findAllById(unloaded).forEach(menu -> menus.put(menu.getId(), menu));
+            unloaded.stream().filter(menuId -> !menus.containsKey(menuId)).forEach(absent::add);
+        }
+    }
+
+    @Override
+    public void clear(Long userId) {
+
+        Runnable clear = () -> withCart(userId, cart -> {
+            for (Map.Entry<Long, Line> entry : List.copyOf(cart.lines.entrySet())) {
+                setQuantity(userId, cart, entry.getKey(), entry.getValue(), 0);
+            }
+            return null;
+        });
+
+        //at checkout the cart is only emptied once the order is committed
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    clear.run();
+                }
+            });
+        } else {
+            clear.run();
+        }
+    }
+
+    @Override
+    public void checkedOut(Long userId, Map<Long, Integer> orderedQuantities) {
+
+        //only what went into the order leaves the cart, taps made after the checkout flush stay
+        Runnable release = () -> withCart(userId, cart -> {
+            orderedQuantities.forEach((menuId, ordered) -> {
+                Line line = cart.lines.get(menuId);
+                if (line != null) {
+                    //checkout deleted the row, a remaining quantity is written again as a new line
+                    line.id = null;
+                    setQuantity(userId, cart, menuId, line, line.quantity - ordered);
+                }
+            });
+            return null;
+        });
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    release.run();
+                }
+            });
+        } else {
+            release.run();
+        }
+    }
+
+    @Override
+    public CartDto getCart(Long userId) {
+
+        //lines added since the last flush have no id yet, the client needs one to remove them
+        boolean unsaved = withCart(userId, cart -> cart.lines.values().stream().anyMatch(line -> line.id == null));
+        if (unsaved) {
+            flush(userId);
+        }
+
+        return withCart(userId, cart -> {
+            if (cart.cartId == null && cart.lines.isEmpty()) {
+                throw new NotFoundException("Cart not found for user");
+            }
+
+            CartDto cartDTO = new CartDto();
+            cartDTO.setId(cart.cartId);
+
+            List<CartItemDto> items = new ArrayList<>(cart.lines.size());
+            for (Line line : cart.lines.values()) {
+                CartItemDto item = new CartItemDto();
+                item.setId(line.id);
+                item.setMenuDto(line.menu);
+                item.setQuantity(line.quantity);
+                item.setPricePerUnit(line.pricePerUnit);
+                item.setSubTotal(BigDecimal.valueOf(line.priceCents * line.quantity, 2));
+                items.add(item);
+            }
+
+            cartDTO.setCartItemsDto(items);
+            cartDTO.setTotalCents(cart.totalCents);
+            cartDTO.setTotalAmount(BigDecimal.valueOf(cart.totalCents, 2));
+            cartDTO.setItemCount(cart.itemCount);
+            cartDTO.setVersion(cart.version);
+            return cartDTO;
+        });
+    }
+
+    @Override
+    public CartSummaryDto getSummary(Long userId) {
+        return withCart(userId, cart -> {
+            if (cart.cartId == null && cart.lines.isEmpty()) {
+                throw new NotFoundException("Cart not found for user");
+            }
+            return new CartSummaryDto(cart.cartId, cart.totalCents, cart.itemCount, cart.version);
+        });
+    }
+
+    @Override
+    public void flush(Long userId) {
+        if (dirtyUsers.contains(userId)) {
+            flushUsers(List.of(userId));
+        } else {
+            //a scheduled batch may be writing this cart right now
+            flushLock.lock();
+            flushLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cart.memory.flush-interval-ms:2000}")
+    public void flushDirtyCarts() {
+
+        List<Long> batch = new ArrayList<>(flushBatchSize);
+        for (Long userId : dirtyUsers) {
+            batch.add(userId);
+            if (batch.size() == flushBatchSize) {
+                flushUsers(batch);
+                batch = new ArrayList<>(flushBatchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            flushUsers(batch);
+        }
+
+        evictIdleCarts();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        log.info("Flushing {} dirty carts before shutdown", dirtyUsers.size());
+        flushUsers(List.copyOf(dirtyUsers));
+    }
+
+    private void flushUsers(List<Long> userIds) {
+
+        flushLock.lock();
+        try {
+            List<CartSnapshot> snapshots = new ArrayList<>(userIds.size());
+            for (Long userId : userIds) {
+                CartSnapshot snapshot = snapshot(userId);
+                if (snapshot != null) {
+                    snapshots.add(snapshot);
+                }
+            }
+
+            if (snapshots.isEmpty()) {
+                return;
+            }
+
+            Map<Long, Long> cartIds = new HashMap<>();
+            Map<Long, Map<Long, Long>> lineIds = new HashMap<>();
+            Map<Long, Set<Long>> droppedMenuIds = new HashMap<>();
+
+            try {
+                flushTransaction.executeWithoutResult(status -> write(snapshots, cartIds, lineIds, droppedMenuIds));
+            } catch (RuntimeException e) {
+                log.error("Could not flush {} carts, they stay dirty: {}", snapshots.size(), e.getMessage());
+                snapshots.forEach(this::restore);
+                throw e;
+            }
+
+            //ids are only known once the rows exist
+            for (CartSnapshot snapshot : snapshots) {
+                withStripe(snapshot.userId(), () -> {
+                    MemoryCart cart = carts.get(snapshot.userId());
+                    if (cart == null) {
+                        return;
+                    }
+                    if (cart.cartId == null) {
+                        cart.cartId = cartIds.get(snapshot.userId());
+                    }
+                    Map<Long, Long> ids = lineIds.getOrDefault(cart.cartId, Map.of());
+                    ids.forEach((menuId, id) -> {
+                        Line line = cart.lines.get(menuId);
+                        if (line != null) {
+                            line.id = id;
+                        }
+                    });
+                    //the menu is gone, the line leaves the copy too so its totals match what was written
+                    for (Long menuId : droppedMenuIds.getOrDefault(snapshot.userId(), Set.of())) {
+                        Line line = cart.lines.get(menuId);
+                        if (line != null) {
+                            setQuantity(snapshot.userId(), cart, menuId, line, 0);
+                        }
+                    }
+                });
+            }
+
+            log.info("Flushed {} carts", snapshots.size());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    //copies what changed since the last flush and marks it clean, restore puts it back when the write fails
+    private CartSnapshot snapshot(Long userId) {
+        return withStripe(userId, () -> {
+            MemoryCart cart = carts.get(userId);
+            if (cart == null || !dirtyUsers.remove(userId)) {
+                return null;
+            }
+
+            List<LineSnapshot> lines = new ArrayList<>();
+            cart.lines.forEach((menuId, line) -> {
+                if (line.dirty) {
+                    lines.add(new LineSnapshot(menuId, line.quantity, line.pricePerUnit, line.priceCents));
+                    line.dirty = false;
+                }
+            });
+
+            List<Long> removed = List.copyOf(cart.removedMenuIds);
+            cart.removedMenuIds.clear();
+
+            return new CartSnapshot(userId, cart.cartId, lines, removed, cart.totalCents, cart.itemCount, cart.version);
+        });
+    }
+
+    private void restore(CartSnapshot snapshot) {
+        withStripe(snapshot.userId(), () -> {
+            MemoryCart cart = carts.get(snapshot.userId());
+            if (cart == null) {
+                return;
+            }
+            for (LineSnapshot lineSnapshot : snapshot.lines()) {
+                Line line = cart.lines.get(lineSnapshot.menuId());
+                if (line != null) {
+                    line.dirty = true;
+                }
+            }
+            for (Long menuId : snapshot.removedMenuIds()) {
+                if (!cart.lines.containsKey(menuId)) {
+                    cart.removedMenuIds.add(menuId);
+                }
+            }
+            dirtyUsers.add(snapshot.userId());
+        });
+    }
+
+    //four statements per batch however many carts it holds: create missing carts, delete removed lines, upsert changed lines,
+    //write the cart totals
+    private void write(List<CartSnapshot> snapshots, Map<Long, Long> cartIds, Map<Long, Map<Long, Long>> lineIds,
+                       Map<Long, Set<Long>> droppedMenuIds) {
+
+        List<Long> newCartUsers = snapshots.stream()
+                .filter(snapshot -> snapshot.cartId() == null && !snapshot.lines().isEmpty())
+                .map(CartSnapshot::userId)
+                .toList();
+
+        if (!newCartUsers.isEmpty()) {
+            jdbcTemplate.query(connection -> {
+                var statement = connection.prepareStatement(UPSERT_CARTS_SQL);
+                statement.setArray(1, connection.createArrayOf("bigint", newCartUsers.toArray()));
+                return statement;
+            }, resultSet -> {
+                cartIds.put(resultSet.getLong("user_id"), resultSet.getLong("id"));
+            });
+        }
+
+        List<Long> totalsCartIds = new ArrayList<>();
+        List<Long> totalsCents = new ArrayList<>();
+        List<Integer> totalsItemCounts = new ArrayList<>();
+        List<Long> totalsVersions = new ArrayList<>();
+        List<Long> deleteCartIds = new ArrayList<>();
+        List<Long> deleteMenuIds = new ArrayList<>();
+        List<Long> upsertCartIds = new ArrayList<>();
+        List<Long> upsertMenuIds = new ArrayList<>();
+        List<Integer> upsertQuantities = new ArrayList<>();
+        List<BigDecimal> upsertPrices = new ArrayList<>();
+
+        for (CartSnapshot snapshot : snapshots) {
+            Long cartId = snapshot.cartId() != null ? snapshot.cartId() : cartIds.get(snapshot.userId());
+            if (cartId == null) {
+                continue;
+            }
+            for (Long menuId : snapshot.removedMenuIds()) {
+                deleteCartIds.add(cartId);
+                deleteMenuIds.add(menuId);
+            }
+            for (LineSnapshot line : snapshot.lines()) {
+                upsertCartIds.add(cartId);
+                upsertMenuIds.add(line.menuId());
+                upsertQuantities.add(line.quantity());
+                upsertPrices.add(line.pricePerUnit());
+            }
+        }
+
+        if (!deleteCartIds.isEmpty()) {
+            jdbcTemplate.update(connection -> {
+                var statement = connection.prepareStatement(DELETE_LINES_SQL);
+                statement.setArray(1, connection.createArrayOf("bigint", deleteCartIds.toArray()));
+                statement.setArray(2, connection.createArrayOf("bigint", deleteMenuIds.toArray()));
+                return statement;
+            });
+        }
+
+        if (!upsertCartIds.isEmpty()) {
+            jdbcTemplate.query(connection -> {
+                var statement = connection.prepareStatement(UPSERT_LINES_SQL);
+                statement.setArray(1, connection.createArrayOf("bigint", upsertCartIds.toArray()));
+                statement.setArray(2, connection.createArrayOf("bigint", upsertMenuIds.toArray()));
+                statement.setArray(3, connection.createArrayOf("integer", upsertQuantities.toArray()));
+                statement.setArray(4, connection.createArrayOf("numeric", upsertPrices.toArray()));
+                return statement;
+            }, resultSet -> {
+                lineIds.computeIfAbsent(resultSet.getLong("cart_id"), id -> new HashMap<>())
+                        .put(resultSet.getLong("menu_id"), resultSet.getLong("id"));
+            });
+        }
+
+        //lines the upsert dropped are taken out of the totals written with them
+        for (CartSnapshot snapshot : snapshots) {
+            Long cartId = snapshot.cartId() != null ? snapshot.cartId() : cartIds.get(snapshot.userId());
+            if (cartId == null) {
+                continue;
+            }
+            Map<Long, Long> written = lineIds.getOrDefault(cartId, Map.of());
+            long totalCents = snapshot.totalCents();
+            int itemCount = snapshot.itemCount();
+            for (LineSnapshot line : snapshot.lines()) {
+                if (!written.containsKey(line.menuId())) {
+                    totalCents -= line.priceCents() * line.quantity();
+                    itemCount -= line.quantity();
+                    droppedMenuIds.computeIfAbsent(snapshot.userId(), id -> new HashSet<>()).add(line.menuId());
+                }
+            }
+            totalsCartIds.add(cartId);
+            totalsCents.add(totalCents);
+            totalsItemCounts.add(itemCount);
+            totalsVersions.add(snapshot.version());
+        }
+
+        if (!totalsCartIds.isEmpty()) {
+            jdbcTemplate.update(connection -> {
+                var statement = connection.prepareStatement(UPDATE_TOTALS_SQL);
+                statement.setArray(1, connection.createArrayOf("bigint", totalsCartIds.toArray()));
+                statement.setArray(2, connection.createArrayOf("bigint", totalsCents.toArray()));
+                statement.setArray(3, connection.createArrayOf("integer", totalsItemCounts.toArray()));
+                statement.setArray(4, connection.createArrayOf("bigint", totalsVersions.toArray()));
+                return statement;
+            });
+        }
+    }
+
+    //clean carts nobody touched for a while are dropped, the next tap loads them again
+    private void evictIdleCarts() {
+
+        long cutoff = System.currentTimeMillis() - idleMillis;
+        int evicted = 0;
+
+        for (Long userId : carts.keySet()) {
+            boolean removed = withStripe(userId, () -> {
+                MemoryCart cart = carts.get(userId);
+                if (cart != null && cart.lastAccessMillis < cutoff && !dirtyUsers.contains(userId)) {
+                    carts.remove(userId);
+                    return true;
+                }
+                return false;
+            });
+            if (removed) {
+                evicted++;
+            }
+        }
+
+        if (evicted > 0) {
+            log.info("Evicted {} idle carts", evicted);
+        }
+    }
+
+    //every change goes through here, so the totals move by exactly what the line changed; 0 removes the line
+    private void setQuantity(Long userId, MemoryCart cart, Long menuId, Line line, int quantity) {
+
+        int change = Math.max(quantity, 0) - (cart.lines.containsKey(menuId) ? line.quantity : 0);
+        cart.totalCents += line.priceCents * change;
+        cart.itemCount += change;
+        cart.version++;
+
+        if (quantity <= 0) {
+            cart.lines.remove(menuId);
+            cart.removedMenuIds.add(menuId);
+        } else {
+            line.quantity = quantity;
+            line.dirty = true;
+            cart.lines.putIfAbsent(menuId, line);
+            cart.removedMenuIds.remove(menuId);
+        }
+        dirtyUsers.add(userId);
+    }
+
+    private <T> T withCart(Long userId, Function<MemoryCart, T> action) {
+        return withStripe(userId, () -> {
+            MemoryCart cart = carts.get(userId);
+            if (cart == null) {
+                //loaded under the stripe lock so two first taps of the same user never load twice
+                cart = load(userId);
+                carts.put(userId, cart);
+            }
+            cart.lastAccessMillis = System.currentTimeMillis();
+            return action.apply(cart);
+        });
+    }
+
+    private <T> T withStripe(Long userId, Supplier<T> action) {
+        ReentrantLock lock = stripes[Math.floorMod(userId.hashCode(), STRIPES)];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void withStripe(Long userId, Runnable action) {
+        withStripe(userId, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private MemoryCart load(Long userId) {
+        return readTransaction.execute(status -> {
+            MemoryCart cart = new MemoryCart();
+            cartRepository.findByUser_Id(userId).ifPresent(stored -> {
+                cart.cartId = stored.getId();
+                cart.version = stored.getVersion();
+                for (CartItem item : stored.getCartItems()) {
+                    Line line = new Line(item.getId(), toMenuDto(item.getMenu()), item.getPricePerUnit(), item.getQuantity());
+                    cart.lines.put(item.getMenu().getId(), line);
+                    cart.totalCents += line.priceCents * line.quantity;
+                    cart.itemCount += line.quantity;
+                }
+            });
+            return cart;
+        });
+    }
+
+    //only what the cart page shows, reviews are never part of a cart response
+    private static MenuDto toMenuDto(Menu menu) {
+        MenuDto menuDto = new MenuDto();
+        menuDto.setId(menu.getId());
+        menuDto.setName(menu.getName());
+        menuDto.setDescription(menu.getDescription());
+        menuDto.setPrice(menu.getPrice());
+        menuDto.setCategoryId(menu.getCategory() != null ? menu.getCategory().getId() : null);
+        menuDto.setImageUrl(menu.getImageUrl());
+        menuDto.setImageStatus(menu.getImageStatus());
+        if (menu.isImageRenditions()) {
+            menuDto.setSrcset(ImageRendition.srcset(menu.getImageUrl()));
+        }
+        return menuDto;
+    }
+}
@@ -0,0 +1,49 @@
+package com.abiodunelijah.catalog.events;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import org.springframework.core.Ordered;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class CatalogChangedEvent {
+
+    //listener order: the indexes are updated before the menu cache drops its listings, otherwise a search in between
+    //would cache a result from the stale index under the new generation
+    public static final int INDEX_ORDER = Ordered.HIGHEST_PRECEDENCE;
+    public static final int CACHE_ORDER = INDEX_ORDER + 1;
+
+    //the version is bumped before the snapshots are rebuilt, so the rebuilt ones are stamped with the new version
+    public static final int VERSION_ORDER = Ordered.LOWEST_PRECEDENCE - 1;
+    public static final int SNAPSHOT_ORDER = Ordered.LOWEST_PRECEDENCE;
+
+    //the menu that changed, null when the change touched many (or unknown) menus
+    private final Long menuId;
+
+    //categories whose menu listings are affected by the change
+    private final Set<Long> categoryIds;
+
+    //false when only category metadata outside the menu listings changed (not the name) and they are still valid
+    private final boolean menusChanged;
+
+    public static CatalogChangedEvent menuChanged(Long menuId, Long... categoryIds) {
+        return new CatalogChangedEvent(menuId, toSet(categoryIds), true);
+    }
+
+    public static CatalogChangedEvent categoryChanged(Long categoryId, boolean menusChanged) {
+        return new CatalogChangedEvent(null, toSet(categoryId), menusChanged);
+    }
+
+    private static Set<Long> toSet(Long... ids) {
+        return Arrays.stream(ids)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+}
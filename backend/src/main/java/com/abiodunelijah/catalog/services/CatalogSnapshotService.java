@@ -0,0 +1,183 @@
+package com.abiodunelijah.catalog.services;
+
+import com.abiodunelijah.catalog.events.CatalogChangedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+//Holds the most requested catalog responses as ready-to-write JSON bytes, plain and gzipped.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogSnapshotService {
+
+    public static final String ALL_MENUS = "menus:all";
+    public static final String ALL_CATEGORIES = "categories:all";
+    public static final String CATEGORY_SUMMARY = "categories:summary";
+
+    //rebuilt in the background after every change, anything else is rebuilt on demand
+    private static final Set<String> EAGER_KEYS = Set.of(ALL_MENUS, ALL_CATEGORIES, CATEGORY_SUMMARY);
+
+    private static final String GZIP = "gzip";
+
+    private final CatalogVersionService catalogVersionService;
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, SerializedSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    //on-demand keys come from request input (any category id), past this many they are served without being kept
+    @Value("${catalog.snapshot.max-on-demand:64}")
+    private int maxOnDemand;
+
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(
+            Thread.ofVirtual().name("catalog-snapshot-rebuild").factory());
+
+    public static String menusOfCategory(Long categoryId) {
+        return "menus:category:" + categoryId;
+    }
+
+    public ResponseEntity<byte[]> serve(String key, WebRequest webRequest, Supplier<?> body) {
+
+        boolean gzip = acceptsGzip(webRequest.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        String variant = gzip ? GZIP : null;
+
+        //answer revalidations before touching the snapshot at all
+        String currentEtag = catalogVersionService.etag(catalogVersionService.currentVersion(), variant);
+        if (webRequest.checkNotModified(currentEtag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(currentEtag).build();
+        }
+
+        SerializedSnapshot snapshot = getOrBuild(key, body);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(catalogVersionService.etag(snapshot.version(), variant))
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, GZIP).body(snapshot.gzipped());
+        }
+        return response.body(snapshot.json());
+    }
+
+    //eagerly re-serializes the full listings, per category listings are dropped and rebuilt on demand
+    @Order(CatalogChangedEvent.SNAPSHOT_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+
+        snapshots.keySet().removeIf(key -> !EAGER_KEYS.contains(key));
+
+        rebuildExecutor.execute(() -> snapshots.forEach((key, snapshot) -> {
+            try {
+                snapshots.put(key, build(snapshot.body()));
+            } catch (RuntimeException e) {
+                log.error("Failed to rebuild catalog snapshot {}: {}", key, e.getMessage());
+                snapshots.remove(key);
+            }
+        }));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    private SerializedSnapshot getOrBuild(String key, Supplier<?> body) {
+
+        SerializedSnapshot snapshot = snapshots.get(key);
+
+        if (snapshot == null || snapshot.version() != catalogVersionService.currentVersion()) {
+            snapshot = build(body);
+            store(key, snapshot);
+        }
+
+        return snapshot;
+    }
+
+    private void store(String key, SerializedSnapshot snapshot) {
+
+        if (EAGER_KEYS.contains(key)) {
+            snapshots.put(key, snapshot);
+            return;
+        }
+
+        synchronized (snapshots) {
+            long onDemand = snapshots.keySet().stream().filter(stored -> !EAGER_KEYS.contains(stored)).count();
+            if (snapshots.containsKey(key) || onDemand < maxOnDemand) {
+                snapshots.put(key, snapshot);
+            }
+        }
+    }
+
+    private SerializedSnapshot build(Supplier<?> body) {
+
+        //read before building so a concurrent change makes the snapshot look stale rather than fresh
+        long version = catalogVersionService.currentVersion();
+
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body.get());
+
+            ByteArrayOutputStream gzipped = new ByteArrayOutputStream(json.length / 4 + 64);
+            try (GZIPOutputStream gzipStream = new GZIPOutputStream(gzipped)) {
+                gzipStream.write(json);
+            }
+
+            return new SerializedSnapshot(version, json, gzipped.toByteArray(), body);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not serialize catalog snapshot: " + e.getMessage(), e);
+        }
+    }
+
+    private boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase(GZIP)) {
+                return qValue(parts) > 0;
+            }
+        }
+        return false;
+    }
+
+    //q=0, 0.0, 0.00 ... all refuse the coding; a malformed q is treated as a refusal too
+    private static double qValue(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String[] parameter = parts[i].split("=", 2);
+            if (parameter.length == 2 && parameter[0].trim().equalsIgnoreCase("q")) {
+                try {
+                    return Double.parseDouble(parameter[1].trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private record SerializedSnapshot(long version, byte[] json, byte[] gzipped, Supplier<?> body) {
+    }
+}
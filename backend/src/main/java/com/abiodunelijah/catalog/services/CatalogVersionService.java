@@ -0,0 +1,59 @@
+package com.abiodunelijah.catalog.services;
+
+import com.abiodunelijah.catalog.events.CatalogChangedEvent;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+//Catalog version counter behind the ETags of the public menu, category and review reads.
+@Service
+public class CatalogVersionService {
+
+    //keeps ETags from one run from matching another run that reached the same counter
+    private final String bootId = Long.toString(System.currentTimeMillis(), 36);
+
+    private final AtomicLong version = new AtomicLong();
+
+    //runs after the caches and indexes have been invalidated, so a new ETag never goes out with a stale body
+    @Order(CatalogChangedEvent.VERSION_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        version.incrementAndGet();
+    }
+
+    public long currentVersion() {
+        return version.get();
+    }
+
+    public String etag() {
+        return etag(version.get(), null);
+    }
+
+    //each content coding of the same version is a different representation and gets its own ETag
+    public String etag(long catalogVersion, String variant) {
+        String suffix = variant != null ? "-" + variant : "";
+        return "\"" + bootId + "-" + catalogVersion + suffix + "\"";
+    }
+
+    //Answers 304 when the client already has the current version, the body is only built otherwise.
+    public <T> ResponseEntity<T> conditionalResponse(WebRequest webRequest, Supplier<T> body) {
+
+        String etag = etag();
+
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(body.get());
+    }
+}
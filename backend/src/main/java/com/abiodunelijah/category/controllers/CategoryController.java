@@ -1,6 +1,8 @@
 package com.abiodunelijah.category.controllers;
 
 
+import com.abiodunelijah.catalog.services.CatalogSnapshotService;
+import com.abiodunelijah.catalog.services.CatalogVersionService;
 import com.abiodunelijah.category.dtos.CategoryDto;
 import com.abiodunelijah.category.services.CategoryService;
 import com.abiodunelijah.response.Response;
@@ -9,8 +11,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
-
-import java.util.List;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/categories")
@@ -18,6 +19,8 @@ import java.util.List;
 public class CategoryController {
 
     private final CategoryService categoryService;
+    private final CatalogVersionService catalogVersionService;
+    private final CatalogSnapshotService catalogSnapshotService;
 
     @PostMapping
     @PreAuthorize("hasAuthority('ADMIN')")
@@ -32,13 +35,19 @@ public class CategoryController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Response<CategoryDto>> getCategoryById(@PathVariable Long id){
-        return ResponseEntity.ok(categoryService.getCategoryById(id));
+    public ResponseEntity<Response<CategoryDto>> getCategoryById(@PathVariable Long id, WebRequest webRequest){
+        return catalogVersionService.conditionalResponse(webRequest, () -> categoryService.getCategoryById(id));
     }
 
     @GetMapping
-    public ResponseEntity<Response<List<CategoryDto>>> getAllCategories(){
-        return ResponseEntity.ok(categoryService.getAllCategories());
+    public ResponseEntity<byte[]> getAllCategories(WebRequest webRequest){
+        return catalogSnapshotService.serve(CatalogSnapshotService.ALL_CATEGORIES, webRequest, categoryService::getAllCategories);
+    }
+
+    //served from a serialized snapshot that is rebuilt whenever a category or menu changes
+    @GetMapping("/summary")
+    public ResponseEntity<byte[]> getCategorySummaries(WebRequest webRequest){
+        return catalogSnapshotService.serve(CatalogSnapshotService.CATEGORY_SUMMARY, webRequest, categoryService::getCategorySummaries);
     }
 
     @DeleteMapping("/{id}")
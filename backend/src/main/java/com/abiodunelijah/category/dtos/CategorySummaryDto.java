@@ -0,0 +1,40 @@
+package com.abiodunelijah.category.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CategorySummaryDto {
+
+    private Long id;
+
+    private String name;
+
+    private String description;
+
+    private long menuCount;
+
+    //null when the category has no menus
+    private BigDecimal minPrice;
+
+    private BigDecimal maxPrice;
+
+    //image of the best rated menu in the category
+    private String topImageUrl;
+
+    public CategorySummaryDto(Long id, String name, String description, Long menuCount,
+                              BigDecimal minPrice, BigDecimal maxPrice, String topImageUrl) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.menuCount = menuCount != null ? menuCount : 0L;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.topImageUrl = topImageUrl;
+    }
+}
@@ -1,7 +1,20 @@
 package com.abiodunelijah.category.repository;
 
+import com.abiodunelijah.category.dtos.CategorySummaryDto;
 import com.abiodunelijah.category.entities.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
 
 public interface CategoryRepository extends JpaRepository<Category, Long> {
+
+    //one grouped query for the whole sidebar, no menu rows are materialized
+    @Query("SELECT new com.abiodunelijah.category.dtos.CategorySummaryDto(c.id, c.name, c.description, COUNT(m.id), MIN(m.price), MAX(m.price), " +
+            "(SELECT tm.imageUrl FROM Menu tm WHERE tm.category = c AND tm.imageUrl IS NOT NULL " +
+            "ORDER BY tm.rating.average DESC, tm.rating.count DESC, tm.id DESC LIMIT 1)) " +
+            "FROM Category c LEFT JOIN c.menus m " +
+            "GROUP BY c.id, c.name, c.description " +
+            "ORDER BY c.name")
+    List<CategorySummaryDto> findAllSummaries();
 }
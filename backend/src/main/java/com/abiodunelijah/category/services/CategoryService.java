@@ -1,6 +1,7 @@
 package com.abiodunelijah.category.services;
 
 import com.abiodunelijah.category.dtos.CategoryDto;
+import com.abiodunelijah.category.dtos.CategorySummaryDto;
 import com.abiodunelijah.response.Response;
 
 import java.util.List;
@@ -11,5 +12,6 @@ public interface CategoryService {
     Response<CategoryDto> updateCategory(CategoryDto categoryDTO);
     Response<CategoryDto> getCategoryById(Long id);
     Response<List<CategoryDto>> getAllCategories();
+    Response<List<CategorySummaryDto>> getCategorySummaries();
     Response<?> deleteCategory(Long id);
 }
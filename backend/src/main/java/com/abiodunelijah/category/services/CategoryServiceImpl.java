@@ -1,7 +1,9 @@
 package com.abiodunelijah.category.services;
 
 
+import com.abiodunelijah.catalog.events.CatalogChangedEvent;
 import com.abiodunelijah.category.dtos.CategoryDto;
+import com.abiodunelijah.category.dtos.CategorySummaryDto;
 import com.abiodunelijah.category.entities.Category;
 import com.abiodunelijah.category.repository.CategoryRepository;
 import com.abiodunelijah.exceptions.NotFoundException;
@@ -9,6 +11,7 @@ import com.abiodunelijah.response.Response;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
@@ -21,6 +24,7 @@ public class CategoryServiceImpl implements CategoryService {
 
     private final CategoryRepository categoryRepository;
     private final ModelMapper modelMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
 
 
@@ -30,7 +34,9 @@ public class CategoryServiceImpl implements CategoryService {
         log.info("Inside the addCategory()");
 
         Category category = modelMapper.map(categoryDTO, Category.class);
-        categoryRepository.save(category);
+        Category savedCategory = categoryRepository.save(category);
+
+        eventPublisher.publishEvent(CatalogChangedEvent.categoryChanged(savedCategory.getId(), false));
 
         return Response.<CategoryDto>builder()
                 .statusCode(HttpStatus.OK.value())
@@ -46,7 +52,11 @@ public class CategoryServiceImpl implements CategoryService {
         Category category = categoryRepository.findById(categoryDTO.getId())
                 .orElseThrow(() -> new NotFoundException("Category not found."));
 
+        //menu listings carry the category name, a rename makes them stale
+        boolean renamed = false;
+
         if (categoryDTO.getName() != null && !categoryDTO.getName().isEmpty()){
+            renamed = !categoryDTO.getName().equals(category.getName());
             category.setName(categoryDTO.getName());
         }
 
@@ -56,6 +66,8 @@ public class CategoryServiceImpl implements CategoryService {
 
         categoryRepository.save(category);
 
+        eventPublisher.publishEvent(CatalogChangedEvent.categoryChanged(category.getId(), renamed));
+
         return Response.<CategoryDto>builder()
                 .statusCode(HttpStatus.OK.value())
                 .message("Category updated successfully.")
@@ -96,6 +108,18 @@ public class CategoryServiceImpl implements CategoryService {
                 .build();
     }
 
+    @Override
+    public Response<List<CategorySummaryDto>> getCategorySummaries() {
+
+        log.info("Inside getCategorySummaries()");
+
+        return Response.<List<CategorySummaryDto>>builder()
+                .statusCode(HttpStatus.OK.value())
+                .message("Category summaries retrieved successfully.")
+                .data(categoryRepository.findAllSummaries())
+                .build();
+    }
+
     @Override
     public Response<?> deleteCategory(Long id) {
 
@@ -107,6 +131,9 @@ public class CategoryServiceImpl implements CategoryService {
 
         categoryRepository.deleteById(id);
 
+        //menus of the category are removed with it
+        eventPublisher.publishEvent(CatalogChangedEvent.categoryChanged(id, true));
+
         return Response.builder()
                 .statusCode(HttpStatus.OK.value())
                 .message("Category deleted successfully.")
@@ -0,0 +1,71 @@
+package com.abiodunelijah.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+//Tables that moved from identity columns to pooled sequences (allocationSize 50, so Hibernate can batch inserts).
+//Runs once Hibernate has created the sequences and before anything inserts: the id column defaults to the
+//sequence so native inserts draw from it too, and a sequence behind the existing ids is moved past them.
+//Ids stay unique but no longer follow creation order (each session hands out its own block), so anything
+//"newest first" or "placed after" orders on created_at/order_date and uses the id only to break ties.
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+@Slf4j
+public class IdSequenceAlignment {
+
+    private static final List<String> TABLES =
+            List.of("orders", "order_items", "cart_items", "payments", "notifications", "reviews");
+
+    private static final String ID_COLUMN_SQL =
+            "SELECT is_identity, column_default FROM information_schema.columns " +
+            "WHERE table_schema = current_schema() AND table_name = ? AND column_name = 'id'";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${db.id-sequences.align-on-startup:true}")
+    private boolean alignOnStartup;
+
+    @PostConstruct
+    public void align() {
+
+        if (!alignOnStartup) {
+            return;
+        }
+
+        for (String table : TABLES) {
+            String sequence = table + "_seq";
+
+            List<Map<String, Object>> idColumn = jdbcTemplate.queryForList(ID_COLUMN_SQL, table);
+            if (idColumn.isEmpty()) {
+                continue;
+            }
+
+            if ("YES".equals(idColumn.getFirst().get("is_identity"))) {
+                jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id DROP IDENTITY IF EXISTS");
+                log.info("Dropped the identity from {}.id", table);
+            }
+
+            Object columnDefault = idColumn.getFirst().get("column_default");
+            if (columnDefault == null || !columnDefault.toString().contains(sequence)) {
+                jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id SET DEFAULT nextval('" + sequence + "')");
+            }
+
+            //pooled ids run from the fetched value - 49 up to it, so a sequence at max(id) hands out only new ids
+            List<Long> moved = jdbcTemplate.queryForList(
+                    "SELECT setval('" + sequence + "', t.max_id) FROM (SELECT MAX(id) AS max_id FROM " + table + ") t " +
+                    "WHERE t.max_id > (SELECT last_value FROM " + sequence + ")", Long.class);
+            if (!moved.isEmpty()) {
+                log.info("Moved {} to {}", sequence, moved.getFirst());
+            }
+        }
+    }
+}
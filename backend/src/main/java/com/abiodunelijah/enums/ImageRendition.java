@@ -0,0 +1,39 @@
+package com.abiodunelijah.enums;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+@Getter
+@RequiredArgsConstructor
+public enum ImageRendition {
+    THUMBNAIL(160),
+    CARD(480),
+    DETAIL(1080);
+
+    private final int width;
+
+    //renditions sit next to the original under a deterministic suffix, so keys and urls never need a lookup
+    public String suffix() {
+        return "_" + width + "w.jpg";
+    }
+
+    public String keyOf(String originalKey) {
+        return originalKey + suffix();
+    }
+
+    public String urlOf(String originalUrl) {
+        return originalUrl + suffix();
+    }
+
+    public static String srcset(String originalUrl) {
+        if (originalUrl == null || originalUrl.isEmpty()) {
+            return null;
+        }
+        return Arrays.stream(values())
+                .map(rendition -> rendition.urlOf(originalUrl) + " " + rendition.getWidth() + "w")
+                .collect(Collectors.joining(", "));
+    }
+}
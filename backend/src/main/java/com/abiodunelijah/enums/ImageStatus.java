@@ -0,0 +1,7 @@
+package com.abiodunelijah.enums;
+
+public enum ImageStatus {
+    PENDING,
+    READY,
+    FAILED
+}
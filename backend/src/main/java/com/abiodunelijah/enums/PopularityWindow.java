@@ -0,0 +1,22 @@
+package com.abiodunelijah.enums;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Duration;
+
+@Getter
+@RequiredArgsConstructor
+public enum PopularityWindow {
+    HOUR(Duration.ofMinutes(1), 60),
+    DAY(Duration.ofMinutes(30), 48),
+    WEEK(Duration.ofHours(4), 42);
+
+    //sales are counted per bucket, the window slides one bucket at a time
+    private final Duration bucketSize;
+    private final int bucketCount;
+
+    public Duration length() {
+        return bucketSize.multipliedBy(bucketCount);
+    }
+}
@@ -40,6 +40,16 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(ConflictException.class)
+    public ResponseEntity<Response<?>> handleConflictException(ConflictException ex){
+
+        Response<?> response = Response.builder()
+                .statusCode(HttpStatus.CONFLICT.value())
+                .message(ex.getMessage())
+                .build();
+        return new ResponseEntity<>(response, HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler(PaymentProcessingException.class)
     public ResponseEntity<Response<?>> handlePaymentProcessingException(PaymentProcessingException ex){
 
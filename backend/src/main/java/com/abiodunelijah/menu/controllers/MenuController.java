@@ -1,18 +1,32 @@
 package com.abiodunelijah.menu.controllers;
 
 
+import com.abiodunelijah.catalog.services.CatalogSnapshotService;
+import com.abiodunelijah.catalog.services.CatalogVersionService;
+import com.abiodunelijah.menu.dtos.MenuCacheStatsDto;
+import com.abiodunelijah.menu.dtos.MenuDetailDto;
+import com.abiodunelijah.exceptions.BadRequestException;
 import com.abiodunelijah.menu.dtos.MenuDto;
+import com.abiodunelijah.menu.dtos.MenuImportResultDto;
+import com.abiodunelijah.menu.dtos.MenuRecommendationDto;
+import com.abiodunelijah.menu.dtos.MenuSuggestionDto;
+import com.abiodunelijah.menu.dtos.PopularMenuDto;
+import com.abiodunelijah.menu.services.MenuImportExportService;
 import com.abiodunelijah.menu.services.MenuService;
 import com.abiodunelijah.response.Response;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequiredArgsConstructor
@@ -20,6 +34,9 @@ import java.util.List;
 public class MenuController {
 
     private final MenuService menuService;
+    private final CatalogVersionService catalogVersionService;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final MenuImportExportService menuImportExportService;
 
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @PreAuthorize("hasAuthority('ADMIN')")
@@ -44,8 +61,8 @@ public class MenuController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Response<MenuDto>> getMenu(@PathVariable Long id){
-        return ResponseEntity.ok(menuService.getMenu(id));
+    public ResponseEntity<Response<MenuDetailDto>> getMenu(@PathVariable Long id, WebRequest webRequest){
+        return catalogVersionService.conditionalResponse(webRequest, () -> menuService.getMenu(id));
     }
 
     @DeleteMapping("/{id}")
@@ -55,10 +72,71 @@ public class MenuController {
     }
 
     @GetMapping
-    public ResponseEntity<Response<List<MenuDto>>> getMenus(
+    public ResponseEntity<?> getMenus(
             @RequestParam(required = false) Long categoryId,
-            @RequestParam(required = false) String search ){
-        return ResponseEntity.ok(menuService.getMenus(categoryId, search));
+            @RequestParam(required = false) String search,
+            WebRequest webRequest){
+
+        //plain listings are the bulk of the traffic, serve them pre-serialized
+        if (search == null || search.isBlank()) {
+            String key = categoryId == null ? CatalogSnapshotService.ALL_MENUS : CatalogSnapshotService.menusOfCategory(categoryId);
+            return catalogSnapshotService.serve(key, webRequest, () -> menuService.getMenus(categoryId, null));
+        }
+
+        return catalogVersionService.conditionalResponse(webRequest, () -> menuService.getMenus(categoryId, search));
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<Response<List<MenuSuggestionDto>>> suggestMenus(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit,
+            WebRequest webRequest){
+        return catalogVersionService.conditionalResponse(webRequest, () -> menuService.suggestMenus(q, limit));
+    }
+
+    @GetMapping("/popular")
+    public ResponseEntity<Response<List<PopularMenuDto>>> getPopularMenus(
+            @RequestParam(defaultValue = "day") String window,
+            @RequestParam(defaultValue = "10") int limit){
+        return ResponseEntity.ok(menuService.getPopularMenus(window, limit));
+    }
+
+    @GetMapping("/recommendations")
+    public ResponseEntity<Response<List<MenuRecommendationDto>>> getRecommendations(
+            @RequestParam Set<Long> menuIds,
+            @RequestParam(defaultValue = "10") int limit){
+        return ResponseEntity.ok(menuService.getRecommendations(menuIds, limit));
+    }
+
+    @GetMapping("/cache-stats")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<Response<MenuCacheStatsDto>> getCacheStats(){
+        return ResponseEntity.ok(menuService.getCacheStats());
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<Response<MenuImportResultDto>> importMenus(
+            @RequestPart("file") MultipartFile file,
+            @RequestPart(value = "images", required = false) MultipartFile images){
+        return ResponseEntity.ok(menuImportExportService.importMenus(file, images));
+    }
+
+    @GetMapping("/export")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportMenus(@RequestParam(defaultValue = "csv") String format){
+
+        boolean ndjson = "ndjson".equalsIgnoreCase(format);
+        if (!ndjson && !"csv".equalsIgnoreCase(format)) {
+            throw new BadRequestException("Unsupported export format: " + format);
+        }
+
+        StreamingResponseBody body = outputStream -> menuImportExportService.exportMenus(format, outputStream);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(ndjson ? "application/x-ndjson" : "text/csv"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=menus." + (ndjson ? "ndjson" : "csv"))
+                .body(body);
     }
 
 
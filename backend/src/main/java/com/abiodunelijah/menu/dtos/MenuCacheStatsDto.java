@@ -0,0 +1,20 @@
+package com.abiodunelijah.menu.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MenuCacheStatsDto {
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+    private long snapshotLoads;
+    private int size;
+    private boolean snapshotLoaded;
+    private double hitRate;
+}
@@ -0,0 +1,34 @@
+package com.abiodunelijah.menu.dtos;
+
+import com.abiodunelijah.enums.ImageStatus;
+import com.abiodunelijah.review.dtos.ReviewDto;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+//Read model for the menu detail page, the listing fields plus the first page of reviews.
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class MenuDetailDto extends MenuSummaryDto {
+
+    //first page of reviews, newest first
+    private List<ReviewDto> reviews;
+
+    //cursor for GET /api/reviews/menu-item/{menuId}, null when every review is already included
+    private Long nextReviewCursor;
+
+    public MenuDetailDto(Long id, String name, String description, BigDecimal price, String imageUrl, ImageStatus imageStatus, boolean imageRenditions,
+                         Long categoryId, String categoryName, long ratingCount, long ratingSum, double ratingAverage,
+                         long oneStar, long twoStar, long threeStar, long fourStar, long fiveStar) {
+        super(id, name, description, price, imageUrl, imageStatus, imageRenditions, categoryId, categoryName, ratingCount, ratingSum, ratingAverage,
+                oneStar, twoStar, threeStar, fourStar, fiveStar);
+    }
+}
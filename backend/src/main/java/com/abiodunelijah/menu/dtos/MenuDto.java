@@ -1,7 +1,7 @@
 package com.abiodunelijah.menu.dtos;
 
-import com.abiodunelijah.order.entities.OrderItem;
-import com.abiodunelijah.review.entities.Review;
+import com.abiodunelijah.enums.ImageStatus;
+import com.abiodunelijah.review.dtos.ReviewDto;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.validation.constraints.NotBlank;
@@ -36,8 +36,11 @@ public class MenuDto {
 
     private String imageUrl;
 
-    private List<OrderItem> orderItems;
+    private ImageStatus imageStatus;
 
-    private List<Review> reviews;
+    //responsive image candidates, null until the renditions exist
+    private String srcset;
+
+    private List<ReviewDto> reviews;
 
 }
@@ -0,0 +1,17 @@
+package com.abiodunelijah.menu.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MenuImportErrorDto {
+
+    //1-based data row, the CSV header is not counted
+    private long row;
+    private String message;
+}
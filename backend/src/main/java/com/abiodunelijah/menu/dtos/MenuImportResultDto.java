@@ -0,0 +1,23 @@
+package com.abiodunelijah.menu.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MenuImportResultDto {
+
+    private long totalRows;
+    private long importedRows;
+    private long failedRows;
+
+    //images uploaded for rows that then failed to insert; nothing references them, the image sweeper removes them
+    private long unreferencedImages;
+
+    //only the first errors are reported, failedRows has the full count
+    private List<MenuImportErrorDto> errors;
+}
@@ -0,0 +1,24 @@
+package com.abiodunelijah.menu.dtos;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class MenuRatingDto {
+
+    private long count;
+    private long sum;
+    private double average;
+
+    //number of reviews per star, index 0 is one star
+    private List<Long> histogram;
+}
@@ -0,0 +1,20 @@
+package com.abiodunelijah.menu.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MenuRecommendationDto {
+
+    private MenuSummaryDto menu;
+
+    private double score;
+
+    //orders in which this menu was bought together with the requested ones
+    private long coOrders;
+}
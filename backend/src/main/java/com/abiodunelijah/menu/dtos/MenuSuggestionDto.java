@@ -0,0 +1,19 @@
+package com.abiodunelijah.menu.dtos;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Builder
+public class MenuSuggestionDto {
+
+    private Long id;
+    private String name;
+
+    //0 for an exact or prefix match, otherwise the number of typos corrected
+    private int distance;
+}
@@ -0,0 +1,48 @@
+package com.abiodunelijah.menu.dtos;
+
+import com.abiodunelijah.enums.ImageRendition;
+import com.abiodunelijah.enums.ImageStatus;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+//Read model for the menu listing, filled by a single constructor query in MenuRepository.
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class MenuSummaryDto {
+
+    private Long id;
+    private String name;
+    private String description;
+    private BigDecimal price;
+    private String imageUrl;
+    //PENDING while the image is still being uploaded
+    private ImageStatus imageStatus;
+    //responsive image candidates, null until the renditions exist
+    private String srcset;
+    private Long categoryId;
+    private String categoryName;
+    private MenuRatingDto rating;
+
+    public MenuSummaryDto(Long id, String name, String description, BigDecimal price, String imageUrl, ImageStatus imageStatus, boolean imageRenditions,
+                          Long categoryId, String categoryName, long ratingCount, long ratingSum, double ratingAverage,
+                          long oneStar, long twoStar, long threeStar, long fourStar, long fiveStar) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.price = price;
+        this.imageUrl = imageUrl;
+        this.imageStatus = imageStatus;
+        this.srcset = imageRenditions ? ImageRendition.srcset(imageUrl) : null;
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.rating = new MenuRatingDto(ratingCount, ratingSum, ratingAverage,
+                List.of(oneStar, twoStar, threeStar, fourStar, fiveStar));
+    }
+}
@@ -0,0 +1,18 @@
+package com.abiodunelijah.menu.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PopularMenuDto {
+
+    private MenuSummaryDto menu;
+
+    //units sold inside the requested window
+    private long quantitySold;
+}
@@ -1,6 +1,7 @@
 package com.abiodunelijah.menu.entities;
 
 import com.abiodunelijah.category.entities.Category;
+import com.abiodunelijah.enums.ImageStatus;
 import com.abiodunelijah.order.entities.OrderItem;
 import com.abiodunelijah.review.entities.Review;
 import jakarta.persistence.*;
@@ -8,6 +9,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -32,6 +34,19 @@ public class Menu {
 
     private String imageUrl;
 
+    //null for menus created before uploads went asynchronous
+    @Enumerated(EnumType.STRING)
+    private ImageStatus imageStatus;
+
+    //true once the ImageRendition sizes of imageUrl are stored
+    @ColumnDefault("false")
+    @Column(nullable = false)
+    private boolean imageRenditions;
+
+    @Embedded
+    @Builder.Default
+    private MenuRating rating = new MenuRating();
+
     @ManyToOne
     @JoinColumn(name = "category_id")
     private Category category;
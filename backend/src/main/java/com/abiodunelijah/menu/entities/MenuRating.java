@@ -0,0 +1,53 @@
+package com.abiodunelijah.menu.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+
+//Running rating totals for a menu, maintained by ReviewServiceImpl when a review is created.
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MenuRating {
+
+    @ColumnDefault("0")
+    @Column(name = "rating_count", nullable = false)
+    private long count;
+
+    @ColumnDefault("0")
+    @Column(name = "rating_sum", nullable = false)
+    private long sum;
+
+    @ColumnDefault("0")
+    @Column(name = "rating_average", nullable = false)
+    private double average;
+
+    //star histogram, reviews are rated 1-10 so each star covers two points
+    @ColumnDefault("0")
+    @Column(name = "rating_one_star", nullable = false)
+    private long oneStar;
+
+    @ColumnDefault("0")
+    @Column(name = "rating_two_star", nullable = false)
+    private long twoStar;
+
+    @ColumnDefault("0")
+    @Column(name = "rating_three_star", nullable = false)
+    private long threeStar;
+
+    @ColumnDefault("0")
+    @Column(name = "rating_four_star", nullable = false)
+    private long fourStar;
+
+    @ColumnDefault("0")
+    @Column(name = "rating_five_star", nullable = false)
+    private long fiveStar;
+
+    public static int toStars(int rating) {
+        return Math.min(5, Math.max(1, (rating + 1) / 2));
+    }
+}
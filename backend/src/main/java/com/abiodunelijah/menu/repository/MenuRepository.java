@@ -1,8 +1,71 @@
 package com.abiodunelijah.menu.repository;
 
+import com.abiodunelijah.enums.ImageStatus;
+import com.abiodunelijah.menu.dtos.MenuDetailDto;
+import com.abiodunelijah.menu.dtos.MenuSummaryDto;
 import com.abiodunelijah.menu.entities.Menu;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
 
 public interface MenuRepository extends JpaRepository<Menu, Long>, JpaSpecificationExecutor<Menu> {
+
+    @Query("SELECT new com.abiodunelijah.menu.dtos.MenuSummaryDto(m.id, m.name, m.description, m.price, m.imageUrl, m.imageStatus, m.imageRenditions, c.id, c.name, " +
+            "m.rating.count, m.rating.sum, m.rating.average, " +
+            "m.rating.oneStar, m.rating.twoStar, m.rating.threeStar, m.rating.fourStar, m.rating.fiveStar) " +
+            "FROM Menu m LEFT JOIN m.category c " +
+            "ORDER BY m.id DESC")
+    List<MenuSummaryDto> findAllSummaries();
+
+    @Query("SELECT new com.abiodunelijah.menu.dtos.MenuDetailDto(m.id, m.name, m.description, m.price, m.imageUrl, m.imageStatus, m.imageRenditions, c.id, c.name, " +
+            "m.rating.count, m.rating.sum, m.rating.average, " +
+            "m.rating.oneStar, m.rating.twoStar, m.rating.threeStar, m.rating.fourStar, m.rating.fiveStar) " +
+            "FROM Menu m LEFT JOIN m.category c " +
+            "WHERE m.id = :id")
+    Optional<MenuDetailDto> findDetailById(@Param("id") Long id);
+
+    @Query("SELECT m.rating.average FROM Menu m WHERE m.id = :menuId")
+    Optional<Double> findAverageRatingById(@Param("menuId") Long menuId);
+
+    //single statement so concurrent reviews of the same menu cannot lose updates
+    @Modifying
+    @Query("UPDATE Menu m SET m.rating.count = m.rating.count + 1, " +
+            "m.rating.sum = m.rating.sum + :rating, " +
+            "m.rating.average = (m.rating.sum + :rating) * 1.0 / (m.rating.count + 1), " +
+            "m.rating.oneStar = m.rating.oneStar + CASE WHEN :stars = 1 THEN 1 ELSE 0 END, " +
+            "m.rating.twoStar = m.rating.twoStar + CASE WHEN :stars = 2 THEN 1 ELSE 0 END, " +
+            "m.rating.threeStar = m.rating.threeStar + CASE WHEN :stars = 3 THEN 1 ELSE 0 END, " +
+            "m.rating.fourStar = m.rating.fourStar + CASE WHEN :stars = 4 THEN 1 ELSE 0 END, " +
+            "m.rating.fiveStar = m.rating.fiveStar + CASE WHEN :stars = 5 THEN 1 ELSE 0 END " +
+            "WHERE m.id = :menuId")
+    int addRating(@Param("menuId") Long menuId, @Param("rating") int rating, @Param("stars") int stars);
+
+    //recomputes every summary from the reviews table, used to backfill menus reviewed before the summary existed
+    @Modifying
+    @Query(value = "UPDATE menus m SET rating_count = s.review_count, rating_sum = s.rating_sum, rating_average = s.rating_average, " +
+            "rating_one_star = s.one_star, rating_two_star = s.two_star, rating_three_star = s.three_star, " +
+            "rating_four_star = s.four_star, rating_five_star = s.five_star " +
+            "FROM (SELECT r.menu_id, COUNT(*) AS review_count, SUM(r.rating) AS rating_sum, AVG(r.rating) AS rating_average, " +
+            "COUNT(*) FILTER (WHERE r.rating <= 2) AS one_star, " +
+            "COUNT(*) FILTER (WHERE r.rating BETWEEN 3 AND 4) AS two_star, " +
+            "COUNT(*) FILTER (WHERE r.rating BETWEEN 5 AND 6) AS three_star, " +
+            "COUNT(*) FILTER (WHERE r.rating BETWEEN 7 AND 8) AS four_star, " +
+            "COUNT(*) FILTER (WHERE r.rating >= 9) AS five_star " +
+            "FROM reviews r GROUP BY r.menu_id) s " +
+            "WHERE s.menu_id = m.id", nativeQuery = true)
+    int rebuildRatings();
+
+    //compare-and-set on the url, so a slow upload never overwrites the image of a newer update
+    @Modifying
+    @Transactional
+    @Query("UPDATE Menu m SET m.imageUrl = :imageUrl, m.imageStatus = :imageStatus, m.imageRenditions = :imageRenditions " +
+            "WHERE m.id = :menuId AND m.imageUrl = :expectedUrl")
+    int updateImage(@Param("menuId") Long menuId, @Param("expectedUrl") String expectedUrl, @Param("imageUrl") String imageUrl,
+                    @Param("imageStatus") ImageStatus imageStatus, @Param("imageRenditions") boolean imageRenditions);
 }
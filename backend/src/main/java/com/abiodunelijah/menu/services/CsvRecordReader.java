@@ -0,0 +1,90 @@
+package com.abiodunelijah.menu.services;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+//Minimal RFC 4180 reader: quoted fields may contain commas, doubled quotes and line breaks.
+class CsvRecordReader {
+
+    private static final int NOTHING_PUSHED_BACK = -2;
+
+    private final Reader reader;
+    private int pushedBack = NOTHING_PUSHED_BACK;
+
+    CsvRecordReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    //next record, or null at end of input
+    List<String> next() throws IOException {
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean readAnything = false;
+
+        while (true) {
+            int c = read();
+
+            if (c == -1) {
+                if (!readAnything) {
+                    return null;
+                }
+                fields.add(field.toString());
+                return fields;
+            }
+            readAnything = true;
+
+            if (quoted) {
+                if (c == '"') {
+                    int following = read();
+                    if (following == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        pushedBack = following;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n') {
+                if (c == '\r') {
+                    int following = read();
+                    if (following != '\n') {
+                        pushedBack = following;
+                    }
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+        }
+    }
+
+    static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != NOTHING_PUSHED_BACK) {
+            int c = pushedBack;
+            pushedBack = NOTHING_PUSHED_BACK;
+            return c;
+        }
+        return reader.read();
+    }
+}
@@ -0,0 +1,182 @@
+package com.abiodunelijah.menu.services;
+
+import com.abiodunelijah.catalog.events.CatalogChangedEvent;
+import com.abiodunelijah.menu.dtos.MenuCacheStatsDto;
+import com.abiodunelijah.menu.dtos.MenuSummaryDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+//Tier one: bounded LRU/TTL of filtered listings keyed by (categoryId, normalized search).
+//Tier two: one snapshot of the whole catalog that tier one misses are filtered from.
+@Component
+@Slf4j
+public class MenuCatalogCache {
+
+    @Value("${menu.cache.max-entries:256}")
+    private int maxEntries;
+
+    @Value("${menu.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    //access ordered so iteration starts at the least recently used entry, guarded by itself
+    private final Map<CacheKey, CacheEntry> entries = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<CacheKey, CacheEntry> eldest) {
+            if (size() > maxEntries) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>();
+
+    //bumped on every invalidation so loads that raced with a write are not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong snapshotLoads = new AtomicLong();
+
+    public static String normalize(String search) {
+        if (search == null) {
+            return null;
+        }
+        String normalized = search.trim().replaceAll("\\s+", " ").toLowerCase();
+        return normalized.isEmpty() ? null : normalized;
+    }
+
+    public long generation() {
+        return generation.get();
+    }
+
+    public List<MenuSummaryDto> get(Long categoryId, String normalizedSearch) {
+        CacheKey key = new CacheKey(categoryId, normalizedSearch);
+
+        synchronized (entries) {
+            CacheEntry entry = entries.get(key);
+
+            if (entry != null && entry.expiresAt() < System.currentTimeMillis()) {
+                entries.remove(key);
+                evictions.incrementAndGet();
+                entry = null;
+            }
+
+            if (entry == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+
+            hits.incrementAndGet();
+            return entry.menus();
+        }
+    }
+
+    public void put(long loadedAtGeneration, Long categoryId, String normalizedSearch, List<MenuSummaryDto> menus) {
+        synchronized (entries) {
+            if (loadedAtGeneration != generation.get()) {
+                return;
+            }
+            long expiresAt = System.currentTimeMillis() + ttlSeconds * 1000;
+            entries.put(new CacheKey(categoryId, normalizedSearch), new CacheEntry(List.copyOf(menus), expiresAt));
+        }
+    }
+
+    public List<MenuSummaryDto> getSnapshot() {
+        CatalogSnapshot current = snapshot.get();
+        return current != null ? current.menus() : null;
+    }
+
+    public Map<Long, MenuSummaryDto> getSnapshotById() {
+        CatalogSnapshot current = snapshot.get();
+        return current != null ? current.menusById() : null;
+    }
+
+    public void putSnapshot(long loadedAtGeneration, List<MenuSummaryDto> menus) {
+        synchronized (entries) {
+            if (loadedAtGeneration != generation.get()) {
+                return;
+            }
+            Map<Long, MenuSummaryDto> menusById = menus.stream()
+                    .collect(Collectors.toUnmodifiableMap(MenuSummaryDto::getId, Function.identity()));
+            snapshot.set(new CatalogSnapshot(List.copyOf(menus), menusById));
+            snapshotLoads.incrementAndGet();
+        }
+    }
+
+    @Order(CatalogChangedEvent.CACHE_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+
+        if (!event.isMenusChanged()) {
+            return;
+        }
+
+        int removed = 0;
+
+        synchronized (entries) {
+            generation.incrementAndGet();
+            snapshot.set(null);
+
+            //only listings that could contain the changed menus are dropped
+            Iterator<CacheKey> iterator = entries.keySet().iterator();
+            while (iterator.hasNext()) {
+                CacheKey key = iterator.next();
+                if (key.categoryId() == null || event.getCategoryIds().isEmpty()
+                        || event.getCategoryIds().contains(key.categoryId())) {
+                    iterator.remove();
+                    removed++;
+                }
+            }
+        }
+
+        invalidations.addAndGet(removed);
+        log.info("Menu catalog cache invalidated {} entries for {}", removed, event);
+    }
+
+    public MenuCacheStatsDto stats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long total = hitCount + missCount;
+
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+
+        return MenuCacheStatsDto.builder()
+                .hits(hitCount)
+                .misses(missCount)
+                .evictions(evictions.get())
+                .invalidations(invalidations.get())
+                .snapshotLoads(snapshotLoads.get())
+                .size(size)
+                .snapshotLoaded(snapshot.get() != null)
+                .hitRate(total == 0 ? 0.0 : (double) hitCount / total)
+                .build();
+    }
+
+    private record CacheKey(Long categoryId, String search) {
+    }
+
+    private record CacheEntry(List<MenuSummaryDto> menus, long expiresAt) {
+    }
+
+    private record CatalogSnapshot(List<MenuSummaryDto> menus, Map<Long, MenuSummaryDto> menusById) {
+    }
+}
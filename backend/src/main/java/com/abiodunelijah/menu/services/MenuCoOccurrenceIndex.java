@@ -0,0 +1,224 @@
+package com.abiodunelijah.menu.services;
+
+import com.abiodunelijah.order.events.OrderPlacedEvent;
+import com.abiodunelijah.utils.LongLongHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.LongPredicate;
+
+//"Frequently bought together": sparse item-to-item counts of how often two menus were ordered together.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MenuCoOccurrenceIndex {
+
+    private static final String ORDER_ID_RANGE_SQL = "SELECT MIN(id), MAX(id) FROM orders WHERE order_date < ?";
+
+    private static final String ORDER_ITEMS_SQL = "SELECT oi.order_id, oi.menu_id FROM order_items oi " +
+            "JOIN orders o ON o.id = oi.order_id " +
+            "WHERE oi.order_id BETWEEN ? AND ? AND o.order_date < ? AND oi.menu_id IS NOT NULL ORDER BY oi.order_id";
+
+    private static final Comparator<Recommendation> BY_SCORE = Comparator.comparingDouble(Recommendation::score)
+            .thenComparingLong(Recommendation::menuId);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    //menu id -> (other menu id -> orders containing both)
+    private final Map<Long, LongLongHashMap> pairCounts = new HashMap<>();
+
+    //menu id -> orders containing the menu
+    private final LongLongHashMap orderCounts = new LongLongHashMap(1024);
+
+    //orders dated before this are counted by the backfill, live events only add later ones; split on the order date
+    //because pooled order ids do not follow creation order
+    private volatile LocalDateTime backfilledBefore = LocalDateTime.MAX;
+
+    @Value("${menu.recommendations.backfill-on-startup:true}")
+    private boolean backfillOnStartup;
+
+    @Value("${menu.recommendations.backfill-range-size:5000}")
+    private int backfillRangeSize;
+
+    @Value("${menu.recommendations.backfill-threads:4}")
+    private int backfillThreads;
+
+    public record Recommendation(long menuId, double score, long coOrders) {
+    }
+
+    //menus most often ordered together with the given ones, the given menus themselves excluded
+    public List<Recommendation> recommend(Set<Long> menuIds, int limit) {
+        return recommend(menuIds, limit, menuId -> true);
+    }
+
+    //only menus passing the filter compete for the limit, so dropping e.g. deleted menus never shortens the list
+    public List<Recommendation> recommend(Set<Long> menuIds, int limit, LongPredicate include) {
+
+        Map<Long, double[]> candidates = new HashMap<>();
+
+        synchronized (pairCounts) {
+            for (Long menuId : menuIds) {
+                LongLongHashMap row = pairCounts.get(menuId);
+                if (row == null) {
+                    continue;
+                }
+                long menuOrders = orderCounts.get(menuId);
+
+                //cosine similarity keeps items that are in every order from topping each list
+                row.forEach((otherId, together) -> {
+                    if (menuIds.contains(otherId) || !include.test(otherId)) {
+                        return;
+                    }
+                    double score = together / Math.sqrt((double) menuOrders * orderCounts.get(otherId));
+                    double[] candidate = candidates.computeIfAbsent(otherId, id -> new double[2]);
+                    candidate[0] += score;
+                    candidate[1] += together;
+                });
+            }
+        }
+
+        PriorityQueue<Recommendation> heap = new PriorityQueue<>(limit + 1, BY_SCORE);
+        candidates.forEach((menuId, candidate) -> {
+            heap.add(new Recommendation(menuId, candidate[0], (long) candidate[1]));
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        });
+
+        List<Recommendation> recommendations = new ArrayList<>(heap);
+        recommendations.sort(BY_SCORE.reversed());
+        return recommendations;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderPlaced(OrderPlacedEvent event) {
+
+        if (event.getOrderDate() != null && event.getOrderDate().isBefore(backfilledBefore)) {
+            return;
+        }
+
+        synchronized (pairCounts) {
+            addOrder(pairCounts, orderCounts, event.getQuantities().keySet());
+        }
+    }
+
+    //off the startup thread, recommendations fill in as the ranges are merged
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+
+        if (!backfillOnStartup) {
+            backfilledBefore = LocalDateTime.MIN;
+            return;
+        }
+
+        //orders placed from now on arrive as events; one whose checkout is still open at this moment is missed by both
+        LocalDateTime cutoff = LocalDateTime.now();
+        backfilledBefore = cutoff;
+
+        Thread.ofVirtual().name("co-occurrence-backfill").start(() -> backfillBefore(cutoff));
+    }
+
+    void backfillBefore(LocalDateTime cutoff) {
+
+        Timestamp before = Timestamp.valueOf(cutoff);
+
+        long[] range = jdbcTemplate.queryForObject(ORDER_ID_RANGE_SQL,
+                (resultSet, rowNum) -> new long[]{resultSet.getLong(1), resultSet.getLong(2)}, before);
+
+        if (range == null || range[1] == 0L) {
+            return;
+        }
+
+        long started = System.currentTimeMillis();
+        List<Future<?>> tasks = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(backfillThreads, Thread.ofVirtual().factory())) {
+            for (long from = range[0]; from <= range[1]; from += backfillRangeSize) {
+                long to = Math.min(from + backfillRangeSize - 1, range[1]);
+                long rangeStart = from;
+                tasks.add(executor.submit(() -> backfillRange(rangeStart, to, before)));
+            }
+
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            //the ranges merged so far would skew every score, so counting restarts from the live orders
+            synchronized (pairCounts) {
+                pairCounts.clear();
+                orderCounts.clear();
+            }
+            log.error("Co-occurrence backfill failed, recommendations only count orders placed from now on: {}", e.getMessage());
+            return;
+        }
+
+        log.info("Co-occurrence backfill of orders {}..{} finished in {} ms", range[0], range[1],
+                System.currentTimeMillis() - started);
+    }
+
+    //each range is counted into private maps and merged once, so workers never contend per row
+    private void backfillRange(long from, long to, Timestamp before) {
+
+        Map<Long, LongLongHashMap> localPairs = new HashMap<>();
+        LongLongHashMap localOrders = new LongLongHashMap();
+        List<Long> currentItems = new ArrayList<>();
+        long[] currentOrder = {Long.MIN_VALUE};
+
+        jdbcTemplate.query(ORDER_ITEMS_SQL, resultSet -> {
+            long orderId = resultSet.getLong("order_id");
+            if (orderId != currentOrder[0]) {
+                addOrder(localPairs, localOrders, currentItems);
+                currentItems.clear();
+                currentOrder[0] = orderId;
+            }
+            currentItems.add(resultSet.getLong("menu_id"));
+        }, from, to, before);
+        addOrder(localPairs, localOrders, currentItems);
+
+        synchronized (pairCounts) {
+            localOrders.forEach(orderCounts::addTo);
+            localPairs.forEach((menuId, localRow) -> {
+                LongLongHashMap row = pairCounts.computeIfAbsent(menuId, id -> new LongLongHashMap());
+                localRow.forEach(row::addTo);
+            });
+        }
+    }
+
+    private static void addOrder(Map<Long, LongLongHashMap> pairs, LongLongHashMap orders, Collection<Long> items) {
+
+        long[] menuIds = items.stream().mapToLong(Long::longValue).distinct().toArray();
+
+        for (long menuId : menuIds) {
+            orders.addTo(menuId, 1);
+        }
+
+        for (int i = 0; i < menuIds.length; i++) {
+            for (int j = i + 1; j < menuIds.length; j++) {
+                pairs.computeIfAbsent(menuIds[i], id -> new LongLongHashMap()).addTo(menuIds[j], 1);
+                pairs.computeIfAbsent(menuIds[j], id -> new LongLongHashMap()).addTo(menuIds[i], 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.abiodunelijah.menu.services;
+
+import com.abiodunelijah.menu.dtos.MenuImportResultDto;
+import com.abiodunelijah.response.Response;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.OutputStream;
+
+public interface MenuImportExportService {
+
+    Response<MenuImportResultDto> importMenus(MultipartFile file, MultipartFile imageArchive);
+    void exportMenus(String format, OutputStream outputStream);
+}
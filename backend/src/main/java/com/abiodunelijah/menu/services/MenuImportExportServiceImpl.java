@@ -0,0 +1,498 @@
+package com.abiodunelijah.menu.services;
+
+import com.abiodunelijah.catalog.events.CatalogChangedEvent;
+import com.abiodunelijah.category.entities.Category;
+import com.abiodunelijah.category.repository.CategoryRepository;
+import com.abiodunelijah.exceptions.BadRequestException;
+import com.abiodunelijah.menu.dtos.MenuImportErrorDto;
+import com.abiodunelijah.menu.dtos.MenuImportResultDto;
+import com.abiodunelijah.response.Response;
+import com.abiodunelijah.storage.ContentKeys;
+import com.abiodunelijah.storage.StorageService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MenuImportExportServiceImpl implements MenuImportExportService {
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final int EXPORT_FETCH_SIZE = 500;
+
+    private static final String INSERT_MENU_SQL = "INSERT INTO menus (name, description, price, image_url, category_id, " +
+            "rating_count, rating_sum, rating_average, rating_one_star, rating_two_star, rating_three_star, rating_four_star, rating_five_star) " +
+            "VALUES (?, ?, ?, ?, ?, 0, 0, 0, 0, 0, 0, 0, 0)";
+
+    private static final String EXPORT_MENUS_SQL = "SELECT m.id, m.name, m.description, m.price, m.image_url, m.category_id, c.name AS category_name " +
+            "FROM menus m LEFT JOIN categories c ON c.id = m.category_id " +
+            "ORDER BY m.id";
+
+    private static final String CSV_HEADER = "id,name,description,price,categoryId,category,imageUrl";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CategoryRepository categoryRepository;
+    private final StorageService storageService;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${menu.import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${menu.import.upload-concurrency:8}")
+    private int uploadConcurrency;
+
+    @Override
+    public Response<MenuImportResultDto> importMenus(MultipartFile file, MultipartFile imageArchive) {
+
+        log.info("Inside importMenus()");
+
+        if (file == null || file.isEmpty()) {
+            throw new BadRequestException("An import file is required.");
+        }
+
+        CategoryLookup categories = loadCategories();
+        ImportProgress progress = new ImportProgress();
+        Path archivePath = null;
+
+        try {
+            ZipFile archive = null;
+
+            //the archive is read by entry name, so it is spooled to disk rather than held in memory
+            if (imageArchive != null && !imageArchive.isEmpty()) {
+                archivePath = Files.createTempFile("menu-import-", ".zip");
+                imageArchive.transferTo(archivePath);
+                archive = new ZipFile(archivePath.toFile());
+            }
+
+            try (ZipFile images = archive;
+                 BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8));
+                 ExecutorService uploadExecutor = Executors.newFixedThreadPool(uploadConcurrency, Thread.ofVirtual().factory())) {
+
+                RowSource rows = isNdjson(file) ? ndjsonRows(reader) : csvRows(reader);
+                List<PendingMenu> batch = new ArrayList<>(batchSize);
+
+                ImportRow row;
+                while ((row = rows.next()) != null) {
+                    progress.totalRows++;
+
+                    PendingMenu pendingMenu = validate(row, progress.totalRows, categories, images, progress);
+                    if (pendingMenu == null) {
+                        continue;
+                    }
+
+                    batch.add(pendingMenu);
+                    if (batch.size() == batchSize) {
+                        flush(batch, images, uploadExecutor, progress);
+                        batch.clear();
+                    }
+                }
+
+                flush(batch, images, uploadExecutor, progress);
+            }
+        } catch (IOException e) {
+            throw new BadRequestException("Could not read import file: " + e.getMessage());
+        } finally {
+            deleteQuietly(archivePath);
+        }
+
+        if (!progress.categoryIds.isEmpty()) {
+            eventPublisher.publishEvent(new CatalogChangedEvent(null, Set.copyOf(progress.categoryIds), true));
+        }
+
+        log.info("Menu import finished: {} rows, {} imported, {} failed", progress.totalRows, progress.importedRows, progress.failedRows);
+
+        return Response.<MenuImportResultDto>builder()
+                .statusCode(HttpStatus.OK.value())
+                .message("Menu import completed.")
+                .data(MenuImportResultDto.builder()
+                        .totalRows(progress.totalRows)
+                        .importedRows(progress.importedRows)
+                        .failedRows(progress.failedRows)
+                        .unreferencedImages(progress.unreferencedImages)
+                        .errors(progress.errors)
+                        .build())
+                .build();
+    }
+
+    @Override
+    public void exportMenus(String format, OutputStream outputStream) {
+
+        log.info("Inside exportMenus()");
+
+        boolean ndjson = "ndjson".equalsIgnoreCase(format);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+
+        try {
+            if (!ndjson) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+            }
+
+            //postgres only streams with a fetch size inside a transaction
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(EXPORT_MENUS_SQL);
+                statement.setFetchSize(EXPORT_FETCH_SIZE);
+                return statement;
+            }, resultSet -> {
+                try {
+                    Map<String, Object> menu = new LinkedHashMap<>();
+                    menu.put("id", resultSet.getLong("id"));
+                    menu.put("name", resultSet.getString("name"));
+                    menu.put("description", resultSet.getString("description"));
+                    menu.put("price", resultSet.getBigDecimal("price"));
+                    menu.put("categoryId", resultSet.getObject("category_id"));
+                    menu.put("category", resultSet.getString("category_name"));
+                    menu.put("imageUrl", resultSet.getString("image_url"));
+
+                    if (ndjson) {
+                        writer.write(objectMapper.writeValueAsString(menu));
+                    } else {
+                        List<String> values = new ArrayList<>();
+                        menu.values().forEach(value -> values.add(CsvRecordReader.escape(value != null ? value.toString() : null)));
+                        writer.write(String.join(",", values));
+                    }
+                    writer.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private PendingMenu validate(ImportRow row, long rowNumber, CategoryLookup categories, ZipFile images, ImportProgress progress) {
+
+        if (row.error() != null) {
+            progress.fail(rowNumber, row.error());
+            return null;
+        }
+
+        if (isBlank(row.name())) {
+            progress.fail(rowNumber, "Name is required.");
+            return null;
+        }
+
+        BigDecimal price;
+        try {
+            price = new BigDecimal(row.price().trim());
+        } catch (RuntimeException e) {
+            progress.fail(rowNumber, "Price is required and must be a number.");
+            return null;
+        }
+        if (price.signum() <= 0) {
+            progress.fail(rowNumber, "Price must be positive.");
+            return null;
+        }
+
+        Long categoryId = categories.resolve(row.categoryId(), row.category());
+        if (categoryId == null) {
+            progress.fail(rowNumber, "Category not found.");
+            return null;
+        }
+
+        ZipEntry imageEntry = null;
+        if (isBlank(row.imageUrl())) {
+            if (isBlank(row.image())) {
+                progress.fail(rowNumber, "menu image is required.");
+                return null;
+            }
+            imageEntry = images != null ? images.getEntry(row.image().trim()) : null;
+            if (imageEntry == null) {
+                progress.fail(rowNumber, "Image " + row.image() + " not found in the image archive.");
+                return null;
+            }
+        }
+
+        return new PendingMenu(rowNumber, row.name().trim(), row.description(), price, categoryId,
+                isBlank(row.imageUrl()) ? null : row.imageUrl().trim(), imageEntry);
+    }
+
+    private void flush(List<PendingMenu> batch, ZipFile images, ExecutorService uploadExecutor, ImportProgress progress) {
+
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        //upload the batch's images in parallel, rows whose upload fails are reported and skipped
+        Map<PendingMenu, Future<UploadedImage>> uploads = new HashMap<>();
+        for (PendingMenu pendingMenu : batch) {
+            if (pendingMenu.imageEntry() != null) {
+                uploads.put(pendingMenu, uploadExecutor.submit(() -> uploadImage(images, pendingMenu.imageEntry())));
+            }
+        }
+
+        List<PendingMenu> rows = new ArrayList<>(batch.size());
+        List<Object[]> parameters = new ArrayList<>(batch.size());
+        Set<PendingMenu> newImages = new HashSet<>();
+
+        for (PendingMenu pendingMenu : batch) {
+            Future<UploadedImage> upload = uploads.get(pendingMenu);
+            String imageUrl = pendingMenu.imageUrl();
+            if (upload != null) {
+                try {
+                    UploadedImage image = upload.get();
+                    imageUrl = image.url();
+                    if (image.created()) {
+                        newImages.add(pendingMenu);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    progress.fail(pendingMenu.rowNumber(), "Image upload interrupted.");
+                    continue;
+                } catch (ExecutionException e) {
+                    progress.fail(pendingMenu.rowNumber(), "Image upload failed: " + e.getCause().getMessage());
+                    continue;
+                }
+            }
+            rows.add(pendingMenu);
+            parameters.add(new Object[]{pendingMenu.name(), pendingMenu.description(), pendingMenu.price(), imageUrl,
+                    pendingMenu.categoryId()});
+        }
+
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        //the batch commits as a whole, so a failure leaves none of its rows behind
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_MENU_SQL, parameters));
+            rows.forEach(progress::imported);
+            return;
+        } catch (DataAccessException e) {
+            log.warn("Menu import batch failed, retrying its {} rows one by one: {}", rows.size(), e.getMessage());
+        }
+
+        //one transaction per row tells which rows are at fault
+        for (int i = 0; i < rows.size(); i++) {
+            PendingMenu menu = rows.get(i);
+            Object[] row = parameters.get(i);
+            try {
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(INSERT_MENU_SQL, row));
+                progress.imported(menu);
+            } catch (DataAccessException e) {
+                progress.fail(menu.rowNumber(), "Insert failed: " + e.getMostSpecificCause().getMessage());
+                if (newImages.contains(menu)) {
+                    progress.unreferencedImages++;
+                }
+            }
+        }
+    }
+
+    private UploadedImage uploadImage(ZipFile images, ZipEntry entry) throws IOException {
+
+        String fileName = Path.of(entry.getName()).getFileName().toString();
+        String contentType = URLConnection.guessContentTypeFromName(fileName);
+
+        //entries are cheap to re-read from the local zip, so the content key is computed in a first pass
+        MessageDigest digest = ContentKeys.sha256();
+        try (InputStream inputStream = new DigestInputStream(images.getInputStream(entry), digest)) {
+            inputStream.transferTo(OutputStream.nullOutputStream());
+        }
+        String keyName = ContentKeys.keyFor("menus", digest.digest(), fileName);
+
+        //touched so the sweeper does not take a reused orphan before the row referencing it is inserted
+        if (storageService.touch(keyName)) {
+            return new UploadedImage(storageService.getUrl(keyName).toString(), false);
+        }
+
+        try (InputStream inputStream = images.getInputStream(entry)) {
+            return new UploadedImage(storageService.uploadFile(keyName, inputStream, entry.getSize(),
+                    contentType != null ? contentType : "application/octet-stream").toString(), true);
+        }
+    }
+
+    private RowSource csvRows(BufferedReader reader) throws IOException {
+
+        CsvRecordReader csv = new CsvRecordReader(reader);
+        List<String> header = csv.next();
+        if (header == null) {
+            throw new BadRequestException("The import file is empty.");
+        }
+
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.containsKey("name") || !columns.containsKey("price")
+                || (!columns.containsKey("categoryid") && !columns.containsKey("category"))) {
+            throw new BadRequestException("The CSV header must contain name, price and categoryId or category columns.");
+        }
+
+        return () -> {
+            List<String> fields = csv.next();
+            while (fields != null && fields.size() == 1 && fields.getFirst().isBlank()) {
+                fields = csv.next();
+            }
+            if (fields == null) {
+                return null;
+            }
+            List<String> values = fields;
+            return new ImportRow(column(columns, values, "name"), column(columns, values, "description"),
+                    column(columns, values, "price"), column(columns, values, "categoryid"), column(columns, values, "category"),
+                    column(columns, values, "image"), column(columns, values, "imageurl"), null);
+        };
+    }
+
+    private RowSource ndjsonRows(BufferedReader reader) {
+        return () -> {
+            String line = reader.readLine();
+            while (line != null && line.isBlank()) {
+                line = reader.readLine();
+            }
+            if (line == null) {
+                return null;
+            }
+            try {
+                JsonNode node = objectMapper.readTree(line);
+                return new ImportRow(text(node, "name"), text(node, "description"), text(node, "price"),
+                        text(node, "categoryId"), text(node, "category"), text(node, "image"), text(node, "imageUrl"), null);
+            } catch (JsonProcessingException e) {
+                return new ImportRow(null, null, null, null, null, null, null, "Malformed JSON: " + e.getOriginalMessage());
+            }
+        };
+    }
+
+    private CategoryLookup loadCategories() {
+        Set<Long> ids = new HashSet<>();
+        Map<String, Long> idsByName = new HashMap<>();
+        for (Category category : categoryRepository.findAll()) {
+            ids.add(category.getId());
+            if (category.getName() != null) {
+                idsByName.put(category.getName().trim().toLowerCase(Locale.ROOT), category.getId());
+            }
+        }
+        return new CategoryLookup(ids, idsByName);
+    }
+
+    private static boolean isNdjson(MultipartFile file) {
+        String name = file.getOriginalFilename() != null ? file.getOriginalFilename().toLowerCase(Locale.ROOT) : "";
+        String contentType = file.getContentType() != null ? file.getContentType() : "";
+        return name.endsWith(".ndjson") || name.endsWith(".jsonl") || contentType.contains("ndjson");
+    }
+
+    private static String column(Map<String, Integer> columns, List<String> values, String name) {
+        Integer index = columns.get(name);
+        return index != null && index < values.size() ? values.get(index) : null;
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete temporary file {}", path);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowSource {
+        ImportRow next() throws IOException;
+    }
+
+    private record ImportRow(String name, String description, String price, String categoryId, String category,
+                             String image, String imageUrl, String error) {
+    }
+
+    private record PendingMenu(long rowNumber, String name, String description, BigDecimal price, Long categoryId,
+                               String imageUrl, ZipEntry imageEntry) {
+    }
+
+    //created is false when the content was already stored under its key
+    private record UploadedImage(String url, boolean created) {
+    }
+
+    private record CategoryLookup(Set<Long> ids, Map<String, Long> idsByName) {
+
+        Long resolve(String categoryId, String categoryName) {
+            if (categoryId != null && !categoryId.isBlank()) {
+                try {
+                    Long id = Long.valueOf(categoryId.trim());
+                    return ids.contains(id) ? id : null;
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+            return categoryName != null ? idsByName.get(categoryName.trim().toLowerCase(Locale.ROOT)) : null;
+        }
+    }
+
+    private static class ImportProgress {
+        private long totalRows;
+        private long importedRows;
+        private long failedRows;
+        private long unreferencedImages;
+        private final List<MenuImportErrorDto> errors = new ArrayList<>();
+        private final Set<Long> categoryIds = new HashSet<>();
+
+        private void imported(PendingMenu menu) {
+            importedRows++;
+            categoryIds.add(menu.categoryId());
+        }
+
+        private void fail(long rowNumber, String message) {
+            failedRows++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new MenuImportErrorDto(rowNumber, message));
+            }
+        }
+    }
+}
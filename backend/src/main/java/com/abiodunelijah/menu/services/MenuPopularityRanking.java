@@ -0,0 +1,231 @@
+package com.abiodunelijah.menu.services;
+
+import com.abiodunelijah.enums.PopularityWindow;
+import com.abiodunelijah.order.events.OrderPlacedEvent;
+import com.abiodunelijah.utils.LongLongHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+//Sliding-window sales counts per menu, fed by placed orders and answered from a pre-ranked list.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MenuPopularityRanking {
+
+    private static final String RECENT_SALES_SQL = "SELECT oi.menu_id, o.order_date, oi.quantity " +
+            "FROM order_items oi JOIN orders o ON o.id = oi.order_id " +
+            "WHERE o.order_date >= ? AND oi.menu_id IS NOT NULL";
+
+    private static final Comparator<RankedMenu> BY_RANK = Comparator.comparingLong(RankedMenu::quantity)
+            .thenComparingLong(RankedMenu::menuId);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<PopularityWindow, SlidingWindow> windows = createWindows();
+
+    @Value("${menu.popular.max-size:50}")
+    private int maxSize;
+
+    @Value("${menu.popular.warm-up-on-startup:true}")
+    private boolean warmUpOnStartup;
+
+    public record RankedMenu(long menuId, long quantity) {
+    }
+
+    //best sellers of the window, at most menu.popular.max-size entries
+    public List<RankedMenu> top(PopularityWindow window, int limit) {
+
+        SlidingWindow slidingWindow = windows.get(window);
+        slidingWindow.advanceTo(System.currentTimeMillis(), maxSize);
+
+        List<RankedMenu> ranking = slidingWindow.ranking();
+        return ranking.subList(0, Math.min(Math.max(limit, 0), ranking.size()));
+    }
+
+    public int maxSize() {
+        return maxSize;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderPlaced(OrderPlacedEvent event) {
+        long timestamp = toMillis(event.getOrderDate());
+        windows.values().forEach(window -> window.add(event.getQuantities(), timestamp, maxSize));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+
+        if (!warmUpOnStartup) {
+            return;
+        }
+
+        long longest = windows.keySet().stream()
+                .mapToLong(window -> window.length().toMillis())
+                .max()
+                .orElse(0L);
+        LocalDateTime since = LocalDateTime.now().minusNanos(longest * 1_000_000L);
+
+        long[] rows = {0};
+        jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement(RECENT_SALES_SQL);
+            statement.setTimestamp(1, Timestamp.valueOf(since));
+            statement.setFetchSize(1000);
+            return statement;
+        }, resultSet -> {
+            Timestamp orderDate = resultSet.getTimestamp("order_date");
+            long timestamp = orderDate != null ? orderDate.getTime() : System.currentTimeMillis();
+            Map<Long, Integer> quantities = Map.of(resultSet.getLong("menu_id"), resultSet.getInt("quantity"));
+            //rank once at the end rather than after every row
+            windows.values().forEach(window -> window.add(quantities, timestamp, 0));
+            rows[0]++;
+        });
+
+        windows.values().forEach(window -> window.rerankNow(maxSize));
+
+        log.info("Popularity ranking warmed up from {} order items", rows[0]);
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime != null
+                ? dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : System.currentTimeMillis();
+    }
+
+    private static Map<PopularityWindow, SlidingWindow> createWindows() {
+        Map<PopularityWindow, SlidingWindow> windows = new EnumMap<>(PopularityWindow.class);
+        for (PopularityWindow window : PopularityWindow.values()) {
+            windows.put(window, new SlidingWindow(window.getBucketSize().toMillis(), window.getBucketCount()));
+        }
+        return windows;
+    }
+
+    //ring of per-bucket counts plus running totals, expired buckets are subtracted as the window slides
+    static final class SlidingWindow {
+
+        private final long bucketMillis;
+        private final LongLongHashMap[] buckets;
+        private final LongLongHashMap totals = new LongLongHashMap(256);
+
+        private volatile long head = Long.MIN_VALUE;
+        private volatile List<RankedMenu> ranking = List.of();
+
+        SlidingWindow(long bucketMillis, int bucketCount) {
+            this.bucketMillis = bucketMillis;
+            this.buckets = new LongLongHashMap[bucketCount];
+            for (int i = 0; i < bucketCount; i++) {
+                buckets[i] = new LongLongHashMap();
+            }
+        }
+
+        synchronized void add(Map<Long, Integer> quantities, long timestamp, int maxSize) {
+
+            long index = Math.floorDiv(timestamp, bucketMillis);
+            slide(index);
+
+            //older than the window, or the window has not started yet
+            if (index <= head - buckets.length) {
+                return;
+            }
+
+            LongLongHashMap bucket = buckets[slot(index)];
+            quantities.forEach((menuId, quantity) -> {
+                if (menuId != null && quantity != null && quantity > 0) {
+                    bucket.addTo(menuId, quantity);
+                    totals.addTo(menuId, quantity);
+                }
+            });
+
+            if (maxSize > 0) {
+                rerank(maxSize);
+            }
+        }
+
+        synchronized void rerankNow(int maxSize) {
+            rerank(maxSize);
+        }
+
+        void advanceTo(long now, int maxSize) {
+
+            long index = Math.floorDiv(now, bucketMillis);
+            if (index <= head) {
+                return;
+            }
+
+            synchronized (this) {
+                if (slide(index)) {
+                    rerank(maxSize);
+                }
+            }
+        }
+
+        List<RankedMenu> ranking() {
+            return ranking;
+        }
+
+        private boolean slide(long index) {
+
+            if (head == Long.MIN_VALUE) {
+                head = index;
+                return false;
+            }
+            if (index <= head) {
+                return false;
+            }
+
+            if (index - head >= buckets.length) {
+                for (LongLongHashMap bucket : buckets) {
+                    bucket.clear();
+                }
+                totals.clear();
+            } else {
+                for (long i = head + 1; i <= index; i++) {
+                    LongLongHashMap expired = buckets[slot(i)];
+                    expired.forEach((menuId, quantity) -> totals.addTo(menuId, -quantity));
+                    expired.clear();
+                }
+            }
+
+            head = index;
+            return true;
+        }
+
+        //bounded min-heap over the totals, readers only ever see the finished list
+        private void rerank(int maxSize) {
+
+            PriorityQueue<RankedMenu> heap = new PriorityQueue<>(maxSize + 1, BY_RANK);
+            totals.forEach((menuId, quantity) -> {
+                if (quantity <= 0) {
+                    return;
+                }
+                heap.add(new RankedMenu(menuId, quantity));
+                if (heap.size() > maxSize) {
+                    heap.poll();
+                }
+            });
+
+            List<RankedMenu> ranked = new ArrayList<>(heap);
+            ranked.sort(BY_RANK.reversed());
+            ranking = List.copyOf(ranked);
+        }
+
+        private int slot(long index) {
+            return (int) Math.floorMod(index, (long) buckets.length);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.abiodunelijah.menu.services;
+
+import com.abiodunelijah.catalog.events.CatalogChangedEvent;
+import com.abiodunelijah.menu.repository.MenuRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Set;
+
+//One-off recomputation of the rating summaries from the reviews table, enabled by property.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MenuRatingBackfill {
+
+    private final MenuRepository menuRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${menu.ratings.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuildRatings() {
+
+        if (!rebuildOnStartup) {
+            return;
+        }
+
+        int updated = menuRepository.rebuildRatings();
+        log.info("Rebuilt rating summaries for {} menus", updated);
+
+        eventPublisher.publishEvent(new CatalogChangedEvent(null, Set.of(), true));
+    }
+}
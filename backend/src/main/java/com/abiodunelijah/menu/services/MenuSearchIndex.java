@@ -0,0 +1,187 @@
+package com.abiodunelijah.menu.services;
+
+import com.abiodunelijah.catalog.events.CatalogChangedEvent;
+import com.abiodunelijah.menu.entities.Menu;
+import com.abiodunelijah.menu.repository.MenuRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+//In-process inverted index over menu name and description, kept in sync with menu writes.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MenuSearchIndex {
+
+    private static final int NAME_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    //an exact token match ranks above a prefix match of the same field
+    private static final int EXACT_MATCH_BOOST = 2;
+
+    private final MenuRepository menuRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    //token -> (menu id -> field weight), sorted so prefixes are a range scan
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+
+    //menu id -> what was indexed for it, used for category filtering and to drop stale postings
+    private final Map<Long, IndexedMenu> documents = new HashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Menu> menus = menuRepository.findAll();
+
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            menus.forEach(this::addDocument);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("Menu search index built with {} menus and {} tokens", documents.size(), postings.size());
+    }
+
+    @Order(CatalogChangedEvent.INDEX_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+
+        if (!event.isMenusChanged()) {
+            return;
+        }
+
+        if (event.getMenuId() == null) {
+            rebuild();
+            return;
+        }
+
+        Menu menu = menuRepository.findById(event.getMenuId()).orElse(null);
+
+        lock.writeLock().lock();
+        try {
+            removeDocument(event.getMenuId());
+            if (menu != null) {
+                addDocument(menu);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //Returns ids of menus matching every term of the query, best match first.
+    public List<Long> search(String query, Long categoryId) {
+
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> scores = null;
+
+            for (String term : terms) {
+                Map<Long, Integer> termScores = scoreTerm(term, categoryId);
+
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    //every term has to match
+                    scores.keySet().retainAll(termScores.keySet());
+                    scores.replaceAll((menuId, score) -> score + termScores.get(menuId));
+                }
+
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            return scores.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())))
+                    .map(Map.Entry::getKey)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Long, Integer> scoreTerm(String term, Long categoryId) {
+
+        Map<Long, Integer> termScores = new HashMap<>();
+
+        for (Map.Entry<String, Map<Long, Integer>> posting : postings.subMap(term, true, term + Character.MAX_VALUE, false).entrySet()) {
+            int boost = posting.getKey().equals(term) ? EXACT_MATCH_BOOST : 1;
+
+            posting.getValue().forEach((menuId, weight) -> {
+                if (categoryId == null || categoryId.equals(documents.get(menuId).categoryId())) {
+                    termScores.merge(menuId, weight * boost, Math::max);
+                }
+            });
+        }
+
+        return termScores;
+    }
+
+    private void addDocument(Menu menu) {
+
+        Map<String, Integer> weights = new HashMap<>();
+        tokenize(menu.getDescription()).forEach(token -> weights.merge(token, DESCRIPTION_WEIGHT, Math::max));
+        tokenize(menu.getName()).forEach(token -> weights.merge(token, NAME_WEIGHT, Math::max));
+
+        weights.forEach((token, weight) -> postings.computeIfAbsent(token, key -> new HashMap<>()).put(menu.getId(), weight));
+
+        Long categoryId = menu.getCategory() != null ? menu.getCategory().getId() : null;
+        documents.put(menu.getId(), new IndexedMenu(categoryId, weights.keySet()));
+    }
+
+    private void removeDocument(Long menuId) {
+
+        IndexedMenu document = documents.remove(menuId);
+        if (document == null) {
+            return;
+        }
+
+        for (String token : document.tokens()) {
+            Map<Long, Integer> menuIds = postings.get(token);
+            if (menuIds != null) {
+                menuIds.remove(menuId);
+                if (menuIds.isEmpty()) {
+                    postings.remove(token);
+                }
+            }
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(text.toLowerCase().split("[^\\p{L}\\p{N}]+"))
+                .filter(token -> !token.isEmpty())
+                .toList();
+    }
+
+    private record IndexedMenu(Long categoryId, Set<String> tokens) {
+    }
+}
@@ -1,17 +1,28 @@
 package com.abiodunelijah.menu.services;
 
 
+import com.abiodunelijah.menu.dtos.MenuCacheStatsDto;
+import com.abiodunelijah.menu.dtos.MenuDetailDto;
 import com.abiodunelijah.menu.dtos.MenuDto;
+import com.abiodunelijah.menu.dtos.MenuRecommendationDto;
+import com.abiodunelijah.menu.dtos.MenuSuggestionDto;
+import com.abiodunelijah.menu.dtos.MenuSummaryDto;
+import com.abiodunelijah.menu.dtos.PopularMenuDto;
 import com.abiodunelijah.response.Response;
 
 import java.util.List;
+import java.util.Set;
 
 public interface MenuService {
 
     Response<MenuDto> createMenu(MenuDto menuDTO);
     Response<MenuDto> updateMenu(MenuDto menuDTO);
-    Response<MenuDto> getMenu(Long id);
-    Response<List<MenuDto>> getMenus(Long id, String search);
+    Response<MenuDetailDto> getMenu(Long id);
+    Response<List<MenuSummaryDto>> getMenus(Long id, String search);
     Response<?> deleteMenu(Long id);
+    Response<MenuCacheStatsDto> getCacheStats();
+    Response<List<MenuSuggestionDto>> suggestMenus(String query, int limit);
+    Response<List<PopularMenuDto>> getPopularMenus(String window, int limit);
+    Response<List<MenuRecommendationDto>> getRecommendations(Set<Long> menuIds, int limit);
 
 }
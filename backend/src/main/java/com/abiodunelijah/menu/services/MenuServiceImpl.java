@@ -1,31 +1,42 @@
 package com.abiodunelijah.menu.services;
 
 
-import com.abiodunelijah.aws.AwsS3Service;
+import com.abiodunelijah.catalog.events.CatalogChangedEvent;
 import com.abiodunelijah.category.entities.Category;
 import com.abiodunelijah.category.repository.CategoryRepository;
+import com.abiodunelijah.enums.ImageRendition;
+import com.abiodunelijah.enums.ImageStatus;
+import com.abiodunelijah.enums.PopularityWindow;
 import com.abiodunelijah.exceptions.BadRequestException;
 import com.abiodunelijah.exceptions.NotFoundException;
+import com.abiodunelijah.menu.dtos.MenuCacheStatsDto;
+import com.abiodunelijah.menu.dtos.MenuDetailDto;
 import com.abiodunelijah.menu.dtos.MenuDto;
+import com.abiodunelijah.menu.dtos.MenuRecommendationDto;
+import com.abiodunelijah.menu.dtos.MenuSuggestionDto;
+import com.abiodunelijah.menu.dtos.MenuSummaryDto;
+import com.abiodunelijah.menu.dtos.PopularMenuDto;
 import com.abiodunelijah.menu.entities.Menu;
 import com.abiodunelijah.menu.repository.MenuRepository;
 import com.abiodunelijah.response.Response;
-import com.abiodunelijah.review.entities.Review;
-import jakarta.persistence.criteria.Predicate;
+import com.abiodunelijah.review.dtos.ReviewPageDto;
+import com.abiodunelijah.review.services.ReviewService;
+import com.abiodunelijah.storage.ImageUploadPipeline;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
-import org.springframework.data.domain.Sort;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.net.URL;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
-import java.util.UUID;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 
 
@@ -34,11 +45,19 @@ import java.util.UUID;
 @Slf4j
 public class MenuServiceImpl implements MenuService {
 
+    private static final int MAX_SUGGESTIONS = 20;
+    private static final int MAX_RECOMMENDATIONS = 20;
+
     private final MenuRepository menuRepository;
     private final CategoryRepository categoryRepository;
-    private final ModelMapper modelMapper;
-    private final AwsS3Service awsS3Service;
-
+    private final ReviewService reviewService;
+    private final ImageUploadPipeline imageUploadPipeline;
+    private final MenuCatalogCache menuCatalogCache;
+    private final MenuSearchIndex menuSearchIndex;
+    private final MenuSuggestIndex menuSuggestIndex;
+    private final MenuPopularityRanking menuPopularityRanking;
+    private final MenuCoOccurrenceIndex menuCoOccurrenceIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
 
     @Override
@@ -49,33 +68,44 @@ public class MenuServiceImpl implements MenuService {
         Category category = categoryRepository.findById(menuDTO.getCategoryId())
                 .orElseThrow(() -> new NotFoundException("Category not fount."));
 
-        String imageUrl = null;
         MultipartFile imageFile = menuDTO.getImageFile();
 
         if (imageFile == null || imageFile.isEmpty()){
             throw new BadRequestException("menu image is required.");
         }
 
-        String imageName = UUID.randomUUID() + "_" + imageFile.getOriginalFilename();
-        URL awsS3url = awsS3Service.uploadFile("menus/" + imageName, imageFile);
-
-        imageUrl = awsS3url.toString();
-
-        Menu menu = Menu.builder()
-                .name(menuDTO.getName())
-                .description(menuDTO.getDescription())
-                .price(menuDTO.getPrice())
-                .imageUrl(imageUrl)
-                .category(category)
-                .build();
-
-        Menu savedMenu = menuRepository.save(menu);
+        //the menu is saved with its final image url right away, the transfer to storage finishes in the background
+        ImageUploadPipeline.StagedImage stagedImage = imageUploadPipeline.stage(imageFile, "menus");
+
+        Menu savedMenu;
+        try {
+            String imageUrl = imageUploadPipeline.urlOf(stagedImage.keyName()).toString();
+
+            Menu menu = Menu.builder()
+                    .name(menuDTO.getName())
+                    .description(menuDTO.getDescription())
+                    .price(menuDTO.getPrice())
+                    .imageUrl(imageUrl)
+                    .imageStatus(ImageStatus.PENDING)
+                    .category(category)
+                    .build();
+
+            savedMenu = menuRepository.save(menu);
+
+            //handed off right after the save, so a failing listener cannot leave a saved menu without its upload
+            uploadImageInBackground(savedMenu.getId(), category.getId(), stagedImage, imageUrl, null, false);
+        } catch (RuntimeException e) {
+            //the background upload never got the staged file, nothing else would remove it
+            imageUploadPipeline.release(stagedImage);
+            throw e;
+        }
 
+        eventPublisher.publishEvent(CatalogChangedEvent.menuChanged(savedMenu.getId(), category.getId()));
 
         return Response.<MenuDto>builder()
                 .statusCode(HttpStatus.OK.value())
                 .message("Menu created successfully")
-                .data(modelMapper.map(savedMenu, MenuDto.class))
+                .data(toMenuDto(savedMenu))
                 .build();
     }
 
@@ -90,109 +120,221 @@ public class MenuServiceImpl implements MenuService {
        Category category = categoryRepository.findById(menuDTO.getCategoryId())
                 .orElseThrow(() -> new NotFoundException("Category not fount."));
 
-       String imageUrl = null;
+       String previousImageUrl = existingMenu.getImageUrl();
+       boolean previousImageRenditions = existingMenu.isImageRenditions();
        MultipartFile imageFile = menuDTO.getImageFile();
 
-        //check if new imageFile is provided
-        if (imageFile != null && !imageFile.isEmpty()) {
-            //delete old image in cloud if exists.
-            if (imageUrl != null && !imageUrl.isEmpty()) {
-                String keyName = imageUrl.substring(imageUrl.lastIndexOf("/") + 1);
-                awsS3Service.deleteFile("menus/" + keyName);
+        ImageUploadPipeline.StagedImage stagedImage = null;
+
+        Long previousCategoryId = existingMenu.getCategory() != null ? existingMenu.getCategory().getId() : null;
 
-                log.info("Deleted old menu image from s3.");
+        Menu updatedMenu;
+        try {
+            //check if new imageFile is provided, the old image stays in storage until ImageSweeper finds it unreferenced
+            if (imageFile != null && !imageFile.isEmpty()) {
+                stagedImage = imageUploadPipeline.stage(imageFile, "menus");
+
+                existingMenu.setImageUrl(imageUploadPipeline.urlOf(stagedImage.keyName()).toString());
+                existingMenu.setImageStatus(ImageStatus.PENDING);
+                existingMenu.setImageRenditions(false);
             }
 
-            //upload new image
-            String imageName = UUID.randomUUID().toString() + "_" + imageFile.getOriginalFilename();
-            URL newImageUrl = awsS3Service.uploadFile("menus/" + imageName, imageFile);
-            imageUrl = newImageUrl.toString();
-        }
+            if (menuDTO.getName() != null && !menuDTO.getName().isBlank()){
+                existingMenu.setName(menuDTO.getName());
+            }
+            if (menuDTO.getDescription() != null && !menuDTO.getDescription().isBlank()){
+                existingMenu.setDescription(menuDTO.getDescription());
+            }
+            if (menuDTO.getPrice() != null){
+                existingMenu.setPrice(menuDTO.getPrice());
+            }
 
-        if (menuDTO.getName() != null && !menuDTO.getName().isBlank()){
-            existingMenu.setName(menuDTO.getName());
-        }
-        if (menuDTO.getDescription() != null && !menuDTO.getDescription().isBlank()){
-            existingMenu.setDescription(menuDTO.getDescription());
-        }
-        if (menuDTO.getPrice() != null){
-            existingMenu.setPrice(menuDTO.getPrice());
-        }
+            existingMenu.setCategory(category);
 
-        existingMenu.setImageUrl(imageUrl);
-        existingMenu.setCategory(category);
+            updatedMenu = menuRepository.save(existingMenu);
 
-        Menu updatedMenu = menuRepository.save(existingMenu);
+            //handed off right after the save, so a failing listener cannot leave a saved menu without its upload
+            if (stagedImage != null) {
+                uploadImageInBackground(updatedMenu.getId(), category.getId(), stagedImage,
+                        updatedMenu.getImageUrl(), previousImageUrl, previousImageRenditions);
+            }
+        } catch (RuntimeException e) {
+            //the background upload never got the staged file, nothing else would remove it
+            imageUploadPipeline.release(stagedImage);
+            throw e;
+        }
+
+        eventPublisher.publishEvent(CatalogChangedEvent.menuChanged(updatedMenu.getId(), previousCategoryId, category.getId()));
 
         return Response.<MenuDto>builder()
                 .statusCode(HttpStatus.OK.value())
                 .message("Menu successfully updated.")
-                .data(modelMapper.map(updatedMenu, MenuDto.class))
+                .data(toMenuDto(updatedMenu))
                 .build();
     }
 
     @Override
-    public Response<MenuDto> getMenu(Long id ) {
+    public Response<MenuDetailDto> getMenu(Long id ) {
 
         log.info("Inside getMenu()");
 
-        Menu existingMenu = menuRepository.findById(id)
+        MenuDetailDto menuDetail = menuRepository.findDetailById(id)
                 .orElseThrow( ()-> new NotFoundException("Menu not found."));
 
-        MenuDto menuDTO = modelMapper.map(existingMenu, MenuDto.class);
+        ReviewPageDto firstPage = reviewService.getReviewPage(id, null, null);
+        menuDetail.setReviews(firstPage.getReviews());
+        menuDetail.setNextReviewCursor(firstPage.getNextCursor());
 
-        //Sort the review in descending order
-        if (menuDTO.getReviews() != null){
-            menuDTO.getReviews().sort(Comparator.comparing(Review::getId).reversed());
-        }
-
-        return Response.<MenuDto>builder()
+        return Response.<MenuDetailDto>builder()
                 .statusCode(HttpStatus.OK.value())
                 .message("Menu successfully retrieved")
-                .data(menuDTO)
+                .data(menuDetail)
                 .build();
     }
 
     @Override
-    public Response<List<MenuDto>> getMenus(Long id, String search) {
+    public Response<List<MenuSummaryDto>> getMenus(Long id, String search) {
         log.info("Inside getMenus()");
 
-        Specification<Menu> spec = buildSpecification(id, search);
-        Sort sort = Sort.by(Sort.Direction.DESC, "id");
+        String normalizedSearch = MenuCatalogCache.normalize(search);
 
-        List<Menu> menuList = menuRepository.findAll(spec, sort);
-        List<MenuDto> menuDTOS = menuList.stream()
-                .map(menu -> modelMapper.map(menu, MenuDto.class))
-                .toList();
+        List<MenuSummaryDto> menuDTOS = menuCatalogCache.get(id, normalizedSearch);
+
+        if (menuDTOS == null) {
+            long generation = menuCatalogCache.generation();
+            List<MenuSummaryDto> catalog = loadCatalog(generation);
+
+            if (normalizedSearch == null) {
+                menuDTOS = catalog.stream()
+                        .filter(menuDto -> id == null || id.equals(menuDto.getCategoryId()))
+                        .toList();
+            } else {
+                //ranked ids come from the search index, the dtos from the catalog snapshot
+                Map<Long, MenuSummaryDto> catalogById = Objects.requireNonNullElseGet(menuCatalogCache.getSnapshotById(),
+                        () -> catalog.stream().collect(Collectors.toMap(MenuSummaryDto::getId, Function.identity())));
 
-        return Response.<List<MenuDto>>builder()
+                menuDTOS = menuSearchIndex.search(normalizedSearch, id).stream()
+                        .map(catalogById::get)
+                        .filter(Objects::nonNull)
+                        .toList();
+            }
+
+            menuCatalogCache.put(generation, id, normalizedSearch, menuDTOS);
+        }
+
+        return Response.<List<MenuSummaryDto>>builder()
                 .statusCode(HttpStatus.OK.value())
                 .message("Menu retrieved.")
                 .data(menuDTOS)
                 .build();
     }
 
-    private Specification<Menu> buildSpecification(Long id, String search) {
+    @Override
+    public Response<MenuCacheStatsDto> getCacheStats() {
+        log.info("Inside getCacheStats()");
 
-        return (root, query, criteriaBuilder) -> {
-            List<Predicate> predicates = new ArrayList<>();
+        return Response.<MenuCacheStatsDto>builder()
+                .statusCode(HttpStatus.OK.value())
+                .message("Menu cache stats retrieved.")
+                .data(menuCatalogCache.stats())
+                .build();
+    }
 
-            //Add category filter if category id is provided.
-            if (id != null) {
-                predicates.add(criteriaBuilder.equal(root.get("category").get("id"), id));
-            }
+    @Override
+    public Response<List<MenuSuggestionDto>> suggestMenus(String query, int limit) {
+        log.info("Inside suggestMenus()");
+
+        int cappedLimit = Math.min(Math.max(limit, 1), MAX_SUGGESTIONS);
+
+        return Response.<List<MenuSuggestionDto>>builder()
+                .statusCode(HttpStatus.OK.value())
+                .message("Menu suggestions retrieved.")
+                .data(menuSuggestIndex.suggest(query, cappedLimit))
+                .build();
+    }
 
-            if (search != null && !search.isEmpty()) {
-                String searchTerm = "%" + search.toLowerCase() + "%";
+    @Override
+    public Response<List<PopularMenuDto>> getPopularMenus(String window, int limit) {
+        log.info("Inside getPopularMenus()");
+
+        PopularityWindow popularityWindow;
+        try {
+            popularityWindow = PopularityWindow.valueOf(window.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Unsupported popularity window: " + window);
+        }
 
-                predicates.add(criteriaBuilder.or(criteriaBuilder.like(criteriaBuilder.lower(root.get("name")), searchTerm), criteriaBuilder.like(criteriaBuilder.lower(root.get("description")), searchTerm)
+        int cappedLimit = Math.min(Math.max(limit, 1), menuPopularityRanking.maxSize());
+        List<MenuPopularityRanking.RankedMenu> ranking = menuPopularityRanking.top(popularityWindow, cappedLimit);
 
-                ));
+        Map<Long, MenuSummaryDto> catalogById = loadCatalogById();
+
+        //menus deleted since they were ordered are dropped
+        List<PopularMenuDto> popularMenus = new ArrayList<>(ranking.size());
+        for (MenuPopularityRanking.RankedMenu rankedMenu : ranking) {
+            MenuSummaryDto menu = catalogById.get(rankedMenu.menuId());
+            if (menu != null) {
+                popularMenus.add(new PopularMenuDto(menu, rankedMenu.quantity()));
             }
+        }
+
+        return Response.<List<PopularMenuDto>>builder()
+                .statusCode(HttpStatus.OK.value())
+                .message("Popular menus retrieved.")
+                .data(popularMenus)
+                .build();
+    }
+
+    @Override
+    public Response<List<MenuRecommendationDto>> getRecommendations(Set<Long> menuIds, int limit) {
+        log.info("Inside getRecommendations()");
+
+        if (menuIds == null || menuIds.isEmpty()) {
+            throw new BadRequestException("At least one menu id is required.");
+        }
 
-            return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
+        int cappedLimit = Math.min(Math.max(limit, 1), MAX_RECOMMENDATIONS);
+        Map<Long, MenuSummaryDto> catalogById = loadCatalogById();
+
+        //menus deleted since they were ordered are filtered out before the limit is applied
+        List<MenuRecommendationDto> recommendations = menuCoOccurrenceIndex
+                .recommend(menuIds, cappedLimit, catalogById::containsKey).stream()
+                .map(recommendation -> new MenuRecommendationDto(catalogById.get(recommendation.menuId()),
+                        recommendation.score(), recommendation.coOrders()))
+                .toList();
 
-        };
+        return Response.<List<MenuRecommendationDto>>builder()
+                .statusCode(HttpStatus.OK.value())
+                .message("Menu recommendations retrieved.")
+                .data(recommendations)
+                .build();
+    }
+
+    private Map<Long, MenuSummaryDto> loadCatalogById() {
+
+        Map<Long, MenuSummaryDto> catalogById = menuCatalogCache.getSnapshotById();
+
+        if (catalogById == null) {
+            List<MenuSummaryDto> catalog = loadCatalog(menuCatalogCache.generation());
+            catalogById = catalog.stream().collect(Collectors.toMap(MenuSummaryDto::getId, Function.identity()));
+        }
+
+        return catalogById;
+    }
+
+    private List<MenuSummaryDto> loadCatalog(long generation) {
+
+        List<MenuSummaryDto> catalog = menuCatalogCache.getSnapshot();
+
+        if (catalog == null) {
+            log.info("Menu catalog snapshot missing, loading from database.");
+
+            catalog = menuRepository.findAllSummaries();
+
+            menuCatalogCache.putSnapshot(generation, catalog);
+        }
+
+        return catalog;
     }
 
     @Override
@@ -203,19 +345,57 @@ public class MenuServiceImpl implements MenuService {
         Menu menuToDelete = menuRepository.findById(id)
                 .orElseThrow( ()-> new NotFoundException("Menu not found."));
 
-        //Delete the image from cloud if exists
-        String imageUrl = menuToDelete.getImageUrl();
-        if (imageUrl != null && !imageUrl.isEmpty()){
-            String keyName = imageUrl.substring(imageUrl.lastIndexOf("/") + 1);
-            awsS3Service.deleteFile("menus/" + keyName);
-            log.info("Deleted image from s3: menus/ {}", keyName);
-        }
+        //the image is left in storage, ImageSweeper removes it once no other menu references it
 
         menuRepository.deleteById(id);
 
+        eventPublisher.publishEvent(CatalogChangedEvent.menuChanged(id,
+                menuToDelete.getCategory() != null ? menuToDelete.getCategory().getId() : null));
+
         return Response.builder()
                 .statusCode(HttpStatus.OK.value())
                 .message("Menu deleted successfully.")
                 .build();
     }
+
+    //marks the menu READY once storage has the image and its renditions, or falls back to the previous image when every retry failed
+    private void uploadImageInBackground(Long menuId, Long categoryId, ImageUploadPipeline.StagedImage stagedImage,
+                                         String imageUrl, String previousImageUrl, boolean previousImageRenditions) {
+
+        imageUploadPipeline.uploadWithRenditions(stagedImage).whenComplete((renditions, error) -> {
+            try {
+                if (error == null) {
+                    menuRepository.updateImage(menuId, imageUrl, imageUrl, ImageStatus.READY, renditions);
+                } else {
+                    log.error("Upload of menu {} image failed: {}", menuId, error.getMessage());
+
+                    if (previousImageUrl != null && !previousImageUrl.isEmpty()) {
+                        menuRepository.updateImage(menuId, imageUrl, previousImageUrl, ImageStatus.READY, previousImageRenditions);
+                    } else {
+                        menuRepository.updateImage(menuId, imageUrl, imageUrl, ImageStatus.FAILED, false);
+                    }
+                }
+
+                eventPublisher.publishEvent(CatalogChangedEvent.menuChanged(menuId, categoryId));
+            } catch (RuntimeException e) {
+                log.error("Could not record image status of menu {}: {}", menuId, e.getMessage());
+            }
+        });
+    }
+
+    //field by field, mapping the entity would walk its lazy reviews and order items
+    private static MenuDto toMenuDto(Menu menu) {
+        MenuDto menuDto = new MenuDto();
+        menuDto.setId(menu.getId());
+        menuDto.setName(menu.getName());
+        menuDto.setDescription(menu.getDescription());
+        menuDto.setPrice(menu.getPrice());
+        menuDto.setCategoryId(menu.getCategory() != null ? menu.getCategory().getId() : null);
+        menuDto.setImageUrl(menu.getImageUrl());
+        menuDto.setImageStatus(menu.getImageStatus());
+        if (menu.isImageRenditions()) {
+            menuDto.setSrcset(ImageRendition.srcset(menu.getImageUrl()));
+        }
+        return menuDto;
+    }
 }
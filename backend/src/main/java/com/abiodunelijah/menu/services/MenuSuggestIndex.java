@@ -0,0 +1,302 @@
+package com.abiodunelijah.menu.services;
+
+import com.abiodunelijah.catalog.events.CatalogChangedEvent;
+import com.abiodunelijah.menu.dtos.MenuSuggestionDto;
+import com.abiodunelijah.menu.entities.Menu;
+import com.abiodunelijah.menu.repository.MenuRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+//Autocomplete over menu names: a prefix trie for what is being typed and a trigram index to correct typos.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MenuSuggestIndex {
+
+    //words shorter than this are too ambiguous to correct
+    private static final int MIN_FUZZY_LENGTH = 3;
+
+    private final MenuRepository menuRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final TrieNode root = new TrieNode();
+
+    //word -> menus whose name contains it
+    private final Map<String, Set<Long>> words = new HashMap<>();
+
+    //trigram -> words containing it
+    private final Map<String, Set<String>> trigrams = new HashMap<>();
+
+    //menu id -> display name
+    private final Map<Long, String> names = new HashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Menu> menus = menuRepository.findAll();
+
+        lock.writeLock().lock();
+        try {
+            root.children.clear();
+            root.menuIds.clear();
+            words.clear();
+            trigrams.clear();
+            names.clear();
+            menus.forEach(menu -> addMenu(menu.getId(), menu.getName()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("Menu suggest index built with {} menus and {} words", names.size(), words.size());
+    }
+
+    @Order(CatalogChangedEvent.INDEX_ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+
+        if (!event.isMenusChanged()) {
+            return;
+        }
+
+        if (event.getMenuId() == null) {
+            rebuild();
+            return;
+        }
+
+        Menu menu = menuRepository.findById(event.getMenuId()).orElse(null);
+
+        lock.writeLock().lock();
+        try {
+            removeMenu(event.getMenuId());
+            if (menu != null) {
+                addMenu(menu.getId(), menu.getName());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //Every term but the last must be a whole word, the last one is still being typed and may be a prefix.
+    public List<MenuSuggestionDto> suggest(String query, int limit) {
+
+        List<String> terms = MenuSearchIndex.tokenize(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            //menu id -> total typos corrected to reach it
+            Map<Long, Integer> candidates = null;
+
+            for (int i = 0; i < terms.size(); i++) {
+                String term = terms.get(i);
+                boolean prefix = i == terms.size() - 1;
+
+                Map<Long, Integer> termMatches = exactMatches(term, prefix);
+                if (termMatches.size() < limit) {
+                    fuzzyMatches(term, prefix).forEach((menuId, distance) -> termMatches.merge(menuId, distance, Math::min));
+                }
+
+                if (candidates == null) {
+                    candidates = termMatches;
+                } else {
+                    candidates.keySet().retainAll(termMatches.keySet());
+                    candidates.replaceAll((menuId, distance) -> distance + termMatches.get(menuId));
+                }
+
+                if (candidates.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            return candidates.entrySet().stream()
+                    .map(candidate -> MenuSuggestionDto.builder()
+                            .id(candidate.getKey())
+                            .name(names.get(candidate.getKey()))
+                            .distance(candidate.getValue())
+                            .build())
+                    .sorted(Comparator.comparingInt(MenuSuggestionDto::getDistance)
+                            .thenComparingInt(suggestion -> suggestion.getName().length())
+                            .thenComparing(MenuSuggestionDto::getName))
+                    .limit(limit)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Long, Integer> exactMatches(String term, boolean prefix) {
+
+        Map<Long, Integer> matches = new HashMap<>();
+
+        if (prefix) {
+            TrieNode node = root;
+            for (int i = 0; i < term.length() && node != null; i++) {
+                node = node.children.get(term.charAt(i));
+            }
+            if (node != null) {
+                node.menuIds.forEach(menuId -> matches.put(menuId, 0));
+            }
+        } else {
+            words.getOrDefault(term, Set.of()).forEach(menuId -> matches.put(menuId, 0));
+        }
+
+        return matches;
+    }
+
+    private Map<Long, Integer> fuzzyMatches(String term, boolean prefix) {
+
+        Map<Long, Integer> matches = new HashMap<>();
+
+        if (term.length() < MIN_FUZZY_LENGTH) {
+            return matches;
+        }
+
+        int maxDistance = term.length() <= 4 ? 1 : 2;
+
+        Set<String> candidateWords = new HashSet<>();
+        for (String trigram : trigramsOf(term)) {
+            candidateWords.addAll(trigrams.getOrDefault(trigram, Set.of()));
+        }
+
+        for (String word : candidateWords) {
+            int distance = editDistance(term, word, prefix);
+            if (distance > 0 && distance <= maxDistance) {
+                words.get(word).forEach(menuId -> matches.merge(menuId, distance, Math::min));
+            }
+        }
+
+        return matches;
+    }
+
+    private void addMenu(Long menuId, String name) {
+
+        if (name == null) {
+            return;
+        }
+
+        names.put(menuId, name);
+
+        for (String word : new LinkedHashSet<>(MenuSearchIndex.tokenize(name))) {
+            TrieNode node = root;
+            for (char c : word.toCharArray()) {
+                node = node.children.computeIfAbsent(c, key -> new TrieNode());
+                node.menuIds.add(menuId);
+            }
+
+            Set<Long> menuIds = words.computeIfAbsent(word, key -> new HashSet<>());
+            if (menuIds.isEmpty()) {
+                trigramsOf(word).forEach(trigram -> trigrams.computeIfAbsent(trigram, key -> new HashSet<>()).add(word));
+            }
+            menuIds.add(menuId);
+        }
+    }
+
+    private void removeMenu(Long menuId) {
+
+        String name = names.remove(menuId);
+        if (name == null) {
+            return;
+        }
+
+        for (String word : new LinkedHashSet<>(MenuSearchIndex.tokenize(name))) {
+            removeFromTrie(root, word, 0, menuId);
+
+            Set<Long> menuIds = words.get(word);
+            if (menuIds != null && menuIds.remove(menuId) && menuIds.isEmpty()) {
+                words.remove(word);
+                for (String trigram : trigramsOf(word)) {
+                    Set<String> trigramWords = trigrams.get(trigram);
+                    if (trigramWords != null && trigramWords.remove(word) && trigramWords.isEmpty()) {
+                        trigrams.remove(trigram);
+                    }
+                }
+            }
+        }
+    }
+
+    private void removeFromTrie(TrieNode node, String word, int depth, Long menuId) {
+        if (depth == word.length()) {
+            return;
+        }
+
+        TrieNode child = node.children.get(word.charAt(depth));
+        if (child == null) {
+            return;
+        }
+
+        child.menuIds.remove(menuId);
+        removeFromTrie(child, word, depth + 1, menuId);
+
+        if (child.menuIds.isEmpty()) {
+            node.children.remove(word.charAt(depth));
+        }
+    }
+
+    private static Set<String> trigramsOf(String word) {
+        String padded = "$" + word + "$";
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            result.add(padded.substring(i, i + 3));
+        }
+        return result;
+    }
+
+    //Optimal string alignment distance; in prefix mode the term is compared against the closest prefix of the word.
+    static int editDistance(String term, String word, boolean prefix) {
+
+        int[][] dp = new int[term.length() + 1][word.length() + 1];
+
+        for (int i = 0; i <= term.length(); i++) {
+            dp[i][0] = i;
+        }
+        for (int j = 0; j <= word.length(); j++) {
+            dp[0][j] = j;
+        }
+
+        for (int i = 1; i <= term.length(); i++) {
+            for (int j = 1; j <= word.length(); j++) {
+                int cost = term.charAt(i - 1) == word.charAt(j - 1) ? 0 : 1;
+
+                dp[i][j] = Math.min(Math.min(dp[i - 1][j] + 1, dp[i][j - 1] + 1), dp[i - 1][j - 1] + cost);
+
+                if (i > 1 && j > 1 && term.charAt(i - 1) == word.charAt(j - 2) && term.charAt(i - 2) == word.charAt(j - 1)) {
+                    dp[i][j] = Math.min(dp[i][j], dp[i - 2][j - 2] + 1);
+                }
+            }
+        }
+
+        if (!prefix) {
+            return dp[term.length()][word.length()];
+        }
+
+        int best = Integer.MAX_VALUE;
+        for (int j = 0; j <= word.length(); j++) {
+            best = Math.min(best, dp[term.length()][j]);
+        }
+        return best;
+    }
+
+    private static class TrieNode {
+        private final Map<Character, TrieNode> children = new HashMap<>();
+
+        //menus with a name word starting with the path to this node
+        private final Set<Long> menuIds = new HashSet<>();
+    }
+}
@@ -4,6 +4,7 @@ package com.abiodunelijah.order.controllers;
 import com.abiodunelijah.enums.OrderStatus;
 import com.abiodunelijah.order.dtos.OrderDto;
 import com.abiodunelijah.order.dtos.OrderItemDto;
+import com.abiodunelijah.order.services.CheckoutIdempotencyStore;
 import com.abiodunelijah.order.services.OrderService;
 import com.abiodunelijah.response.Response;
 import lombok.RequiredArgsConstructor;
@@ -20,11 +21,12 @@ import java.util.List;
 public class OrderController {
 
     private final OrderService orderService;
+    private final CheckoutIdempotencyStore checkoutIdempotencyStore;
 
     @PostMapping("/checkout")
     @PreAuthorize("hasAuthority('CUSTOMER')")
-    public ResponseEntity<Response<?>> checkout(){
-        return ResponseEntity.ok(orderService.placeOrderFromCart());
+    public ResponseEntity<Response<?>> checkout(@RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey){
+        return ResponseEntity.ok(checkoutIdempotencyStore.placeOnce(idempotencyKey, orderService::placeOrderFromCart));
     }
 
     @GetMapping("/{id}")
@@ -0,0 +1,35 @@
+package com.abiodunelijah.order.events;
+
+import com.abiodunelijah.order.dtos.OrderItemDto;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class OrderPlacedEvent {
+
+    private final Long orderId;
+
+    private final LocalDateTime orderDate;
+
+    //total quantity ordered per menu id
+    private final Map<Long, Integer> quantities;
+
+    public static OrderPlacedEvent of(Long orderId, LocalDateTime orderDate, List<OrderItemDto> orderItems) {
+
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (OrderItemDto orderItem : orderItems) {
+            quantities.merge(orderItem.getMenuId(), orderItem.getQuantity(), Integer::sum);
+        }
+
+        return new OrderPlacedEvent(orderId, orderDate, Collections.unmodifiableMap(quantities));
+    }
+}
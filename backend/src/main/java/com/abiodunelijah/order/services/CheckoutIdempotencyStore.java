@@ -0,0 +1,124 @@
+package com.abiodunelijah.order.services;
+
+import com.abiodunelijah.auth_users.services.UserService;
+import com.abiodunelijah.exceptions.BadRequestException;
+import com.abiodunelijah.exceptions.ConflictException;
+import com.abiodunelijah.response.Response;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+//Checkouts sent with an Idempotency-Key run once per customer and key: a duplicate arriving while the first is
+//still running waits for its result, one arriving later gets the stored response back until the entry expires.
+//Entries live in this instance only, like the memory cart store.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CheckoutIdempotencyStore {
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final UserService userService;
+
+    private final ConcurrentHashMap<String, Attempt> attempts = new ConcurrentHashMap<>();
+
+    @Value("${order.idempotency.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    @Value("${order.idempotency.wait-seconds:30}")
+    private long waitSeconds;
+
+    public Response<?> placeOnce(String idempotencyKey, Supplier<Response<?>> checkout) {
+
+        log.info("Inside placeOnce()");
+
+        if (idempotencyKey == null) {
+            return checkout.get();
+        }
+
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException("Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+
+        //keys are scoped to the customer, so one customer's key never replays another's order
+        String key = userService.getCurrentLoggedInUserId() + ":" + idempotencyKey;
+
+        while (true) {
+            Attempt attempt = new Attempt();
+            Attempt existing = attempts.putIfAbsent(key, attempt);
+
+            if (existing == null) {
+                return run(key, attempt, checkout);
+            }
+            if (existing.isExpired(System.currentTimeMillis())) {
+                attempts.remove(key, existing);
+                continue;
+            }
+
+            log.info("Checkout with Idempotency-Key {} already placed or in progress, returning its result", idempotencyKey);
+            return await(existing);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${order.idempotency.sweep-interval-ms:60000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        attempts.values().removeIf(attempt -> attempt.isExpired(now));
+    }
+
+    private Response<?> run(String key, Attempt attempt, Supplier<Response<?>> checkout) {
+
+        Response<?> response;
+        try {
+            response = checkout.get();
+        } catch (RuntimeException e) {
+            //the checkout transaction rolled back, a retry with the same key runs it again;
+            //duplicates already waiting get the same error
+            attempts.remove(key, attempt);
+            attempt.result.completeExceptionally(e);
+            throw e;
+        }
+
+        attempt.expiresAt = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(ttlMinutes);
+        attempt.result.complete(response);
+        return response;
+    }
+
+    private Response<?> await(Attempt attempt) {
+
+        try {
+            return attempt.result.get(waitSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            throw new ConflictException("A checkout with this Idempotency-Key is still in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("A checkout with this Idempotency-Key is still in progress");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static final class Attempt {
+
+        private final CompletableFuture<Response<?>> result = new CompletableFuture<>();
+
+        //set once the checkout succeeded, an attempt still running never expires
+        private volatile long expiresAt = Long.MAX_VALUE;
+
+        private boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
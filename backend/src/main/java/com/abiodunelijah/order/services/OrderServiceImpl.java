@@ -1,12 +1,11 @@
 package com.abiodunelijah.order.services;
 
 
+import com.abiodunelijah.auth_users.dtos.UserDto;
 import com.abiodunelijah.auth_users.entities.User;
 import com.abiodunelijah.auth_users.services.UserService;
-import com.abiodunelijah.cart.entities.Cart;
-import com.abiodunelijah.cart.entities.CartItem;
-import com.abiodunelijah.cart.repository.CartRepository;
-import com.abiodunelijah.cart.services.CartService;
+import com.abiodunelijah.cart.repository.CartItemRepository;
+import com.abiodunelijah.cart.services.CartStore;
 import com.abiodunelijah.email_notification.dtos.NotificationDto;
 import com.abiodunelijah.email_notification.services.NotificationService;
 import com.abiodunelijah.enums.OrderStatus;
@@ -18,6 +17,7 @@ import com.abiodunelijah.order.dtos.OrderDto;
 import com.abiodunelijah.order.dtos.OrderItemDto;
 import com.abiodunelijah.order.entities.Order;
 import com.abiodunelijah.order.entities.OrderItem;
+import com.abiodunelijah.order.events.OrderPlacedEvent;
 import com.abiodunelijah.order.repository.OrderItemRepository;
 import com.abiodunelijah.order.repository.OrderRepository;
 import com.abiodunelijah.response.Response;
@@ -25,19 +25,21 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 
@@ -46,14 +48,33 @@ import java.util.Locale;
 @Slf4j
 public class OrderServiceImpl implements OrderService {
 
+    //one statement turns the locked cart into an order whatever its size: the order row, its items copied from
+    //cart_items, the emptied cart and the reset totals; returns the items with the menu names for the confirmation email
+    private static final String CHECKOUT_SQL =
+            "WITH cart AS (SELECT id FROM carts WHERE user_id = ?), " +
+            "lines AS (SELECT ci.id, ci.menu_id, ci.quantity, ci.price_per_unit, ci.sub_total " +
+            "FROM cart_items ci JOIN cart ON cart.id = ci.cart_id), " +
+            "created AS (INSERT INTO orders (user_id, order_date, total_amount, order_status, payment_status) " +
+            "SELECT ?, ?, SUM(l.sub_total), 'INITIALIZED', 'PENDING' FROM lines l HAVING COUNT(*) > 0 RETURNING id), " +
+            "items AS (INSERT INTO order_items (order_id, menu_id, quantity, price_per_unit, subtotal) " +
+            "SELECT created.id, l.menu_id, l.quantity, l.price_per_unit, l.sub_total FROM created, lines l ORDER BY l.id " +
+            "RETURNING id, order_id, menu_id, quantity, price_per_unit, subtotal), " +
+            "deleted AS (DELETE FROM cart_items ci USING lines l WHERE ci.id = l.id), " +
+            "totals AS (UPDATE carts c SET total_cents = 0, item_count = 0, version = c.version + 1 " +
+            "FROM cart, created WHERE c.id = cart.id) " +
+            "SELECT i.order_id, i.menu_id, m.name AS menu_name, i.quantity, i.price_per_unit, i.subtotal " +
+            "FROM items i JOIN menus m ON m.id = i.menu_id ORDER BY i.id";
+
     private final OrderRepository orderRepository;
     private final OrderItemRepository orderItemRepository;
     private final UserService userService;
     private final NotificationService notificationService;
     private final ModelMapper modelMapper;
     private final TemplateEngine templateEngine;
-    private final CartService cartService;
-    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final CartStore cartStore;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
 
     @Value("${base.payment.link}")
     private String basedPaymentLink;
@@ -66,81 +87,63 @@ public class OrderServiceImpl implements OrderService {
 
         User customer = userService.getCurrentLoggedInUser();
 
-        log.info("user passed");
-
         String deliveryAddress = customer.getAddress();
 
-        log.info("deliveryAddress passed");
-
         if (deliveryAddress == null) {
             throw new NotFoundException("Delivery Address Not present for the user");
         }
-        Cart cart = cartRepository.findByUser_Id(customer.getId())
-                .orElseThrow(()-> new NotFoundException("Cart not found for the user" ));
-
-        log.info("cart passed");
-
-        List<CartItem> cartItems = cart.getCartItems();
-
-        log.info("cartItems passed");
-
-        if (cartItems == null || cartItems.isEmpty()) throw new BadRequestException("Cart is empty");
-
-        List<OrderItem> orderItems = new ArrayList<>();
-
-        BigDecimal totalAmount = BigDecimal.ZERO;
+        //carts kept in memory are written out first, the order is built from cart_items
+        cartStore.flush(customer.getId());
 
-        log.info("totalAmount passed");
-
-        for (CartItem cartItem: cartItems){
-
-            OrderItem orderItem = OrderItem.builder()
-                    .menu(cartItem.getMenu())
-                    .quantity(cartItem.getQuantity())
-                    .pricePerUnit(cartItem.getPricePerUnit())
-                    .subtotal(cartItem.getSubTotal())
-                    .build();
-            orderItems.add(orderItem);
-            totalAmount = totalAmount.add(orderItem.getSubtotal());
+        //taps lock the cart row before touching a line, so the lines stay as read until commit
+        if (cartItemRepository.lockCart(customer.getId()) == 0) {
+            throw new NotFoundException("Cart not found for the user");
         }
 
-        log.info("orderItem adding passed");
-
-        Order order = Order.builder()
-                .user(customer)
-                .orderItems(orderItems)
-                .orderDate(LocalDateTime.now())
-                .totalAmount(totalAmount)
-                .orderStatus(OrderStatus.INITIALIZED)
-                .paymentStatus(PaymentStatus.PENDING)
-                .build();
-
-        log.info("order build passed");
+        LocalDateTime orderDate = LocalDateTime.now();
 
-        Order savedOrder = orderRepository.save(order); //save order
+        List<CheckedOutItem> checkedOut = jdbcTemplate.query(CHECKOUT_SQL, (resultSet, rowNum) -> {
+            MenuDto menu = new MenuDto();
+            menu.setId(resultSet.getLong("menu_id"));
+            menu.setName(resultSet.getString("menu_name"));
 
-        log.info("order saved passed");
+            OrderItemDto orderItem = new OrderItemDto();
+            orderItem.setMenuId(menu.getId());
+            orderItem.setMenu(menu);
+            orderItem.setQuantity(resultSet.getInt("quantity"));
+            orderItem.setPricePerUnit(resultSet.getBigDecimal("price_per_unit"));
+            orderItem.setSubtotal(resultSet.getBigDecimal("subtotal"));
+            return new CheckedOutItem(resultSet.getLong("order_id"), orderItem);
+        }, customer.getId(), Timestamp.valueOf(orderDate), customer.getId());
 
-        orderItems.forEach(orderItem -> orderItem.setOrder(savedOrder));
+        //nothing was written, the order row is only inserted when the cart has lines
+        if (checkedOut.isEmpty()) throw new BadRequestException("Cart is empty");
 
-        orderItemRepository.saveAll(orderItems); //save order item
+        Long orderId = checkedOut.getFirst().orderId();
+        List<OrderItemDto> orderItems = checkedOut.stream().map(CheckedOutItem::orderItem).toList();
 
-        log.info("order items saved");
+        BigDecimal totalAmount = orderItems.stream()
+                .map(OrderItemDto::getSubtotal)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
 
-        // Clear the user's cart after the order is placed
-        cartService.clearShoppingCart();
+        OrderPlacedEvent orderPlaced = OrderPlacedEvent.of(orderId, orderDate, orderItems);
+        eventPublisher.publishEvent(orderPlaced);
 
-        log.info("shopping cart cleared");
+        //the lines are already gone from cart_items, a memory store takes the ordered quantities out of its copy after commit
+        cartStore.checkedOut(customer.getId(), orderPlaced.getQuantities());
 
-        OrderDto orderDTO = modelMapper.map(savedOrder, OrderDto.class);
-
-        log.info("model mapper mapped savedOrder to OrderDto");
+        OrderDto orderDTO = new OrderDto();
+        orderDTO.setId(orderId);
+        orderDTO.setUser(modelMapper.map(customer, UserDto.class));
+        orderDTO.setOrderDate(orderDate);
+        orderDTO.setTotalAmount(totalAmount);
+        orderDTO.setOrderStatus(OrderStatus.INITIALIZED);
+        orderDTO.setPaymentStatus(PaymentStatus.PENDING);
+        orderDTO.setOrderItems(orderItems);
 
         // Send email notifications
         sendOrderConfirmationEmail(customer, orderDTO);
 
-        log.info("building response to send");
-
         return Response.builder()
                 .statusCode(HttpStatus.OK.value())
                 .message("Your order has been received! We've sent a secure payment link to your email. Please proceed for payment to confirm your order.")
@@ -266,6 +269,9 @@ public class OrderServiceImpl implements OrderService {
                 .build();
     }
 
+    private record CheckedOutItem(Long orderId, OrderItemDto orderItem) {
+    }
+
     private void sendOrderConfirmationEmail(User customer, OrderDto orderDTO){
 
         String subject =  "Your Order Confirmation - Order #" + orderDTO.getId();
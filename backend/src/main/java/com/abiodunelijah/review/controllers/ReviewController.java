@@ -1,16 +1,17 @@
 package com.abiodunelijah.review.controllers;
 
 
+import com.abiodunelijah.catalog.services.CatalogVersionService;
 import com.abiodunelijah.response.Response;
 import com.abiodunelijah.review.dtos.ReviewDto;
+import com.abiodunelijah.review.dtos.ReviewPageDto;
 import com.abiodunelijah.review.services.ReviewService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
-
-import java.util.List;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/reviews")
@@ -18,6 +19,7 @@ import java.util.List;
 public class ReviewController {
 
     private final ReviewService reviewService;
+    private final CatalogVersionService catalogVersionService;
 
     @PostMapping
     @PreAuthorize("isAuthenticated()")
@@ -28,15 +30,19 @@ public class ReviewController {
     }
 
     @GetMapping("/menu-item/{menuId}")
-    public ResponseEntity<Response<List<ReviewDto>>> getReviewsForMenu(
-            @PathVariable Long menuId) {
-        return ResponseEntity.ok(reviewService.getReviewsForMenu(menuId));
+    public ResponseEntity<Response<ReviewPageDto>> getReviewsForMenu(
+            @PathVariable Long menuId,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Integer size,
+            WebRequest webRequest) {
+        return catalogVersionService.conditionalResponse(webRequest, () -> reviewService.getReviewsForMenu(menuId, cursor, size));
     }
 
     @GetMapping("/menu-item/average/{menuId}")
     public ResponseEntity<Response<Double>> getAverageRating(
-            @PathVariable Long menuId) {
-        return ResponseEntity.ok(reviewService.getAverageRating(menuId));
+            @PathVariable Long menuId,
+            WebRequest webRequest) {
+        return catalogVersionService.conditionalResponse(webRequest, () -> reviewService.getAverageRating(menuId));
     }
 
 }
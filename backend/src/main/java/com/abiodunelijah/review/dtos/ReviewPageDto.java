@@ -0,0 +1,22 @@
+package com.abiodunelijah.review.dtos;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ReviewPageDto {
+
+    private List<ReviewDto> reviews;
+
+    //id of the last review on the page, pass back as the cursor to get the next page, null on the last page
+    private Long nextCursor;
+
+    private boolean hasMore;
+}
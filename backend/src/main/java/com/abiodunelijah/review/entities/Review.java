@@ -11,7 +11,7 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "menus")
+@Table(name = "reviews", indexes = @Index(name = "idx_reviews_menu_id_created_at_id", columnList = "menu_id, created_at DESC, id DESC"))
 @AllArgsConstructor
 @NoArgsConstructor
 @Data
@@ -19,7 +19,8 @@ import java.time.LocalDateTime;
 public class Review {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reviews_seq")
+    @SequenceGenerator(name = "reviews_seq", sequenceName = "reviews_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
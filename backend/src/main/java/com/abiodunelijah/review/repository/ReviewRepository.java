@@ -1,6 +1,8 @@
 package com.abiodunelijah.review.repository;
 
+import com.abiodunelijah.review.dtos.ReviewDto;
 import com.abiodunelijah.review.entities.Review;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -9,12 +11,20 @@ import java.util.List;
 
 public interface ReviewRepository extends JpaRepository<Review,Long> {
 
-
-    List<Review> findByMenuIdOrderByIdDesc(Long menuId);
-
-
-    @Query("SELECT AVG (r.rating) FROM Review r WHERE r.menu.id = :menuId")
-    Double calculateAverageRatingByMenuId(@Param("menuId") Long menuId);
+    //keyset pages served by the (menu_id, created_at desc, id desc) index, newest first;
+    //pooled ids are not handed out in creation order, the id only breaks ties
+    @Query("SELECT new com.abiodunelijah.review.dtos.ReviewDto(r.id, r.orderId, m.id, u.name, r.rating, r.comment, m.name, r.createdAt) " +
+            "FROM Review r JOIN r.menu m JOIN r.user u " +
+            "WHERE m.id = :menuId " +
+            "ORDER BY r.createdAt DESC, r.id DESC")
+    List<ReviewDto> findFirstPageByMenuId(@Param("menuId") Long menuId, Limit limit);
+
+    @Query("SELECT new com.abiodunelijah.review.dtos.ReviewDto(r.id, r.orderId, m.id, u.name, r.rating, r.comment, m.name, r.createdAt) " +
+            "FROM Review r JOIN r.menu m JOIN r.user u " +
+            "WHERE m.id = :menuId AND (r.createdAt < (SELECT c.createdAt FROM Review c WHERE c.id = :cursor) " +
+            "OR (r.createdAt = (SELECT c.createdAt FROM Review c WHERE c.id = :cursor) AND r.id < :cursor)) " +
+            "ORDER BY r.createdAt DESC, r.id DESC")
+    List<ReviewDto> findPageByMenuIdBefore(@Param("menuId") Long menuId, @Param("cursor") Long cursor, Limit limit);
 
     @Query("SELECT CASE WHEN COUNT (r) > 0 THEN true ELSE false END " +
     "FROM Review r " +
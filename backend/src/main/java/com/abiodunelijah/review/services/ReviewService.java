@@ -3,11 +3,11 @@ package com.abiodunelijah.review.services;
 
 import com.abiodunelijah.response.Response;
 import com.abiodunelijah.review.dtos.ReviewDto;
-
-import java.util.List;
+import com.abiodunelijah.review.dtos.ReviewPageDto;
 
 public interface ReviewService {
     Response<ReviewDto> createReview(ReviewDto reviewDTO);
-    Response<List<ReviewDto>> getReviewsForMenu(Long menuId);
+    Response<ReviewPageDto> getReviewsForMenu(Long menuId, Long cursor, Integer size);
+    ReviewPageDto getReviewPage(Long menuId, Long cursor, Integer size);
     Response<Double> getAverageRating(Long menuId);
 }
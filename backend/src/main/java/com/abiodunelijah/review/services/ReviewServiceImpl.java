@@ -3,21 +3,27 @@ package com.abiodunelijah.review.services;
 
 import com.abiodunelijah.auth_users.entities.User;
 import com.abiodunelijah.auth_users.services.UserService;
+import com.abiodunelijah.catalog.events.CatalogChangedEvent;
 import com.abiodunelijah.enums.OrderStatus;
 import com.abiodunelijah.exceptions.BadRequestException;
 import com.abiodunelijah.exceptions.NotFoundException;
 import com.abiodunelijah.menu.entities.Menu;
+import com.abiodunelijah.menu.entities.MenuRating;
 import com.abiodunelijah.menu.repository.MenuRepository;
 import com.abiodunelijah.order.entities.Order;
 import com.abiodunelijah.order.repository.OrderItemRepository;
 import com.abiodunelijah.order.repository.OrderRepository;
 import com.abiodunelijah.response.Response;
 import com.abiodunelijah.review.dtos.ReviewDto;
+import com.abiodunelijah.review.dtos.ReviewPageDto;
 import com.abiodunelijah.review.entities.Review;
 import com.abiodunelijah.review.repository.ReviewRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -36,6 +42,13 @@ public class ReviewServiceImpl implements ReviewService {
     private final OrderItemRepository orderItemRepository;
     private final ModelMapper modelMapper;
     private final UserService userService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${review.page.default-size:10}")
+    private int defaultPageSize;
+
+    @Value("${review.page.max-size:50}")
+    private int maxPageSize;
 
 
     @Override
@@ -100,6 +113,12 @@ public class ReviewServiceImpl implements ReviewService {
 
         Review savedReview = reviewRepository.save(review);
 
+        // Update the menu's rating summary in the same transaction
+        menuRepository.addRating(menu.getId(), savedReview.getRating(), MenuRating.toStars(savedReview.getRating()));
+
+        eventPublisher.publishEvent(CatalogChangedEvent.menuChanged(menu.getId(),
+                menu.getCategory() != null ? menu.getCategory().getId() : null));
+
         // Return response with review data
         ReviewDto responseDto = modelMapper.map(savedReview, ReviewDto.class);
         responseDto.setUsername(user.getName());
@@ -114,33 +133,49 @@ public class ReviewServiceImpl implements ReviewService {
     }
 
     @Override
-    public Response<List<ReviewDto>> getReviewsForMenu(Long menuId) {
+    public Response<ReviewPageDto> getReviewsForMenu(Long menuId, Long cursor, Integer size) {
         log.info("Inside getReviewsForMenu()");
 
-        List<Review> reviews = reviewRepository.findByMenuIdOrderByIdDesc(menuId);
-
-        List<ReviewDto> reviewDTOs = reviews.stream()
-                .map(review -> modelMapper.map(review, ReviewDto.class))
-                .toList();
-
-        return Response.<List<ReviewDto>>builder()
+        return Response.<ReviewPageDto>builder()
                 .statusCode(HttpStatus.OK.value())
                 .message("Reviews retrieved successfully")
-                .data(reviewDTOs)
+                .data(getReviewPage(menuId, cursor, size))
                 .build();
 
     }
 
+    @Override
+    public ReviewPageDto getReviewPage(Long menuId, Long cursor, Integer size) {
+
+        int pageSize = size == null ? defaultPageSize : Math.min(Math.max(size, 1), maxPageSize);
+
+        //fetch one extra row to know whether another page exists
+        Limit limit = Limit.of(pageSize + 1);
+
+        List<ReviewDto> reviews = cursor == null
+                ? reviewRepository.findFirstPageByMenuId(menuId, limit)
+                : reviewRepository.findPageByMenuIdBefore(menuId, cursor, limit);
+
+        boolean hasMore = reviews.size() > pageSize;
+        List<ReviewDto> page = hasMore ? reviews.subList(0, pageSize) : reviews;
+
+        return ReviewPageDto.builder()
+                .reviews(page)
+                .nextCursor(hasMore ? page.getLast().getId() : null)
+                .hasMore(hasMore)
+                .build();
+    }
+
     @Override
     public Response<Double> getAverageRating(Long menuId) {
         log.info("Inside getAverageRating()");
 
-        Double averageRating = reviewRepository.calculateAverageRatingByMenuId(menuId);
+        Double averageRating = menuRepository.findAverageRatingById(menuId).orElse(0.0);
 
         return Response.<Double>builder()
                 .statusCode(HttpStatus.OK.value())
                 .message("Average rating retrieved successfully")
-                .data(averageRating != null ? averageRating : 0.0)
+                .data(averageRating)
                 .build();
     }
 }
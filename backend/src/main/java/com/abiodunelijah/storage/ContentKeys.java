@@ -0,0 +1,45 @@
+package com.abiodunelijah.storage;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+//Object keys derived from the SHA-256 of the content: the same bytes always land on the same key,
+//so re-uploads are detected and the stored objects never change.
+public final class ContentKeys {
+
+    //safe to cache forever, a different image always gets a different key
+    public static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    private static final Pattern EXTENSION = Pattern.compile("[a-z0-9]{1,5}");
+
+    private ContentKeys() {
+    }
+
+    public static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    //e.g. menus/9f86d081884c7d65...0f00a08.jpg, the extension is kept so content types can still be guessed
+    public static String keyFor(String prefix, byte[] digest, String originalFilename) {
+        return prefix + "/" + HexFormat.of().formatHex(digest) + extensionOf(originalFilename);
+    }
+
+    private static String extensionOf(String filename) {
+        if (filename == null) {
+            return "";
+        }
+        int dot = filename.lastIndexOf('.');
+        if (dot < 0) {
+            return "";
+        }
+        String extension = filename.substring(dot + 1).toLowerCase(Locale.ROOT);
+        return EXTENSION.matcher(extension).matches() ? "." + extension : "";
+    }
+}
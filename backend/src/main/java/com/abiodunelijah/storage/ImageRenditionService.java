@@ -0,0 +1,176 @@
+package com.abiodunelijah.storage;
+
+import com.abiodunelijah.enums.ImageRendition;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+//Resizes uploaded images into the ImageRendition sizes with the JDK's own ImageIO, no external image service.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ImageRenditionService {
+
+    private final StorageService storageService;
+
+    //decoding and scaling is CPU and memory heavy, so it gets a small pool of platform threads
+    private final ExecutorService renditionExecutor = Executors.newFixedThreadPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2),
+            Thread.ofPlatform().name("image-rendition-", 0).daemon(true).factory());
+
+    @Value("${image.renditions.jpeg-quality:0.8}")
+    private float jpegQuality;
+
+    @Value("${image.renditions.max-source-pixels:40000000}")
+    private long maxSourcePixels;
+
+    //true when every rendition was stored, false when the source could not be decoded
+    public boolean createRenditions(String originalKey, Path source) {
+
+        //content-addressed keys: when the image was stored before, so were its renditions
+        if (renditionsStored(originalKey)) {
+            return true;
+        }
+
+        try {
+            return renditionExecutor.submit(() -> render(originalKey, source)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            log.error("Could not create renditions of {}: {}", originalKey, e.getCause().getMessage());
+            return false;
+        }
+    }
+
+    private boolean renditionsStored(String originalKey) {
+        for (ImageRendition rendition : ImageRendition.values()) {
+            if (!storageService.touch(rendition.keyOf(originalKey))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renditionExecutor.shutdownNow();
+    }
+
+    private boolean render(String originalKey, Path source) throws IOException {
+
+        BufferedImage original = decode(source);
+        if (original == null) {
+            log.warn("Skipping renditions of {}, the image could not be decoded", originalKey);
+            return false;
+        }
+
+        for (ImageRendition rendition : ImageRendition.values()) {
+            byte[] jpeg = encodeJpeg(scaleToWidth(original, rendition.getWidth()));
+            storageService.uploadFile(rendition.keyOf(originalKey), new ByteArrayInputStream(jpeg), jpeg.length, "image/jpeg");
+        }
+
+        log.info("Stored {} renditions of {}", ImageRendition.values().length, originalKey);
+        return true;
+    }
+
+    //checks the header dimensions first so a huge image is rejected before its pixels are allocated
+    private BufferedImage decode(Path source) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxSourcePixels) {
+                    log.warn("Image of {} pixels exceeds the rendition limit of {}", pixels, maxSourcePixels);
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    //halves repeatedly before the last step, which keeps bilinear scaling from aliasing on big downsizes
+    private BufferedImage scaleToWidth(BufferedImage image, int targetWidth) {
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int finalWidth = Math.min(targetWidth, width);
+        int finalHeight = Math.max(1, (int) Math.round((double) height * finalWidth / width));
+
+        BufferedImage current = image;
+        do {
+            width = Math.max(finalWidth, width / 2);
+            height = Math.max(finalHeight, height / 2);
+            current = draw(current, width, height);
+        } while (width > finalWidth);
+
+        return current;
+    }
+
+    //jpeg has no alpha, transparent areas are flattened onto white
+    private BufferedImage draw(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(jpegQuality);
+        param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,253 @@
+package com.abiodunelijah.storage;
+
+import com.abiodunelijah.enums.ImageRendition;
+import com.abiodunelijah.exceptions.BadRequestException;
+import com.abiodunelijah.response.Response;
+import com.abiodunelijah.storage.dtos.ImageSweepReportDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+//Reconciles storage with the database: objects under menus/ and profile/ that no menu or user points at any more
+//are deleted in batches, away from the request path. Replaces the per-request deletes of replaced or removed images,
+//which also had to guard against shared (content-addressed) objects.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ImageSweeper {
+
+    private static final String MENU_PREFIX = "menus";
+    private static final String PROFILE_PREFIX = "profile";
+
+    private static final String REFERENCED_MENU_IMAGES_SQL = "SELECT image_url FROM menus WHERE image_url IS NOT NULL";
+    private static final String REFERENCED_PROFILE_IMAGES_SQL = "SELECT profile_url FROM users WHERE profile_url IS NOT NULL";
+
+    //checked again right before a batch is deleted, an upload may have reused one of the objects in the meantime;
+    //the second column is the key prefix of the table, matching MENU_PREFIX and PROFILE_PREFIX
+    private static final String STILL_REFERENCED_SQL =
+            "SELECT image_url, 'menus' FROM menus WHERE image_url LIKE ANY (?) " +
+            "UNION ALL SELECT profile_url, 'profile' FROM users WHERE profile_url LIKE ANY (?)";
+
+    private static final int DELETE_BATCH_SIZE = 1000;
+    private static final int ORPHAN_SAMPLE_SIZE = 100;
+
+    private final StorageService storageService;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Value("${image.sweeper.enabled:true}")
+    private boolean enabled;
+
+    @Value("${image.sweeper.dry-run:true}")
+    private boolean scheduledDryRun;
+
+    @Value("${image.sweeper.min-age-minutes:60}")
+    private long minAgeMinutes;
+
+    @Scheduled(cron = "${image.sweeper.cron:0 30 3 * * *}")
+    public void sweepOnSchedule() {
+
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            runExclusively(scheduledDryRun);
+        } catch (BadRequestException e) {
+            log.info("Skipping scheduled image sweep: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Image sweep failed: {}", e.getMessage(), e);
+        }
+    }
+
+    public Response<ImageSweepReportDto> sweep(boolean dryRun) {
+
+        log.info("Inside sweep()");
+
+        ImageSweepReportDto report = runExclusively(dryRun);
+
+        return Response.<ImageSweepReportDto>builder()
+                .statusCode(HttpStatus.OK.value())
+                .message(dryRun ? "Image sweep report generated." : "Orphaned images deleted.")
+                .data(report)
+                .build();
+    }
+
+    private ImageSweepReportDto runExclusively(boolean dryRun) {
+
+        if (!running.compareAndSet(false, true)) {
+            throw new BadRequestException("An image sweep is already running.");
+        }
+
+        try {
+            return doSweep(dryRun);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private ImageSweepReportDto doSweep(boolean dryRun) {
+
+        long startedAt = System.nanoTime();
+
+        //only key names are held, one entry per menu or user image, the tables themselves are streamed
+        Set<String> referenced = new HashSet<>();
+        jdbcTemplate.query(REFERENCED_MENU_IMAGES_SQL, resultSet -> {
+            String keyName = keyOf(MENU_PREFIX, resultSet.getString(1));
+            if (keyName != null) {
+                referenced.add(keyName);
+            }
+        });
+        jdbcTemplate.query(REFERENCED_PROFILE_IMAGES_SQL, resultSet -> {
+            String keyName = keyOf(PROFILE_PREFIX, resultSet.getString(1));
+            if (keyName != null) {
+                referenced.add(keyName);
+            }
+        });
+
+        //objects this young may belong to an upload whose row is not saved yet
+        Instant cutoff = Instant.now().minus(Duration.ofMinutes(minAgeMinutes));
+
+        long[] counts = new long[3];
+        List<String> sample = new ArrayList<>();
+        List<String> batch = new ArrayList<>(DELETE_BATCH_SIZE);
+
+        for (String prefix : List.of(MENU_PREFIX, PROFILE_PREFIX)) {
+            storageService.listObjects(prefix + "/", object -> {
+                counts[0]++;
+
+                if (referenced.contains(originalKeyOf(object.keyName()))
+                        || (object.lastModified() != null && object.lastModified().isAfter(cutoff))) {
+                    return;
+                }
+
+                counts[1]++;
+                if (sample.size() < ORPHAN_SAMPLE_SIZE) {
+                    sample.add(object.keyName());
+                }
+
+                if (!dryRun) {
+                    batch.add(object.keyName());
+                    if (batch.size() == DELETE_BATCH_SIZE) {
+                        counts[2] += deleteUnreferenced(batch);
+                        batch.clear();
+                    }
+                }
+            });
+        }
+
+        if (!batch.isEmpty()) {
+            counts[2] += deleteUnreferenced(batch);
+        }
+
+        ImageSweepReportDto report = ImageSweepReportDto.builder()
+                .dryRun(dryRun)
+                .referencedImages(referenced.size())
+                .scannedObjects(counts[0])
+                .orphanedObjects(counts[1])
+                .deletedObjects(counts[2])
+                .durationMs(Duration.ofNanos(System.nanoTime() - startedAt).toMillis())
+                .orphanSample(sample)
+                .build();
+
+        log.info("Image sweep finished (dryRun={}): scanned {}, orphaned {}, deleted {}",
+                dryRun, report.getScannedObjects(), report.getOrphanedObjects(), report.getDeletedObjects());
+
+        return report;
+    }
+
+    private int deleteUnreferenced(List<String> keyNames) {
+
+        //candidate rows are found by the leading characters of the file name, which no url encoding changes, and are
+        //then compared as decoded keys, so neither the url format nor its encoding can hide a reference
+        String[] patterns = keyNames.stream()
+                .map(keyName -> likePattern(originalKeyOf(keyName)))
+                .distinct()
+                .toArray(String[]::new);
+
+        Set<String> stillReferenced = new HashSet<>();
+        jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement(STILL_REFERENCED_SQL);
+            Array array = connection.createArrayOf("text", patterns);
+            statement.setArray(1, array);
+            statement.setArray(2, array);
+            return statement;
+        }, resultSet -> {
+            stillReferenced.add(keyOf(resultSet.getString(2), resultSet.getString(1)));
+        });
+
+        List<String> toDelete = stillReferenced.isEmpty()
+                ? keyNames
+                : keyNames.stream()
+                        .filter(keyName -> !stillReferenced.contains(originalKeyOf(keyName)))
+                        .toList();
+
+        return toDelete.isEmpty() ? 0 : storageService.deleteFiles(toDelete);
+    }
+
+    //stored urls end with the object's file name, percent-encoded (legacy keys keep the uploaded file name, spaces and all);
+    //the prefix tells menus and profiles apart
+    static String keyOf(String prefix, String url) {
+        if (url == null || url.isEmpty()) {
+            return null;
+        }
+        String path = url;
+        int query = path.indexOf('?');
+        if (query >= 0) {
+            path = path.substring(0, query);
+        }
+        String fileName = path.substring(path.lastIndexOf('/') + 1);
+        try {
+            //a plus in a path is a plus, not an encoded space
+            fileName = URLDecoder.decode(fileName.replace("+", "%2B"), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            //not encoded after all, e.g. a stray %
+        }
+        return prefix + "/" + fileName;
+    }
+
+    //matches stored urls whose file name starts like the key's, up to the first character an encoder could rewrite
+    static String likePattern(String keyName) {
+        String fileName = keyName.substring(keyName.lastIndexOf('/') + 1);
+        int end = 0;
+        while (end < fileName.length() && isUnreserved(fileName.charAt(end))) {
+            end++;
+        }
+        String literal = fileName.substring(0, end)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%/" + literal + "%";
+    }
+
+    private static boolean isUnreserved(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '-' || c == '.' || c == '_' || c == '~';
+    }
+
+    //renditions live and die with their original
+    private static String originalKeyOf(String keyName) {
+        for (ImageRendition rendition : ImageRendition.values()) {
+            if (keyName.endsWith(rendition.suffix())) {
+                return keyName.substring(0, keyName.length() - rendition.suffix().length());
+            }
+        }
+        return keyName;
+    }
+}
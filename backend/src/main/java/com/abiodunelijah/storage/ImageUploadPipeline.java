@@ -0,0 +1,160 @@
+package com.abiodunelijah.storage;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+//Moves storage transfers off the request thread: the upload is staged to local disk, the caller saves its entity
+//with a pending image, and the transfer finishes on a virtual thread with retries.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ImageUploadPipeline {
+
+    private final StorageService storageService;
+    private final ImageRenditionService imageRenditionService;
+
+    private final ExecutorService transferExecutor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("image-transfer-", 0).factory());
+
+    @Value("${image.upload.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${image.upload.retry-backoff-ms:500}")
+    private long retryBackoffMs;
+
+    public record StagedImage(Path path, long size, String contentType, String keyName) {
+    }
+
+    //the multipart temp file is removed once the request ends, so it is copied aside while still on the request thread;
+    //the copy is hashed on the way, which gives the content-addressed key without a second read
+    public StagedImage stage(MultipartFile file, String prefix) {
+        try {
+            Path path = Files.createTempFile("image-upload-", ".tmp");
+            MessageDigest digest = ContentKeys.sha256();
+
+            try (InputStream inputStream = new DigestInputStream(file.getInputStream(), digest)) {
+                Files.copy(inputStream, path, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                deleteQuietly(path);
+                throw e;
+            }
+
+            String keyName = ContentKeys.keyFor(prefix, digest.digest(), file.getOriginalFilename());
+            return new StagedImage(path, Files.size(path), file.getContentType(), keyName);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not stage uploaded image: " + e.getMessage(), e);
+        }
+    }
+
+    //where the object will live once uploaded, known before the transfer starts
+    public URL urlOf(String keyName) {
+        return storageService.getUrl(keyName);
+    }
+
+    public CompletableFuture<URL> upload(StagedImage image) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return uploadOriginal(image);
+            } finally {
+                deleteQuietly(image.path());
+            }
+        }, transferExecutor);
+    }
+
+    //uploads the original, then the ImageRendition sizes from the same staged file; completes with false when
+    //the original is stored but the renditions could not be made
+    public CompletableFuture<Boolean> uploadWithRenditions(StagedImage image) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                uploadOriginal(image);
+                return imageRenditionService.createRenditions(image.keyName(), image.path());
+            } finally {
+                deleteQuietly(image.path());
+            }
+        }, transferExecutor);
+    }
+
+    //for a staged image that will not be uploaded, e.g. when saving its entity failed
+    public void release(StagedImage image) {
+        if (image != null) {
+            deleteQuietly(image.path());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        transferExecutor.shutdown();
+    }
+
+    //an object under the same content key is the same image, so it is reused instead of uploaded again; it is touched
+    //because it may be an orphan old enough for the sweeper until the new row references it
+    private URL uploadOriginal(StagedImage image) {
+        String keyName = image.keyName();
+        return withRetries("upload " + keyName, () -> {
+            if (storageService.touch(keyName)) {
+                log.info("Reusing stored image {}", keyName);
+                return storageService.getUrl(keyName);
+            }
+            try (InputStream inputStream = Files.newInputStream(image.path())) {
+                return storageService.uploadFile(keyName, inputStream, image.size(), image.contentType());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private <T> T withRetries(String operation, Supplier<T> action) {
+
+        RuntimeException lastFailure = null;
+
+        for (int attempt = 1; attempt <= Math.max(maxAttempts, 1); attempt++) {
+            try {
+                return action.get();
+            } catch (RuntimeException e) {
+                lastFailure = e;
+                log.warn("Attempt {} to {} failed: {}", attempt, operation, e.getMessage());
+
+                if (attempt < maxAttempts) {
+                    sleep(retryBackoffMs << (attempt - 1));
+                }
+            }
+        }
+
+        throw lastFailure;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry", e);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete staged image {}", path);
+        }
+    }
+}
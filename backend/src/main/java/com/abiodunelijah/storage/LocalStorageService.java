@@ -0,0 +1,176 @@
+package com.abiodunelijah.storage;
+
+import com.abiodunelijah.exceptions.NotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+//Keeps objects as plain files under storage.local.root, served back by ImageController.
+//Meant for offline runs, integration tests and single-box benchmarks.
+@Service
+@ConditionalOnProperty(name = "storage.type", havingValue = "local")
+@Slf4j
+public class LocalStorageService implements StorageService {
+
+    private final Path root;
+    private final String baseUrl;
+
+    public LocalStorageService(@Value("${storage.local.root}") String root,
+                               @Value("${storage.local.base-url}") String baseUrl) throws IOException {
+        this.root = Path.of(root).toAbsolutePath().normalize();
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        Files.createDirectories(this.root);
+        log.info("Local storage enabled at {}", this.root);
+    }
+
+    @Override
+    public URL uploadFile(String keyName, MultipartFile file) {
+
+        log.info("Inside uploadFile method of LocalStorageService");
+
+        try (InputStream inputStream = file.getInputStream()) {
+            return uploadFile(keyName, inputStream, file.getSize(), file.getContentType());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public URL uploadFile(String keyName, InputStream inputStream, long contentLength, String contentType) {
+
+        log.info("Inside uploadFile(InputStream) method of LocalStorageService");
+
+        Path target = resolve(keyName);
+        try {
+            Files.createDirectories(target.getParent());
+
+            //written next to the target and moved into place, readers never see a half written file
+            Path temp = Files.createTempFile(target.getParent(), ".upload-", ".tmp");
+            try {
+                Files.copy(inputStream, temp, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store " + keyName + ": " + e.getMessage(), e);
+        }
+
+        return getUrl(keyName);
+    }
+
+    @Override
+    public void deleteFile(String keyName) {
+
+        log.info("Inside deleteFile method of LocalStorageService");
+
+        try {
+            Files.deleteIfExists(resolve(keyName));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not delete " + keyName + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public URL getUrl(String keyName) {
+        try {
+            return URI.create(baseUrl + "/" + UriUtils.encodePath(keyName, StandardCharsets.UTF_8)).toURL();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public boolean exists(String keyName) {
+        return Files.isRegularFile(resolve(keyName));
+    }
+
+    @Override
+    public boolean touch(String keyName) {
+        Path path = resolve(keyName);
+        if (!Files.isRegularFile(path)) {
+            return false;
+        }
+        try {
+            Files.setLastModifiedTime(path, FileTime.from(Instant.now()));
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not touch " + keyName + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void listObjects(String prefix, Consumer<StoredObject> consumer) {
+
+        log.info("Inside listObjects method of LocalStorageService");
+
+        Path directory = root.resolve(prefix).normalize();
+        if (!directory.startsWith(root) || !Files.isDirectory(directory)) {
+            return;
+        }
+
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.filter(Files::isRegularFile)
+                    //temp files of writes still in progress
+                    .filter(path -> !path.getFileName().toString().startsWith(".upload-"))
+                    .forEach(path -> {
+                        try {
+                            String keyName = root.relativize(path).toString().replace(path.getFileSystem().getSeparator(), "/");
+                            consumer.accept(new StoredObject(keyName, Files.getLastModifiedTime(path).toInstant()));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not list " + prefix + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public int deleteFiles(List<String> keyNames) {
+
+        log.info("Inside deleteFiles method of LocalStorageService");
+
+        int deleted = 0;
+        for (String keyName : keyNames) {
+            try {
+                if (Files.deleteIfExists(resolve(keyName))) {
+                    deleted++;
+                }
+            } catch (IOException e) {
+                log.error("Could not delete {}: {}", keyName, e.getMessage());
+            }
+        }
+        return deleted;
+    }
+
+    //file behind a key, refusing anything that would escape the storage root
+    public Path resolve(String keyName) {
+        Path path = root.resolve(keyName).normalize();
+        if (!path.startsWith(root) || path.equals(root)) {
+            throw new NotFoundException("Image not found.");
+        }
+        return path;
+    }
+}
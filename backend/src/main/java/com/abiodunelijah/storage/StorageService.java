@@ -0,0 +1,24 @@
+package com.abiodunelijah.storage;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.util.List;
+import java.util.function.Consumer;
+
+//Object storage used for every uploaded image, storage.type picks the implementation (s3 or local).
+public interface StorageService {
+    URL uploadFile(String keyName, MultipartFile file);
+    URL uploadFile(String keyName, InputStream inputStream, long contentLength, String contentType);
+    void deleteFile(String keyName);
+    URL getUrl(String keyName);
+    boolean exists(String keyName);
+    //exists() that also makes the object count as new again, for content keys that are reused instead of uploaded
+    //so the image sweeper's age guard covers them until the referencing row is saved
+    boolean touch(String keyName);
+    //every object under the prefix, handed over page by page instead of collected in memory
+    void listObjects(String prefix, Consumer<StoredObject> consumer);
+    //removes the keys in as few requests as the backend allows and returns how many were deleted
+    int deleteFiles(List<String> keyNames);
+}
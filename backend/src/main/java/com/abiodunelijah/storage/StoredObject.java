@@ -0,0 +1,6 @@
+package com.abiodunelijah.storage;
+
+import java.time.Instant;
+
+public record StoredObject(String keyName, Instant lastModified) {
+}
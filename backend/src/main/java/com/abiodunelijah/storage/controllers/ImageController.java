@@ -0,0 +1,73 @@
+package com.abiodunelijah.storage.controllers;
+
+import com.abiodunelijah.exceptions.NotFoundException;
+import com.abiodunelijah.storage.ContentKeys;
+import com.abiodunelijah.storage.LocalStorageService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+//Serves objects of the local storage backend, only registered when storage.type=local.
+@RestController
+@RequiredArgsConstructor
+@RequestMapping(ImageController.BASE_PATH)
+@ConditionalOnProperty(name = "storage.type", havingValue = "local")
+public class ImageController {
+
+    static final String BASE_PATH = "/api/images";
+
+    //Tomcat's NIO connector can hand a file straight to the socket (sendfile) when asked through these attributes
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final LocalStorageService localStorageService;
+
+    @GetMapping("/**")
+    public void getImage(HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+        String keyName = UriUtils.decode(request.getRequestURI()
+                .substring(request.getContextPath().length() + BASE_PATH.length() + 1), StandardCharsets.UTF_8);
+
+        Path file = localStorageService.resolve(keyName);
+        if (!Files.isRegularFile(file)) {
+            throw new NotFoundException("Image not found.");
+        }
+
+        long size = Files.size(file);
+        MediaType mediaType = MediaTypeFactory.getMediaType(file.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM);
+
+        response.setContentType(mediaType.toString());
+        response.setContentLengthLong(size);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, ContentKeys.IMMUTABLE_CACHE_CONTROL);
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, size);
+            return;
+        }
+
+        //no sendfile (e.g. TLS or another connector): a plain buffered copy through user space, only the sendfile
+        //branch above is zero-copy
+        OutputStream outputStream = response.getOutputStream();
+        Files.copy(file, outputStream);
+        outputStream.flush();
+    }
+}
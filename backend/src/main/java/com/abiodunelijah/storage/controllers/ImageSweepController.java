@@ -0,0 +1,27 @@
+package com.abiodunelijah.storage.controllers;
+
+import com.abiodunelijah.response.Response;
+import com.abiodunelijah.storage.ImageSweeper;
+import com.abiodunelijah.storage.dtos.ImageSweepReportDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/storage")
+public class ImageSweepController {
+
+    private final ImageSweeper imageSweeper;
+
+    //dry run by default, pass dryRun=false to actually delete the orphans
+    @PostMapping("/sweep")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<Response<ImageSweepReportDto>> sweep(@RequestParam(defaultValue = "true") boolean dryRun){
+        return ResponseEntity.ok(imageSweeper.sweep(dryRun));
+    }
+}
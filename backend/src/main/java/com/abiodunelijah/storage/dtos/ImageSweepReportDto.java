@@ -0,0 +1,23 @@
+package com.abiodunelijah.storage.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImageSweepReportDto {
+
+    private boolean dryRun;
+    private long referencedImages;
+    private long scannedObjects;
+    private long orphanedObjects;
+    private long deletedObjects;
+    private long durationMs;
+
+    //only the first orphans are listed, orphanedObjects has the full count
+    private List<String> orphanSample;
+}
@@ -0,0 +1,187 @@
+package com.abiodunelijah.utils;
+
+import java.util.Arrays;
+
+//Open-addressing long -> long map without boxing. Key 0 is reserved as the empty-slot marker,
+//which is fine for database ids. Not thread-safe, callers guard it themselves.
+public class LongLongHashMap {
+
+    private static final long EMPTY = 0L;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    public LongLongHashMap() {
+        this(16);
+    }
+
+    public LongLongHashMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    public long get(long key) {
+        int slot = find(key);
+        return slot < 0 ? 0L : values[slot];
+    }
+
+    public boolean containsKey(long key) {
+        return find(key) >= 0;
+    }
+
+    public void put(long key, long value) {
+        checkKey(key);
+        int slot = slotOf(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        insertAt(slot, key, value);
+    }
+
+    //adds delta to the value of key and returns the new value, entries that reach zero are removed
+    public long addTo(long key, long delta) {
+        checkKey(key);
+        int slot = slotOf(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                long value = values[slot] + delta;
+                if (value == 0L) {
+                    removeAt(slot);
+                } else {
+                    values[slot] = value;
+                }
+                return value;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (delta != 0L) {
+            insertAt(slot, key, delta);
+        }
+        return delta;
+    }
+
+    public long remove(long key) {
+        int slot = find(key);
+        if (slot < 0) {
+            return 0L;
+        }
+        long value = values[slot];
+        removeAt(slot);
+        return value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(values, 0L);
+        size = 0;
+    }
+
+    public void forEach(LongLongConsumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    private int find(long key) {
+        if (key == EMPTY) {
+            return -1;
+        }
+        int slot = slotOf(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void insertAt(int slot, long key, long value) {
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size >= resizeAt) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    //backward-shift deletion keeps probe chains intact without tombstones
+    private void removeAt(int slot) {
+        size--;
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = slotOf(keys[next]);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+        values[gap] = 0L;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slotOf(oldKeys[i]);
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+                size++;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        size = 0;
+        resizeAt = Math.max(1, (int) (capacity * LOAD_FACTOR));
+    }
+
+    private int slotOf(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int required = (int) Math.ceil(Math.max(expectedSize, 4) / LOAD_FACTOR);
+        return Integer.highestOneBit(required - 1) << 1;
+    }
+
+    private static void checkKey(long key) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Key 0 is reserved");
+        }
+    }
+
+    @FunctionalInterface
+    public interface LongLongConsumer {
+        void accept(long key, long value);
+    }
+}
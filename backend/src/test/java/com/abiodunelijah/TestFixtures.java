@@ -0,0 +1,121 @@
+package com.abiodunelijah;
+
+import com.abiodunelijah.auth_users.entities.User;
+import com.abiodunelijah.auth_users.repository.UserRepository;
+import com.abiodunelijah.cart.dtos.CartOperationDto;
+import com.abiodunelijah.category.entities.Category;
+import com.abiodunelijah.category.repository.CategoryRepository;
+import com.abiodunelijah.menu.entities.Menu;
+import com.abiodunelijah.menu.repository.MenuRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.test.context.TestComponent;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+//Rows the PostgreSQL tests start from and the queries they check the tables with. Those tests commit as they go,
+//so each one calls truncate() afterwards.
+@TestComponent
+@RequiredArgsConstructor
+public class TestFixtures {
+
+    private final UserRepository userRepository;
+    private final CategoryRepository categoryRepository;
+    private final MenuRepository menuRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    //one category with a 12.50 and a 3.99 menu
+    public record Catalog(Category category, Long jollofId, Long puffPuffId) {
+    }
+
+    public record StoredTotals(long totalCents, int itemCount, long version) {
+    }
+
+    public Catalog catalog() {
+        Category category = category("Mains");
+        return new Catalog(category, menu("Jollof Rice", "12.50", category), menu("Puff Puff", "3.99", category));
+    }
+
+    public User customer(String email) {
+        return customer(email, null);
+    }
+
+    public User customer(String email, String address) {
+        return userRepository.save(User.builder().name("Customer").email(email).password("secret").address(address).build());
+    }
+
+    public Category category(String name) {
+        return categoryRepository.save(Category.builder().name(name).build());
+    }
+
+    public Long menu(String name, String price, Category category) {
+        return menuRepository.save(Menu.builder().name(name).price(new BigDecimal(price)).category(category).build()).getId();
+    }
+
+    public void truncate() {
+        jdbcTemplate.execute("TRUNCATE users, categories CASCADE");
+    }
+
+    public int cartCount(Long userId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM carts WHERE user_id = ?", Integer.class, userId);
+    }
+
+    public StoredTotals storedTotals(Long userId) {
+        return jdbcTemplate.queryForObject("SELECT total_cents, item_count, version FROM carts WHERE user_id = ?",
+                (resultSet, rowNum) -> new StoredTotals(resultSet.getLong("total_cents"), resultSet.getInt("item_count"),
+                        resultSet.getLong("version")), userId);
+    }
+
+    public int lineCount(Long userId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM cart_items ci JOIN carts c ON c.id = ci.cart_id WHERE c.user_id = ?", Integer.class, userId);
+    }
+
+    //menu id -> quantity of the user's stored lines
+    public Map<Long, Integer> lines(Long userId) {
+        Map<Long, Integer> lines = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT ci.menu_id, ci.quantity FROM cart_items ci JOIN carts c ON c.id = ci.cart_id WHERE c.user_id = ?",
+                resultSet -> {
+                    lines.put(resultSet.getLong("menu_id"), resultSet.getInt("quantity"));
+                }, userId);
+        return lines;
+    }
+
+    public Long lineId(Long userId, Long menuId) {
+        return lineColumn("id", Long.class, userId, menuId);
+    }
+
+    public int lineQuantity(Long userId, Long menuId) {
+        return lineColumn("quantity", Integer.class, userId, menuId);
+    }
+
+    public BigDecimal lineSubTotal(Long userId, Long menuId) {
+        return lineColumn("sub_total", BigDecimal.class, userId, menuId);
+    }
+
+    public int orderCount(Long userId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders WHERE user_id = ?", Integer.class, userId);
+    }
+
+    public static CartOperationDto delta(Long menuId, int delta) {
+        CartOperationDto operation = new CartOperationDto();
+        operation.setMenuId(menuId);
+        operation.setDelta(delta);
+        return operation;
+    }
+
+    public static CartOperationDto quantity(Long menuId, int quantity) {
+        CartOperationDto operation = new CartOperationDto();
+        operation.setMenuId(menuId);
+        operation.setQuantity(quantity);
+        return operation;
+    }
+
+    private <T> T lineColumn(String column, Class<T> type, Long userId, Long menuId) {
+        return jdbcTemplate.queryForObject("SELECT ci." + column + " FROM cart_items ci JOIN carts c ON c.id = ci.cart_id " +
+                "WHERE c.user_id = ? AND ci.menu_id = ?", type, userId, menuId);
+    }
+}
@@ -0,0 +1,177 @@
+package com.abiodunelijah.aws;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Utilities;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AwsS3ServiceImplTest {
+
+    private static final int PART_SIZE = (int) DataSize.ofMegabytes(5).toBytes();
+
+    private final S3Client s3Client = mock(S3Client.class);
+
+    private final AwsS3ServiceImpl storageService = new AwsS3ServiceImpl(s3Client);
+
+    //part number -> bytes the part carried
+    private final Map<Integer, byte[]> uploadedParts = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(storageService, "bucketName", "menus-bucket");
+        ReflectionTestUtils.setField(storageService, "multipartThreshold", DataSize.ofMegabytes(6));
+        ReflectionTestUtils.setField(storageService, "partSize", DataSize.ofMegabytes(5));
+        ReflectionTestUtils.setField(storageService, "uploadConcurrency", 2);
+
+        when(s3Client.utilities()).thenReturn(S3Utilities.builder().region(Region.EU_WEST_2).build());
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class))).thenAnswer(invocation -> {
+            UploadPartRequest request = invocation.getArgument(0);
+            RequestBody body = invocation.getArgument(1);
+            uploadedParts.put(request.partNumber(), read(body));
+            return UploadPartResponse.builder().eTag("etag-" + request.partNumber()).build();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        storageService.shutdown();
+    }
+
+    @Test
+    void putsSmallFilesInOneRequest() {
+        byte[] content = content(1024);
+
+        storageService.uploadFile("menus/small.jpg", new ByteArrayInputStream(content), content.length, "image/jpeg");
+
+        verify(s3Client).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+        verify(s3Client, never()).createMultipartUpload(any(CreateMultipartUploadRequest.class));
+    }
+
+    @Test
+    void splitsLargeFilesIntoOrderedParts() {
+        byte[] content = content(2 * PART_SIZE + 1234);
+
+        storageService.uploadFile("menus/large.jpg", new ByteArrayInputStream(content), content.length, "image/jpeg");
+
+        assertThat(new TreeMap<>(uploadedParts).values()).extracting(part -> part.length)
+                .containsExactly(PART_SIZE, PART_SIZE, 1234);
+        assertThat(join(uploadedParts)).isEqualTo(content);
+
+        ArgumentCaptor<CompleteMultipartUploadRequest> complete = ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+        verify(s3Client).completeMultipartUpload(complete.capture());
+        assertThat(complete.getValue().uploadId()).isEqualTo("upload-1");
+        assertThat(complete.getValue().multipartUpload().parts())
+                .extracting(CompletedPart::partNumber, CompletedPart::eTag)
+                .containsExactly(tuple(1, "etag-1"), tuple(2, "etag-2"), tuple(3, "etag-3"));
+        verify(s3Client, never()).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+    }
+
+    @Test
+    void sendsNoEmptyPartWhenTheSizeIsAMultipleOfThePartSize() {
+        byte[] content = content(2 * PART_SIZE);
+
+        storageService.uploadFile("menus/even.jpg", new ByteArrayInputStream(content), content.length, "image/jpeg");
+
+        assertThat(uploadedParts).containsOnlyKeys(1, 2);
+        assertThat(join(uploadedParts)).isEqualTo(content);
+    }
+
+    @Test
+    void abortsTheUploadWhenAPartFails() {
+        //doAnswer, a when() here would call the stub from setUp with null arguments
+        doAnswer(invocation -> {
+            UploadPartRequest request = invocation.getArgument(0);
+            if (request.partNumber() == 2) {
+                throw S3Exception.builder().message("Slow down").statusCode(503).build();
+            }
+            return UploadPartResponse.builder().eTag("etag-" + request.partNumber()).build();
+        }).when(s3Client).uploadPart(any(UploadPartRequest.class), any(RequestBody.class));
+        byte[] content = content(2 * PART_SIZE + 1234);
+
+        assertThatThrownBy(() -> storageService.uploadFile("menus/large.jpg", new ByteArrayInputStream(content),
+                content.length, "image/jpeg"))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("Slow down");
+
+        ArgumentCaptor<AbortMultipartUploadRequest> abort = ArgumentCaptor.forClass(AbortMultipartUploadRequest.class);
+        verify(s3Client).abortMultipartUpload(abort.capture());
+        assertThat(abort.getValue().uploadId()).isEqualTo("upload-1");
+        assertThat(abort.getValue().key()).isEqualTo("menus/large.jpg");
+        verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    }
+
+    @Test
+    void abortsTheUploadWhenTheSourceFailsMidway() {
+        byte[] content = content(PART_SIZE);
+        InputStream failing = new SequenceInputStream(new ByteArrayInputStream(content), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Connection reset");
+            }
+        });
+
+        assertThatThrownBy(() -> storageService.uploadFile("menus/large.jpg", failing, 3L * PART_SIZE, "image/jpeg"))
+                .hasMessageContaining("Connection reset");
+
+        verify(s3Client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+        verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    }
+
+    private static byte[] content(int length) {
+        byte[] content = new byte[length];
+        new Random(42).nextBytes(content);
+        return content;
+    }
+
+    private static byte[] read(RequestBody body) {
+        try (InputStream inputStream = body.contentStreamProvider().newStream()) {
+            return inputStream.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] join(Map<Integer, byte[]> parts) {
+        ByteArrayOutputStream joined = new ByteArrayOutputStream();
+        new TreeMap<>(parts).values().forEach(joined::writeBytes);
+        return joined.toByteArray();
+    }
+}
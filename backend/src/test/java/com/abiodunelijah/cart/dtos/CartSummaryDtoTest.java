@@ -0,0 +1,27 @@
+package com.abiodunelijah.cart.dtos;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CartSummaryDtoTest {
+
+    @Test
+    void derivesTheAmountFromTheCents() {
+        assertThat(new CartSummaryDto(1L, 4947, 6, 3).getTotalAmount()).isEqualTo(new BigDecimal("49.47"));
+        assertThat(new CartSummaryDto(1L, 5, 1, 1).getTotalAmount()).isEqualTo(new BigDecimal("0.05"));
+    }
+
+    @Test
+    void keepsTwoDecimalPlacesForWholeAmounts() {
+        assertThat(new CartSummaryDto(1L, 0, 0, 0).getTotalAmount()).isEqualTo(new BigDecimal("0.00"));
+        assertThat(new CartSummaryDto(1L, 1200, 1, 1).getTotalAmount()).isEqualTo(new BigDecimal("12.00"));
+    }
+
+    @Test
+    void handlesTotalsBeyondIntRange() {
+        assertThat(new CartSummaryDto(1L, 300_000_000_000L, 1, 1).getTotalAmount()).isEqualTo(new BigDecimal("3000000000.00"));
+    }
+}
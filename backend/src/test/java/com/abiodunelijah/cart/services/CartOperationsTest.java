@@ -0,0 +1,61 @@
+package com.abiodunelijah.cart.services;
+
+import com.abiodunelijah.cart.dtos.CartOperationDto;
+import com.abiodunelijah.cart.services.CartOperations.LineChange;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CartOperationsTest {
+
+    @Test
+    void addsUpTheDeltasOfAMenu() {
+        Map<Long, LineChange> changes = CartOperations.fold(List.of(delta(1L, 1), delta(1L, 2), delta(1L, -1)));
+
+        assertThat(changes).containsOnlyKeys(1L);
+        assertThat(changes.get(1L)).isEqualTo(new LineChange(null, 2));
+        assertThat(changes.get(1L).applyTo(4)).isEqualTo(6);
+    }
+
+    @Test
+    void anAbsoluteQuantityReplacesWhatCameBefore() {
+        Map<Long, LineChange> changes = CartOperations.fold(List.of(delta(1L, 3), quantity(1L, 5), delta(1L, 2)));
+
+        assertThat(changes.get(1L)).isEqualTo(new LineChange(5, 2));
+        //the current quantity no longer matters
+        assertThat(changes.get(1L).applyTo(40)).isEqualTo(7);
+    }
+
+    @Test
+    void neverGoesBelowZero() {
+        assertThat(new LineChange(null, -5).applyTo(3)).isZero();
+        assertThat(new LineChange(0, 0).applyTo(3)).isZero();
+    }
+
+    @Test
+    void keepsMenusApartInTheOrderTheyCameIn() {
+        Map<Long, LineChange> changes = CartOperations.fold(List.of(delta(3L, 1), quantity(1L, 2), delta(2L, -1), delta(3L, 1)));
+
+        assertThat(changes.keySet()).containsExactly(3L, 1L, 2L);
+        assertThat(changes.get(3L)).isEqualTo(new LineChange(null, 2));
+        assertThat(changes.get(1L)).isEqualTo(new LineChange(2, 0));
+        assertThat(changes.get(2L)).isEqualTo(new LineChange(null, -1));
+    }
+
+    private static CartOperationDto delta(Long menuId, int delta) {
+        CartOperationDto operation = new CartOperationDto();
+        operation.setMenuId(menuId);
+        operation.setDelta(delta);
+        return operation;
+    }
+
+    private static CartOperationDto quantity(Long menuId, int quantity) {
+        CartOperationDto operation = new CartOperationDto();
+        operation.setMenuId(menuId);
+        operation.setQuantity(quantity);
+        return operation;
+    }
+}
@@ -0,0 +1,261 @@
+package com.abiodunelijah.cart.services;
+
+import com.abiodunelijah.TestFixtures;
+import com.abiodunelijah.TestcontainersConfiguration;
+import com.abiodunelijah.cart.dtos.CartSummaryDto;
+import com.abiodunelijah.cart.repository.CartRepository;
+import com.abiodunelijah.category.entities.Category;
+import com.abiodunelijah.config.IdSequenceAlignment;
+import com.abiodunelijah.config.ModelMapperConfig;
+import com.abiodunelijah.exceptions.NotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.abiodunelijah.TestFixtures.delta;
+import static com.abiodunelijah.TestFixtures.quantity;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+//Runs the cart statements against PostgreSQL; every store call commits on its own, like a request does.
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({TestcontainersConfiguration.class, TestFixtures.class, IdSequenceAlignment.class, ModelMapperConfig.class, DatabaseCartStore.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class DatabaseCartStoreTest {
+
+    @Autowired
+    private DatabaseCartStore cartStore;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Category category;
+    private Long userId;
+    private Long otherUserId;
+    private Long jollofId;
+    private Long puffPuffId;
+
+    @BeforeEach
+    void setUp() {
+        userId = fixtures.customer("ada@example.com").getId();
+        otherUserId = fixtures.customer("bayo@example.com").getId();
+
+        TestFixtures.Catalog catalog = fixtures.catalog();
+        category = catalog.category();
+        jollofId = catalog.jollofId();
+        puffPuffId = catalog.puffPuffId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixtures.truncate();
+    }
+
+    @Test
+    void firstAddCreatesTheCartWithTheLineTotals() {
+        cartStore.addToLine(userId, jollofId, 2);
+
+        assertThat(fixtures.lineQuantity(userId, jollofId)).isEqualTo(2);
+        assertThat(fixtures.lineSubTotal(userId, jollofId)).isEqualByComparingTo("25.00");
+        assertSummary(userId, 2500, 2, 1);
+    }
+
+    @Test
+    void laterAddsGrowTheLineAndTheTotals() {
+        cartStore.addToLine(userId, jollofId, 2);
+        cartStore.addToLine(userId, jollofId, 1);
+        cartStore.addToLine(userId, puffPuffId, 3);
+
+        assertThat(fixtures.lineQuantity(userId, jollofId)).isEqualTo(3);
+        assertThat(fixtures.lineQuantity(userId, puffPuffId)).isEqualTo(3);
+        assertSummary(userId, 3 * 1250 + 3 * 399, 6, 3);
+    }
+
+    @Test
+    void addingAnUnknownMenuLeavesNoCartBehind() {
+        assertThatThrownBy(() -> cartStore.addToLine(userId, -1L, 1)).isInstanceOf(NotFoundException.class);
+
+        assertThat(fixtures.cartCount(userId)).isZero();
+    }
+
+    @Test
+    void concurrentFirstAddsAreAllCounted() throws Exception {
+        int taps = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(taps);
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int i = 0; i < taps; i++) {
+                tasks.add(() -> {
+                    cartStore.addToLine(userId, jollofId, 1);
+                    return null;
+                });
+            }
+            for (Future<Void> result : executor.invokeAll(tasks)) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(fixtures.cartCount(userId)).isEqualTo(1);
+        assertThat(fixtures.lineQuantity(userId, jollofId)).isEqualTo(taps);
+        assertSummary(userId, taps * 1250L, taps, taps);
+    }
+
+    @Test
+    void incrementAndDecrementMoveTheTotalsByOneUnit() {
+        cartStore.addToLine(userId, jollofId, 1);
+
+        cartStore.incrementLine(userId, jollofId);
+        assertThat(fixtures.lineQuantity(userId, jollofId)).isEqualTo(2);
+        assertSummary(userId, 2500, 2, 2);
+
+        cartStore.decrementLine(userId, jollofId);
+        assertThat(fixtures.lineQuantity(userId, jollofId)).isEqualTo(1);
+        assertSummary(userId, 1250, 1, 3);
+    }
+
+    @Test
+    void decrementingTheLastUnitRemovesTheLine() {
+        cartStore.addToLine(userId, jollofId, 1);
+
+        cartStore.decrementLine(userId, jollofId);
+
+        assertThat(fixtures.lineCount(userId)).isZero();
+        assertSummary(userId, 0, 0, 2);
+    }
+
+    @Test
+    void tapsOnMissingLinesFail() {
+        cartStore.addToLine(userId, jollofId, 1);
+
+        assertThatThrownBy(() -> cartStore.incrementLine(userId, puffPuffId)).isInstanceOf(NotFoundException.class);
+        assertThatThrownBy(() -> cartStore.decrementLine(userId, puffPuffId)).isInstanceOf(NotFoundException.class);
+        assertThatThrownBy(() -> cartStore.incrementLine(otherUserId, jollofId)).isInstanceOf(NotFoundException.class);
+
+        assertSummary(userId, 1250, 1, 1);
+    }
+
+    @Test
+    void removesOnlyTheUsersOwnLines() {
+        cartStore.addToLine(userId, jollofId, 2);
+        cartStore.addToLine(userId, puffPuffId, 1);
+        Long cartItemId = fixtures.lineId(userId, jollofId);
+
+        assertThatThrownBy(() -> cartStore.removeLine(otherUserId, cartItemId)).isInstanceOf(NotFoundException.class);
+        assertThat(fixtures.lineQuantity(userId, jollofId)).isEqualTo(2);
+
+        cartStore.removeLine(userId, cartItemId);
+        assertThat(fixtures.lineCount(userId)).isEqualTo(1);
+        assertSummary(userId, 399, 1, 3);
+    }
+
+    @Test
+    void clearEmptiesTheCartAndResetsTheTotals() {
+        cartStore.addToLine(userId, jollofId, 2);
+        cartStore.addToLine(userId, puffPuffId, 1);
+
+        cartStore.clear(userId);
+
+        assertThat(fixtures.lineCount(userId)).isZero();
+        assertSummary(userId, 0, 0, 3);
+
+        //nothing to clear, nothing happens
+        cartStore.clear(otherUserId);
+        assertThat(fixtures.cartCount(otherUserId)).isZero();
+    }
+
+    @Test
+    void appliesABatchAgainstTheLatestLines() {
+        cartStore.applyOperations(userId, List.of(delta(jollofId, 2), quantity(puffPuffId, 3), delta(jollofId, 1)));
+
+        assertThat(fixtures.lineQuantity(userId, jollofId)).isEqualTo(3);
+        assertThat(fixtures.lineQuantity(userId, puffPuffId)).isEqualTo(3);
+        assertSummary(userId, 3 * 1250 + 3 * 399, 6, 1);
+
+        cartStore.applyOperations(userId, List.of(delta(puffPuffId, -3), quantity(jollofId, 1)));
+
+        assertThat(fixtures.lineCount(userId)).isEqualTo(1);
+        assertThat(fixtures.lineQuantity(userId, jollofId)).isEqualTo(1);
+        assertThat(fixtures.lineSubTotal(userId, jollofId)).isEqualByComparingTo("12.50");
+        assertSummary(userId, 1250, 1, 2);
+    }
+
+    @Test
+    void aBatchWithAnUnknownMenuChangesNothing() {
+        cartStore.addToLine(userId, jollofId, 1);
+
+        assertThatThrownBy(() -> cartStore.applyOperations(userId, List.of(delta(jollofId, 1), delta(-1L, 1))))
+                .isInstanceOf(NotFoundException.class);
+
+        assertThat(fixtures.lineQuantity(userId, jollofId)).isEqualTo(1);
+        assertSummary(userId, 1250, 1, 1);
+    }
+
+    @Test
+    void keepsTotalsInExactCents() {
+        Long chinChinId = fixtures.menu("Chin Chin", "0.10", category);
+        Long candyId = fixtures.menu("Candy", "0.20", category);
+
+        cartStore.addToLine(userId, chinChinId, 1);
+        cartStore.addToLine(userId, chinChinId, 1);
+        cartStore.addToLine(userId, chinChinId, 1);
+        cartStore.addToLine(userId, candyId, 1);
+
+        CartSummaryDto summary = cartStore.getSummary(userId);
+        assertThat(summary.getTotalCents()).isEqualTo(50);
+        assertThat(summary.getTotalAmount()).isEqualTo(new BigDecimal("0.50"));
+    }
+
+    @Test
+    void rebuildingFromTheLinesGivesTheRunningTotals() {
+        cartStore.addToLine(userId, jollofId, 2);
+        cartStore.addToLine(userId, puffPuffId, 3);
+        cartStore.decrementLine(userId, puffPuffId);
+        cartStore.addToLine(otherUserId, puffPuffId, 1);
+        cartStore.clear(otherUserId);
+
+        jdbcTemplate.update("UPDATE carts SET total_cents = 999, item_count = 999");
+        int rebuilt = new TransactionTemplate(transactionManager).execute(status -> cartRepository.rebuildTotals());
+
+        assertThat(rebuilt).isEqualTo(2);
+        assertSummary(userId, 2 * 1250 + 2 * 399, 4, 4);
+        assertSummary(otherUserId, 0, 0, 3);
+    }
+
+    private void assertSummary(Long userId, long totalCents, int itemCount, long version) {
+        CartSummaryDto summary = cartStore.getSummary(userId);
+        assertThat(summary.getTotalCents()).isEqualTo(totalCents);
+        assertThat(summary.getItemCount()).isEqualTo(itemCount);
+        assertThat(summary.getVersion()).isEqualTo(version);
+    }
+}
@@ -0,0 +1,197 @@
+package com.abiodunelijah.cart.services;
+
+import com.abiodunelijah.TestFixtures;
+import com.abiodunelijah.TestcontainersConfiguration;
+import com.abiodunelijah.cart.dtos.CartDto;
+import com.abiodunelijah.cart.dtos.CartItemDto;
+import com.abiodunelijah.cart.dtos.CartSummaryDto;
+import com.abiodunelijah.cart.repository.CartRepository;
+import com.abiodunelijah.config.IdSequenceAlignment;
+import com.abiodunelijah.exceptions.NotFoundException;
+import com.abiodunelijah.menu.repository.MenuRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.abiodunelijah.TestFixtures.delta;
+import static com.abiodunelijah.TestFixtures.quantity;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+//Checks what the write-behind flush leaves in carts/cart_items, the batch statements only run against PostgreSQL.
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({TestcontainersConfiguration.class, TestFixtures.class, IdSequenceAlignment.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class InMemoryCartStoreTest {
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private MenuRepository menuRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private InMemoryCartStore cartStore;
+
+    private Long userId;
+    private Long jollofId;
+    private Long puffPuffId;
+
+    @BeforeEach
+    void setUp() {
+        cartStore = newStore();
+
+        userId = fixtures.customer("ada@example.com").getId();
+
+        TestFixtures.Catalog catalog = fixtures.catalog();
+        jollofId = catalog.jollofId();
+        puffPuffId = catalog.puffPuffId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixtures.truncate();
+    }
+
+    @Test
+    void tapsStayInMemoryUntilFlushed() {
+        cartStore.addToLine(userId, jollofId, 2);
+
+        assertThat(fixtures.cartCount(userId)).isZero();
+        assertThat(cartStore.getSummary(userId).getTotalCents()).isEqualTo(2500);
+
+        cartStore.flush(userId);
+
+        assertThat(fixtures.lines(userId)).isEqualTo(Map.of(jollofId, 2));
+        assertThat(fixtures.lineSubTotal(userId, jollofId)).isEqualByComparingTo("25.00");
+        assertStoredTotals(2500, 2);
+    }
+
+    @Test
+    void flushWritesChangedAndRemovedLines() {
+        cartStore.addToLine(userId, jollofId, 2);
+        cartStore.addToLine(userId, puffPuffId, 1);
+        cartStore.flush(userId);
+
+        cartStore.decrementLine(userId, puffPuffId);
+        cartStore.incrementLine(userId, jollofId);
+        cartStore.flush(userId);
+
+        assertThat(fixtures.lines(userId)).isEqualTo(Map.of(jollofId, 3));
+        assertStoredTotals(3750, 3);
+    }
+
+    @Test
+    void getCartWritesNewLinesSoTheyHaveIds() {
+        cartStore.addToLine(userId, jollofId, 1);
+
+        CartDto cart = cartStore.getCart(userId);
+
+        assertThat(cart.getId()).isNotNull();
+        assertThat(cart.getCartItemsDto()).extracting(CartItemDto::getId).containsExactly(fixtures.lineId(userId, jollofId));
+    }
+
+    @Test
+    void dropsLinesOfMenusDeletedBeforeTheFlush() {
+        cartStore.addToLine(userId, jollofId, 1);
+        cartStore.addToLine(userId, puffPuffId, 2);
+
+        jdbcTemplate.update("DELETE FROM menus WHERE id = ?", puffPuffId);
+        cartStore.flush(userId);
+
+        assertThat(fixtures.lines(userId)).isEqualTo(Map.of(jollofId, 1));
+        assertStoredTotals(1250, 1);
+
+        //the memory copy lost the line too, so it agrees with what was written
+        CartSummaryDto summary = cartStore.getSummary(userId);
+        assertThat(summary.getTotalCents()).isEqualTo(1250);
+        assertThat(summary.getItemCount()).isEqualTo(1);
+    }
+
+    @Test
+    void freshStoreLoadsTheFlushedCart() {
+        cartStore.addToLine(userId, jollofId, 2);
+        cartStore.addToLine(userId, puffPuffId, 1);
+        cartStore.flush(userId);
+
+        CartDto cart = newStore().getCart(userId);
+
+        assertThat(cart.getTotalCents()).isEqualTo(2 * 1250 + 399);
+        assertThat(cart.getItemCount()).isEqualTo(3);
+        assertThat(cart.getCartItemsDto()).extracting(CartItemDto::getId)
+                .containsExactlyInAnyOrder(fixtures.lineId(userId, jollofId), fixtures.lineId(userId, puffPuffId));
+    }
+
+    @Test
+    void checkoutTakesOnlyTheOrderedQuantitiesOut() {
+        cartStore.addToLine(userId, jollofId, 2);
+        cartStore.flush(userId);
+
+        //tapped in after the checkout flush, while checkout moved the two written ones into an order
+        cartStore.addToLine(userId, jollofId, 1);
+        jdbcTemplate.update("DELETE FROM cart_items");
+        jdbcTemplate.update("UPDATE carts SET total_cents = 0, item_count = 0");
+        cartStore.checkedOut(userId, Map.of(jollofId, 2));
+
+        assertThat(cartStore.getSummary(userId).getItemCount()).isEqualTo(1);
+
+        cartStore.flush(userId);
+
+        assertThat(fixtures.lines(userId)).isEqualTo(Map.of(jollofId, 1));
+        assertStoredTotals(1250, 1);
+    }
+
+    @Test
+    void appliesABatchAndFlushesTheResult() {
+        cartStore.addToLine(userId, puffPuffId, 1);
+        cartStore.flush(userId);
+
+        cartStore.applyOperations(userId, List.of(delta(jollofId, 2), delta(puffPuffId, -1), delta(jollofId, 1)));
+        cartStore.flush(userId);
+
+        assertThat(fixtures.lines(userId)).isEqualTo(Map.of(jollofId, 3));
+        assertStoredTotals(3750, 3);
+    }
+
+    @Test
+    void aBatchWithAnUnknownMenuChangesNothing() {
+        cartStore.addToLine(userId, jollofId, 1);
+
+        assertThatThrownBy(() -> cartStore.applyOperations(userId, List.of(quantity(jollofId, 5), delta(-1L, 1))))
+                .isInstanceOf(NotFoundException.class);
+
+        assertThat(cartStore.getSummary(userId).getItemCount()).isEqualTo(1);
+    }
+
+    private InMemoryCartStore newStore() {
+        return new InMemoryCartStore(cartRepository, menuRepository, jdbcTemplate, transactionManager, 500, 30);
+    }
+
+    private void assertStoredTotals(long totalCents, int itemCount) {
+        TestFixtures.StoredTotals totals = fixtures.storedTotals(userId);
+        assertThat(totals.totalCents()).isEqualTo(totalCents);
+        assertThat(totals.itemCount()).isEqualTo(itemCount);
+    }
+}
@@ -0,0 +1,45 @@
+package com.abiodunelijah.catalog.events;
+
+import com.abiodunelijah.catalog.services.CatalogSnapshotService;
+import com.abiodunelijah.catalog.services.CatalogVersionService;
+import com.abiodunelijah.menu.services.MenuCatalogCache;
+import com.abiodunelijah.menu.services.MenuSearchIndex;
+import com.abiodunelijah.menu.services.MenuSuggestIndex;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.Order;
+
+import java.lang.reflect.Method;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//Reads the order the way Spring does for @TransactionalEventListener methods; equal values run in no fixed order.
+class CatalogListenerOrderTest {
+
+    @Test
+    void indexesAreUpdatedBeforeTheMenuCacheIsInvalidated() {
+        int cache = order(MenuCatalogCache.class);
+
+        assertThat(order(MenuSearchIndex.class)).isLessThan(cache);
+        assertThat(order(MenuSuggestIndex.class)).isLessThan(cache);
+    }
+
+    @Test
+    void versionIsBumpedAfterTheCachesAndBeforeTheSnapshotsAreRebuilt() {
+        int version = order(CatalogVersionService.class);
+
+        assertThat(order(MenuCatalogCache.class)).isLessThan(version);
+        assertThat(order(CatalogSnapshotService.class)).isGreaterThan(version);
+    }
+
+    private static int order(Class<?> listener) {
+        try {
+            Method method = listener.getMethod("onCatalogChanged", CatalogChangedEvent.class);
+            Order order = AnnotatedElementUtils.findMergedAnnotation(method, Order.class);
+            return order != null ? order.value() : Ordered.LOWEST_PRECEDENCE;
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(listener.getSimpleName() + " does not listen to CatalogChangedEvent", e);
+        }
+    }
+}
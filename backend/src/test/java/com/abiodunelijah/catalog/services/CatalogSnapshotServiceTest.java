@@ -0,0 +1,124 @@
+package com.abiodunelijah.catalog.services;
+
+import com.abiodunelijah.catalog.events.CatalogChangedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogSnapshotServiceTest {
+
+    private static final String JSON = "[\"Jollof Rice\",\"Puff Puff\"]";
+
+    private final CatalogVersionService catalogVersionService = new CatalogVersionService();
+
+    private final CatalogSnapshotService snapshotService = new CatalogSnapshotService(catalogVersionService, new ObjectMapper());
+
+    private final AtomicInteger bodiesBuilt = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(snapshotService, "maxOnDemand", 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        snapshotService.shutdown();
+    }
+
+    @Test
+    void servesGzipToClientsThatAcceptIt() throws IOException {
+        ResponseEntity<byte[]> response = serve(CatalogSnapshotService.ALL_MENUS, "br, gzip;q=0.5", null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(response.getHeaders().getFirst(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT_ENCODING);
+        assertThat(response.getHeaders().getETag()).endsWith("-gzip\"");
+        assertThat(gunzip(response.getBody())).isEqualTo(JSON);
+    }
+
+    @Test
+    void servesPlainJsonWhenGzipIsMissingOrRefused() {
+        for (String acceptEncoding : new String[]{null, "br", "gzip;q=0", "GZIP; q=0.000", "gzip;q=oops"}) {
+            ResponseEntity<byte[]> response = serve(CatalogSnapshotService.ALL_MENUS, acceptEncoding, null);
+
+            assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).as(acceptEncoding).isNull();
+            assertThat(new String(response.getBody(), StandardCharsets.UTF_8)).as(acceptEncoding).isEqualTo(JSON);
+        }
+    }
+
+    @Test
+    void reusesTheSerializedBytesUntilTheCatalogChanges() {
+        serve(CatalogSnapshotService.ALL_MENUS, null, null);
+        serve(CatalogSnapshotService.ALL_MENUS, "gzip", null);
+        assertThat(bodiesBuilt).hasValue(1);
+
+        //the rebuild runs in the background, a request that gets there first builds the current version itself
+        catalogVersionService.onCatalogChanged(CatalogChangedEvent.menuChanged(5L, 1L));
+        ResponseEntity<byte[]> response = serve(CatalogSnapshotService.ALL_MENUS, null, null);
+
+        assertThat(response.getHeaders().getETag()).isEqualTo(catalogVersionService.etag());
+    }
+
+    @Test
+    void answersARevalidationWithoutBuildingTheBody() {
+        String etag = serve(CatalogSnapshotService.ALL_MENUS, "gzip", null).getHeaders().getETag();
+        bodiesBuilt.set(0);
+
+        ResponseEntity<byte[]> response = serve(CatalogSnapshotService.menusOfCategory(3L), "gzip", etag);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.getBody()).isNull();
+        assertThat(bodiesBuilt).hasValue(0);
+
+        //the plain representation has its own ETag, so the gzip one does not match it
+        assertThat(serve(CatalogSnapshotService.ALL_MENUS, null, etag).getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void servesOnDemandKeysPastTheLimitWithoutKeepingThem() {
+        serve(CatalogSnapshotService.menusOfCategory(1L), null, null);
+        serve(CatalogSnapshotService.menusOfCategory(2L), null, null);
+        serve(CatalogSnapshotService.menusOfCategory(1L), null, null);
+        assertThat(bodiesBuilt).hasValue(2);
+
+        serve(CatalogSnapshotService.menusOfCategory(2L), null, null);
+        assertThat(bodiesBuilt).hasValue(3);
+    }
+
+    private ResponseEntity<byte[]> serve(String key, String acceptEncoding, String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/menus");
+        if (acceptEncoding != null) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return snapshotService.serve(key, new ServletWebRequest(request, new MockHttpServletResponse()), () -> {
+            bodiesBuilt.incrementAndGet();
+            return List.of("Jollof Rice", "Puff Puff");
+        });
+    }
+
+    private static String gunzip(byte[] gzipped) throws IOException {
+        try (GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.abiodunelijah.catalog.services;
+
+import com.abiodunelijah.catalog.events.CatalogChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogVersionServiceTest {
+
+    private final CatalogVersionService catalogVersionService = new CatalogVersionService();
+
+    private final AtomicInteger bodiesBuilt = new AtomicInteger();
+
+    @Test
+    void answersARevalidationOfTheCurrentVersionWith304() {
+        ResponseEntity<String> first = catalogVersionService.conditionalResponse(request(null), this::body);
+        String etag = first.getHeaders().getETag();
+
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(first.getBody()).isEqualTo("menus");
+
+        ResponseEntity<String> revalidated = catalogVersionService.conditionalResponse(request(etag), this::body);
+
+        assertThat(revalidated.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(revalidated.getHeaders().getETag()).isEqualTo(etag);
+        assertThat(revalidated.getBody()).isNull();
+        assertThat(bodiesBuilt).hasValue(1);
+    }
+
+    @Test
+    void aCatalogChangeInvalidatesTheEtag() {
+        String etag = catalogVersionService.etag();
+
+        catalogVersionService.onCatalogChanged(CatalogChangedEvent.menuChanged(5L, 1L));
+
+        ResponseEntity<String> response = catalogVersionService.conditionalResponse(request(etag), this::body);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getETag()).isNotEqualTo(etag);
+    }
+
+    @Test
+    void givesEachContentCodingItsOwnEtag() {
+        long version = catalogVersionService.currentVersion();
+
+        assertThat(catalogVersionService.etag(version, "gzip"))
+                .isNotEqualTo(catalogVersionService.etag(version, null))
+                .startsWith("\"").endsWith("-gzip\"");
+        assertThat(catalogVersionService.etag(version, null)).isEqualTo(catalogVersionService.etag());
+    }
+
+    private String body() {
+        bodiesBuilt.incrementAndGet();
+        return "menus";
+    }
+
+    private static ServletWebRequest request(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/menus");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+}
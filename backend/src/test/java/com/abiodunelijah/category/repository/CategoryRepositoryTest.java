@@ -0,0 +1,92 @@
+package com.abiodunelijah.category.repository;
+
+import com.abiodunelijah.TestFixtures;
+import com.abiodunelijah.TestcontainersConfiguration;
+import com.abiodunelijah.category.dtos.CategorySummaryDto;
+import com.abiodunelijah.config.IdSequenceAlignment;
+import com.abiodunelijah.menu.entities.Menu;
+import com.abiodunelijah.menu.entities.MenuRating;
+import com.abiodunelijah.menu.repository.MenuRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//Runs the grouped sidebar query against PostgreSQL.
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({TestcontainersConfiguration.class, TestFixtures.class, IdSequenceAlignment.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class CategoryRepositoryTest {
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private MenuRepository menuRepository;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        fixtures.truncate();
+    }
+
+    @Test
+    void summarizesEveryCategoryInOneQuery() {
+        TestFixtures.Catalog catalog = fixtures.catalog();
+        fixtures.category("Drinks");
+
+        image(catalog.jollofId(), "https://bucket/menus/jollof.jpg");
+        image(catalog.puffPuffId(), "https://bucket/menus/puff-puff.jpg");
+        //the best rated menu without an image is skipped for the top image
+        Long chapman = fixtures.menu("Chapman", "5.00", catalog.category());
+        rate(chapman, 10);
+        rate(catalog.puffPuffId(), 9);
+        rate(catalog.jollofId(), 6);
+
+        List<CategorySummaryDto> summaries = categoryRepository.findAllSummaries();
+
+        assertThat(summaries).extracting(CategorySummaryDto::getName).containsExactly("Drinks", "Mains");
+
+        CategorySummaryDto drinks = summaries.getFirst();
+        assertThat(drinks.getMenuCount()).isZero();
+        assertThat(drinks.getMinPrice()).isNull();
+        assertThat(drinks.getMaxPrice()).isNull();
+        assertThat(drinks.getTopImageUrl()).isNull();
+
+        CategorySummaryDto mains = summaries.get(1);
+        assertThat(mains.getId()).isEqualTo(catalog.category().getId());
+        assertThat(mains.getMenuCount()).isEqualTo(3);
+        assertThat(mains.getMinPrice()).isEqualByComparingTo("3.99");
+        assertThat(mains.getMaxPrice()).isEqualByComparingTo("12.50");
+        assertThat(mains.getTopImageUrl()).isEqualTo("https://bucket/menus/puff-puff.jpg");
+    }
+
+    private void image(Long menuId, String imageUrl) {
+        Menu menu = menuRepository.findById(menuId).orElseThrow();
+        menu.setImageUrl(imageUrl);
+        menuRepository.save(menu);
+    }
+
+    private void rate(Long menuId, int rating) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                menuRepository.addRating(menuId, rating, MenuRating.toStars(rating)));
+    }
+}
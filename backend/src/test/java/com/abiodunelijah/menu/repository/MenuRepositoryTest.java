@@ -0,0 +1,219 @@
+package com.abiodunelijah.menu.repository;
+
+import com.abiodunelijah.TestFixtures;
+import com.abiodunelijah.TestcontainersConfiguration;
+import com.abiodunelijah.auth_users.entities.User;
+import com.abiodunelijah.config.IdSequenceAlignment;
+import com.abiodunelijah.enums.ImageRendition;
+import com.abiodunelijah.enums.ImageStatus;
+import com.abiodunelijah.menu.dtos.MenuDetailDto;
+import com.abiodunelijah.menu.dtos.MenuSummaryDto;
+import com.abiodunelijah.menu.entities.Menu;
+import com.abiodunelijah.menu.entities.MenuRating;
+import com.abiodunelijah.review.entities.Review;
+import com.abiodunelijah.review.repository.ReviewRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//Runs the menu statements against PostgreSQL; every call commits on its own, like a request does.
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({TestcontainersConfiguration.class, TestFixtures.class, IdSequenceAlignment.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class MenuRepositoryTest {
+
+    @Autowired
+    private MenuRepository menuRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Long jollofId;
+    private Long puffPuffId;
+
+    @BeforeEach
+    void setUp() {
+        TestFixtures.Catalog catalog = fixtures.catalog();
+        jollofId = catalog.jollofId();
+        puffPuffId = catalog.puffPuffId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixtures.truncate();
+    }
+
+    @Test
+    void concurrentRatingsAreAllCounted() throws Exception {
+        int threads = 8;
+        int ratingsPerThread = 25;
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Callable<Void>> reviewers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            reviewers.add(() -> {
+                start.await();
+                for (int i = 0; i < ratingsPerThread; i++) {
+                    int rating = i % 10 + 1;
+                    transactionTemplate.executeWithoutResult(status ->
+                            assertThat(menuRepository.addRating(jollofId, rating, MenuRating.toStars(rating))).isOne());
+                }
+                return null;
+            });
+        }
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            List<Future<Void>> results = reviewers.stream().map(executor::submit).toList();
+            start.countDown();
+            for (Future<Void> result : results) {
+                result.get();
+            }
+        }
+
+        //every thread rates 1-10 twice and 1-5 once more: 25 ratings summing to 55 + 55 + 15
+        MenuRating rating = rating(jollofId);
+        assertThat(rating.getCount()).isEqualTo(threads * ratingsPerThread);
+        assertThat(rating.getSum()).isEqualTo(threads * 125L);
+        assertThat(rating.getAverage()).isEqualTo(5.0);
+        assertThat(List.of(rating.getOneStar(), rating.getTwoStar(), rating.getThreeStar(), rating.getFourStar(), rating.getFiveStar()))
+                .containsExactly(threads * 6L, threads * 6L, threads * 5L, threads * 4L, threads * 4L);
+
+        assertThat(rating(puffPuffId).getCount()).isZero();
+    }
+
+    @Test
+    void rebuildMatchesTheIncrementalSummary() {
+        User user = fixtures.customer("ada@example.com");
+        Menu jollof = menuRepository.findById(jollofId).orElseThrow();
+        long orderId = 1;
+        for (int rating : new int[]{1, 4, 7, 10, 10}) {
+            reviewRepository.save(Review.builder().user(user).menu(jollof).orderId(orderId++).rating(rating)
+                    .createdAt(LocalDateTime.now()).build());
+            new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                    menuRepository.addRating(jollofId, rating, MenuRating.toStars(rating)));
+        }
+        MenuRating incremental = rating(jollofId);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> menuRepository.rebuildRatings());
+
+        MenuRating rebuilt = rating(jollofId);
+        assertThat(rebuilt).isEqualTo(incremental);
+        assertThat(rebuilt.getCount()).isEqualTo(5);
+        assertThat(rebuilt.getSum()).isEqualTo(32);
+        assertThat(rebuilt.getAverage()).isEqualTo(6.4);
+        assertThat(List.of(rebuilt.getOneStar(), rebuilt.getTwoStar(), rebuilt.getThreeStar(), rebuilt.getFourStar(), rebuilt.getFiveStar()))
+                .containsExactly(1L, 1L, 0L, 1L, 2L);
+    }
+
+    @Test
+    void listsSummariesNewestFirstWithoutTheCollections() {
+        Menu jollof = menuRepository.findById(jollofId).orElseThrow();
+        jollof.setImageUrl("https://bucket/menus/jollof.jpg");
+        jollof.setImageStatus(ImageStatus.READY);
+        jollof.setImageRenditions(true);
+        menuRepository.save(jollof);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> menuRepository.addRating(jollofId, 9, 5));
+
+        List<MenuSummaryDto> summaries = menuRepository.findAllSummaries();
+
+        assertThat(summaries).extracting(MenuSummaryDto::getId).containsExactly(puffPuffId, jollofId);
+        MenuSummaryDto summary = summaries.get(1);
+        assertThat(summary.getName()).isEqualTo("Jollof Rice");
+        assertThat(summary.getPrice()).isEqualByComparingTo("12.50");
+        assertThat(summary.getCategoryName()).isEqualTo("Mains");
+        assertThat(summary.getImageStatus()).isEqualTo(ImageStatus.READY);
+        assertThat(summary.getSrcset()).isEqualTo(ImageRendition.srcset("https://bucket/menus/jollof.jpg"));
+        assertThat(summary.getRating().getCount()).isOne();
+        assertThat(summary.getRating().getHistogram()).containsExactly(0L, 0L, 0L, 0L, 1L);
+
+        assertThat(summaries.getFirst().getSrcset()).isNull();
+        assertThat(summaries.getFirst().getRating().getCount()).isZero();
+    }
+
+    @Test
+    void readsTheDetailOfOneMenu() {
+        MenuDetailDto detail = menuRepository.findDetailById(puffPuffId).orElseThrow();
+
+        assertThat(detail.getName()).isEqualTo("Puff Puff");
+        assertThat(detail.getPrice()).isEqualByComparingTo("3.99");
+        assertThat(detail.getCategoryName()).isEqualTo("Mains");
+        //filled by the service from the first review page
+        assertThat(detail.getReviews()).isNull();
+
+        assertThat(menuRepository.findDetailById(puffPuffId + 1000)).isEmpty();
+    }
+
+    @Test
+    void marksAPendingImageReadyWhileItsUrlIsCurrent() {
+        String imageUrl = "https://bucket/menus/first.jpg";
+        pendingImage(jollofId, imageUrl);
+
+        assertThat(menuRepository.updateImage(jollofId, imageUrl, imageUrl, ImageStatus.READY, true)).isOne();
+
+        Menu menu = menuRepository.findById(jollofId).orElseThrow();
+        assertThat(menu.getImageUrl()).isEqualTo(imageUrl);
+        assertThat(menu.getImageStatus()).isEqualTo(ImageStatus.READY);
+        assertThat(menu.isImageRenditions()).isTrue();
+    }
+
+    @Test
+    void leavesANewerImageAloneWhenASlowUploadFinishes() {
+        String first = "https://bucket/menus/first.jpg";
+        String second = "https://bucket/menus/second.jpg";
+        pendingImage(jollofId, first);
+        //a second update replaced the image while the first upload was still running
+        pendingImage(jollofId, second);
+
+        assertThat(menuRepository.updateImage(jollofId, first, first, ImageStatus.READY, true)).isZero();
+        assertThat(menuRepository.updateImage(jollofId, first, first, ImageStatus.FAILED, false)).isZero();
+
+        Menu menu = menuRepository.findById(jollofId).orElseThrow();
+        assertThat(menu.getImageUrl()).isEqualTo(second);
+        assertThat(menu.getImageStatus()).isEqualTo(ImageStatus.PENDING);
+        assertThat(menu.isImageRenditions()).isFalse();
+
+        assertThat(menuRepository.updateImage(jollofId, second, second, ImageStatus.FAILED, false)).isOne();
+        assertThat(menuRepository.findById(jollofId).orElseThrow().getImageStatus()).isEqualTo(ImageStatus.FAILED);
+    }
+
+    private void pendingImage(Long menuId, String imageUrl) {
+        Menu menu = menuRepository.findById(menuId).orElseThrow();
+        menu.setImageUrl(imageUrl);
+        menu.setImageStatus(ImageStatus.PENDING);
+        menu.setImageRenditions(false);
+        menuRepository.save(menu);
+    }
+
+    private MenuRating rating(Long menuId) {
+        return menuRepository.findById(menuId).orElseThrow().getRating();
+    }
+}
@@ -0,0 +1,124 @@
+package com.abiodunelijah.menu.services;
+
+import com.abiodunelijah.catalog.events.CatalogChangedEvent;
+import com.abiodunelijah.menu.dtos.MenuSummaryDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MenuCatalogCacheTest {
+
+    private static final Long MAINS = 1L;
+    private static final Long DRINKS = 2L;
+
+    private final MenuCatalogCache cache = new MenuCatalogCache();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cache, "maxEntries", 2);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 300L);
+    }
+
+    @Test
+    void normalizesSearchesToOneKey() {
+        assertThat(MenuCatalogCache.normalize("  Jollof   RICE ")).isEqualTo("jollof rice");
+        assertThat(MenuCatalogCache.normalize("   ")).isNull();
+        assertThat(MenuCatalogCache.normalize(null)).isNull();
+    }
+
+    @Test
+    void dropsALoadThatRacedWithAnInvalidation() {
+        long loadedAt = cache.generation();
+
+        //the write commits while the listing is being read
+        cache.onCatalogChanged(CatalogChangedEvent.menuChanged(5L, MAINS));
+        cache.put(loadedAt, MAINS, null, menus(5L));
+        cache.putSnapshot(loadedAt, menus(5L));
+
+        assertThat(cache.get(MAINS, null)).isNull();
+        assertThat(cache.getSnapshot()).isNull();
+
+        cache.put(cache.generation(), MAINS, null, menus(5L));
+        assertThat(cache.get(MAINS, null)).extracting(MenuSummaryDto::getId).containsExactly(5L);
+    }
+
+    @Test
+    void invalidatesOnlyTheListingsOfTheChangedCategories() {
+        long generation = cache.generation();
+        cache.put(generation, MAINS, null, menus(5L));
+        cache.put(generation, DRINKS, null, menus(6L));
+        cache.putSnapshot(generation, menus(5L, 6L));
+
+        cache.onCatalogChanged(CatalogChangedEvent.menuChanged(5L, MAINS));
+
+        assertThat(cache.get(MAINS, null)).isNull();
+        assertThat(cache.get(DRINKS, null)).isNotNull();
+        assertThat(cache.getSnapshot()).isNull();
+        assertThat(cache.generation()).isEqualTo(generation + 1);
+    }
+
+    @Test
+    void dropsListingsAcrossCategoriesWhenTheChangeIsNotScoped() {
+        long generation = cache.generation();
+        cache.put(generation, null, "rice", menus(5L));
+        cache.put(generation, DRINKS, null, menus(6L));
+
+        //a listing over all categories can hold a menu of any category
+        cache.onCatalogChanged(CatalogChangedEvent.menuChanged(5L, MAINS));
+        assertThat(cache.get(null, "rice")).isNull();
+        assertThat(cache.get(DRINKS, null)).isNotNull();
+
+        cache.onCatalogChanged(new CatalogChangedEvent(null, Set.of(), true));
+        assertThat(cache.get(DRINKS, null)).isNull();
+    }
+
+    @Test
+    void keepsListingsWhenOnlyCategoryMetadataChanged() {
+        long generation = cache.generation();
+        cache.put(generation, MAINS, null, menus(5L));
+
+        cache.onCatalogChanged(CatalogChangedEvent.categoryChanged(MAINS, false));
+
+        assertThat(cache.get(MAINS, null)).isNotNull();
+        assertThat(cache.generation()).isEqualTo(generation);
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedListing() {
+        long generation = cache.generation();
+        cache.put(generation, MAINS, null, menus(5L));
+        cache.put(generation, DRINKS, null, menus(6L));
+
+        //reading MAINS makes DRINKS the eldest
+        cache.get(MAINS, null);
+        cache.put(generation, null, "rice", menus(5L));
+
+        assertThat(cache.get(DRINKS, null)).isNull();
+        assertThat(cache.get(MAINS, null)).isNotNull();
+        assertThat(cache.get(null, "rice")).isNotNull();
+        assertThat(cache.stats().getEvictions()).isEqualTo(1);
+    }
+
+    @Test
+    void expiresListingsAfterTheTtl() {
+        ReflectionTestUtils.setField(cache, "ttlSeconds", -1L);
+        cache.put(cache.generation(), MAINS, null, menus(5L));
+
+        assertThat(cache.get(MAINS, null)).isNull();
+        assertThat(cache.stats().getSize()).isZero();
+    }
+
+    private static List<MenuSummaryDto> menus(Long... ids) {
+        return Arrays.stream(ids).map(id -> {
+            MenuSummaryDto menu = new MenuSummaryDto();
+            menu.setId(id);
+            return menu;
+        }).toList();
+    }
+}
@@ -0,0 +1,190 @@
+package com.abiodunelijah.menu.services;
+
+import com.abiodunelijah.menu.services.MenuCoOccurrenceIndex.Recommendation;
+import com.abiodunelijah.order.events.OrderPlacedEvent;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MenuCoOccurrenceIndexTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    private final MenuCoOccurrenceIndex index = new MenuCoOccurrenceIndex(jdbcTemplate);
+
+    private long nextOrderId = 1;
+
+    @Test
+    void ranksByCosineSimilarity() {
+        liveEventsOnly();
+
+        //menu 9 is in every order, so it is bought with 1 most often but scores below 2
+        order(1L, 2L, 9L);
+        order(1L, 2L, 9L);
+        order(1L, 3L, 9L);
+        order(4L, 9L);
+        order(5L, 9L);
+        order(6L, 9L);
+
+        assertThat(index.recommend(Set.of(1L), 5))
+                .extracting(Recommendation::menuId, Recommendation::coOrders)
+                .containsExactly(tuple(2L, 2L), tuple(9L, 3L), tuple(3L, 1L));
+    }
+
+    @Test
+    void sumsScoresOverTheGivenMenusAndExcludesThem() {
+        liveEventsOnly();
+
+        order(1L, 2L, 9L);
+        order(1L, 2L, 9L);
+        order(1L, 3L, 9L);
+        order(4L, 9L);
+
+        assertThat(index.recommend(Set.of(1L, 2L), 5))
+                .extracting(Recommendation::menuId, Recommendation::coOrders)
+                .containsExactly(tuple(9L, 5L), tuple(3L, 1L));
+    }
+
+    @Test
+    void honoursTheLimit() {
+        liveEventsOnly();
+
+        order(1L, 2L);
+        order(1L, 2L);
+        order(1L, 3L);
+
+        assertThat(index.recommend(Set.of(1L), 1))
+                .extracting(Recommendation::menuId)
+                .containsExactly(2L);
+        assertThat(index.recommend(Set.of(7L), 5)).isEmpty();
+    }
+
+    @Test
+    void leavesOrdersBeforeTheBackfillCutoffToTheBackfill() {
+        //no orders in the database, the cutoff is still set
+        ReflectionTestUtils.setField(index, "backfillOnStartup", true);
+        index.backfill();
+
+        index.onOrderPlaced(event(LocalDateTime.now().minusHours(1), 1L, 2L));
+        assertThat(index.recommend(Set.of(1L), 5)).isEmpty();
+
+        index.onOrderPlaced(event(LocalDateTime.now().plusMinutes(1), 1L, 2L));
+        assertThat(index.recommend(Set.of(1L), 5))
+                .extracting(Recommendation::menuId)
+                .containsExactly(2L);
+    }
+
+    @Test
+    void filtersCandidatesBeforeTheLimit() {
+        liveEventsOnly();
+
+        order(1L, 2L);
+        order(1L, 2L);
+        order(1L, 3L);
+
+        //2 ranks first but is filtered out, 3 still fills the single slot
+        assertThat(index.recommend(Set.of(1L), 1, menuId -> menuId != 2L))
+                .extracting(Recommendation::menuId)
+                .containsExactly(3L);
+    }
+
+    @Test
+    void countsEveryBackfilledRange() throws SQLException {
+        backfillOrders(false);
+
+        backfillNow();
+
+        assertThat(index.recommend(Set.of(1L), 5))
+                .extracting(Recommendation::menuId, Recommendation::coOrders)
+                .containsExactly(tuple(2L, 2L));
+    }
+
+    @Test
+    void dropsWhatAFailedBackfillMergedSoFar() throws SQLException {
+        backfillOrders(true);
+
+        backfillNow();
+
+        assertThat(index.recommend(Set.of(1L), 5)).isEmpty();
+
+        //live orders are still counted
+        index.onOrderPlaced(event(LocalDateTime.now().plusMinutes(1), 1L, 3L));
+        assertThat(index.recommend(Set.of(1L), 5))
+                .extracting(Recommendation::menuId)
+                .containsExactly(3L);
+    }
+
+    //what backfill() runs in the background, run on the test thread
+    private void backfillNow() {
+        LocalDateTime cutoff = LocalDateTime.now();
+        ReflectionTestUtils.setField(index, "backfilledBefore", cutoff);
+        index.backfillBefore(cutoff);
+    }
+
+    //orders 1..10 in two ranges, each holding one order of menus 1 and 2; the second range fails when asked to
+    private void backfillOrders(boolean secondRangeFails) throws SQLException {
+        ReflectionTestUtils.setField(index, "backfillRangeSize", 5);
+        ReflectionTestUtils.setField(index, "backfillThreads", 2);
+        when(jdbcTemplate.queryForObject(anyString(), ArgumentMatchers.<RowMapper<long[]>>any(), any(Object.class)))
+                .thenReturn(new long[]{1, 10});
+
+        mockRange(1L, 5L);
+        if (secondRangeFails) {
+            doThrow(new QueryTimeoutException("canceling statement due to statement timeout"))
+                    .when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), eq(6L), eq(10L), any());
+        } else {
+            mockRange(6L, 10L);
+        }
+    }
+
+    private void mockRange(long from, long to) throws SQLException {
+        ResultSet row = mock(ResultSet.class);
+        when(row.getLong("order_id")).thenReturn(from);
+        when(row.getLong("menu_id")).thenReturn(1L, 2L);
+
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(row);
+            handler.processRow(row);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), eq(from), eq(to), any());
+    }
+
+    //with the backfill switched off every live event is counted
+    private void liveEventsOnly() {
+        index.backfill();
+    }
+
+    private void order(Long... menuIds) {
+        index.onOrderPlaced(event(LocalDateTime.now(), menuIds));
+    }
+
+    private OrderPlacedEvent event(LocalDateTime orderDate, Long... menuIds) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (Long menuId : menuIds) {
+            quantities.put(menuId, 1);
+        }
+        return new OrderPlacedEvent(nextOrderId++, orderDate, quantities);
+    }
+}
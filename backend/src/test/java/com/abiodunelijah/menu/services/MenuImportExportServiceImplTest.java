@@ -0,0 +1,165 @@
+package com.abiodunelijah.menu.services;
+
+import com.abiodunelijah.TestFixtures;
+import com.abiodunelijah.TestcontainersConfiguration;
+import com.abiodunelijah.category.repository.CategoryRepository;
+import com.abiodunelijah.config.IdSequenceAlignment;
+import com.abiodunelijah.menu.dtos.MenuImportErrorDto;
+import com.abiodunelijah.menu.dtos.MenuImportResultDto;
+import com.abiodunelijah.storage.StorageService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+//Imports against PostgreSQL so a real constraint violation breaks the batch, storage is mocked.
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({TestcontainersConfiguration.class, TestFixtures.class, IdSequenceAlignment.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class MenuImportExportServiceImplTest {
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final StorageService storageService = mock(StorageService.class);
+
+    private MenuImportExportServiceImpl importService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        importService = new MenuImportExportServiceImpl(jdbcTemplate, new TransactionTemplate(transactionManager),
+                categoryRepository, storageService, new ObjectMapper(), mock(ApplicationEventPublisher.class));
+        ReflectionTestUtils.setField(importService, "batchSize", 500);
+        ReflectionTestUtils.setField(importService, "uploadConcurrency", 2);
+
+        fixtures.category("Mains");
+        when(storageService.uploadFile(anyString(), any(), anyLong(), anyString()))
+                .thenReturn(URI.create("http://images.test/menus/new.png").toURL());
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixtures.truncate();
+    }
+
+    @Test
+    void aFailedInsertOnlyFailsItsOwnRow() throws IOException {
+        //row 3 is longer than the name column, so the batch insert fails and is retried row by row
+        String csv = """
+                name,price,category,image,imageUrl
+                Jollof Rice,12.50,Mains,,http://images.test/jollof.png
+                Puff Puff,free,Mains,,http://images.test/puff.png
+                %s,3.00,Mains,long.png,
+                Moi Moi,4.00,mains,,http://images.test/moi.png
+                """.formatted("x".repeat(300));
+
+        MenuImportResultDto result = importService.importMenus(csvFile(csv), archive("long.png")).getData();
+
+        assertThat(result.getTotalRows()).isEqualTo(4);
+        assertThat(result.getImportedRows()).isEqualTo(2);
+        assertThat(result.getFailedRows()).isEqualTo(2);
+        assertThat(result.getUnreferencedImages()).isEqualTo(1);
+        assertThat(result.getErrors()).extracting(MenuImportErrorDto::getRow).containsExactly(2L, 3L);
+        assertThat(result.getErrors().get(1).getMessage()).startsWith("Insert failed:");
+
+        assertThat(menuNames()).containsExactly("Jollof Rice", "Moi Moi");
+    }
+
+    @Test
+    void aDeduplicatedImageIsNotReportedAsUnreferenced() throws IOException {
+        when(storageService.touch(anyString())).thenReturn(true);
+        when(storageService.getUrl(anyString())).thenReturn(URI.create("http://images.test/menus/old.png").toURL());
+
+        String csv = """
+                name,price,category,image
+                %s,3.00,Mains,long.png
+                """.formatted("x".repeat(300));
+
+        MenuImportResultDto result = importService.importMenus(csvFile(csv), archive("long.png")).getData();
+
+        assertThat(result.getFailedRows()).isEqualTo(1);
+        assertThat(result.getUnreferencedImages()).isZero();
+    }
+
+    @Test
+    void reportsNdjsonRowsThatCannotBeImported() {
+        String ndjson = """
+                {"name": "Jollof Rice", "price": "12.50", "category": "Mains", "imageUrl": "http://images.test/jollof.png"}
+                {"name": "Puff Puff", "price":
+                {"name": "Moi Moi", "price": "4.00", "category": "Drinks", "imageUrl": "http://images.test/moi.png"}
+                {"name": "Chin Chin", "price": "-1", "category": "Mains", "imageUrl": "http://images.test/chin.png"}
+                {"name": "Zobo", "price": "2.00", "category": "Mains"}
+                """;
+        MockMultipartFile file = new MockMultipartFile("file", "menus.ndjson", "application/x-ndjson",
+                ndjson.getBytes(StandardCharsets.UTF_8));
+
+        MenuImportResultDto result = importService.importMenus(file, null).getData();
+
+        assertThat(result.getTotalRows()).isEqualTo(5);
+        assertThat(result.getImportedRows()).isEqualTo(1);
+        assertThat(result.getErrors()).extracting(MenuImportErrorDto::getRow).containsExactly(2L, 3L, 4L, 5L);
+        assertThat(result.getErrors().getFirst().getMessage()).startsWith("Malformed JSON");
+        assertThat(result.getErrors()).extracting(MenuImportErrorDto::getMessage).endsWith(
+                "Category not found.", "Price must be positive.", "menu image is required.");
+        assertThat(menuNames()).containsExactly("Jollof Rice");
+    }
+
+    private List<String> menuNames() {
+        return jdbcTemplate.queryForList("SELECT name FROM menus ORDER BY id", String.class);
+    }
+
+    private static MockMultipartFile csvFile(String csv) {
+        return new MockMultipartFile("file", "menus.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static MockMultipartFile archive(String... entryNames) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (String entryName : entryNames) {
+                zip.putNextEntry(new ZipEntry(entryName));
+                zip.write(entryName.getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return new MockMultipartFile("images", "images.zip", "application/zip", bytes.toByteArray());
+    }
+}
@@ -0,0 +1,94 @@
+package com.abiodunelijah.menu.services;
+
+import com.abiodunelijah.catalog.events.CatalogChangedEvent;
+import com.abiodunelijah.category.entities.Category;
+import com.abiodunelijah.menu.entities.Menu;
+import com.abiodunelijah.menu.repository.MenuRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MenuSearchIndexTest {
+
+    private final MenuRepository menuRepository = mock(MenuRepository.class);
+
+    private final MenuSearchIndex index = new MenuSearchIndex(menuRepository);
+
+    @BeforeEach
+    void setUp() {
+        when(menuRepository.findAll()).thenReturn(List.of(
+                menu(1L, "Margherita Pizza", "Tomato and mozzarella", 10L),
+                menu(2L, "Garlic Bread", "Baked in the pizza oven", 20L),
+                menu(3L, "Pizzetta Bianca", "Small white pizzetta", 10L)));
+        index.rebuild();
+    }
+
+    @Test
+    void ranksExactNameMatchesAbovePrefixAndDescriptionMatches() {
+        //exact name 3 * 2, prefix name 3, exact description 1 * 2
+        assertThat(index.search("pizza", null)).containsExactly(1L, 3L, 2L);
+    }
+
+    @Test
+    void requiresEveryTerm() {
+        assertThat(index.search("garlic pizza", null)).containsExactly(2L);
+        assertThat(index.search("garlic mozzarella", null)).isEmpty();
+    }
+
+    @Test
+    void filtersByCategory() {
+        assertThat(index.search("pizza", 20L)).containsExactly(2L);
+        assertThat(index.search("pizza", 10L)).containsExactly(1L, 3L);
+    }
+
+    @Test
+    void breaksTiesByNewestId() {
+        when(menuRepository.findById(4L)).thenReturn(Optional.of(menu(4L, "Tomato Soup", null, 10L)));
+        index.onCatalogChanged(CatalogChangedEvent.menuChanged(4L, 10L));
+        when(menuRepository.findById(5L)).thenReturn(Optional.of(menu(5L, "Tomato Salad", null, 10L)));
+        index.onCatalogChanged(CatalogChangedEvent.menuChanged(5L, 10L));
+
+        assertThat(index.search("tomato", null)).containsExactly(5L, 4L, 1L);
+    }
+
+    @Test
+    void reindexesChangedMenusAndDropsDeletedOnes() {
+        when(menuRepository.findById(1L)).thenReturn(Optional.of(menu(1L, "Four Cheese", "Tomato and mozzarella", 10L)));
+        index.onCatalogChanged(CatalogChangedEvent.menuChanged(1L, 10L));
+
+        assertThat(index.search("margherita", null)).isEmpty();
+        assertThat(index.search("cheese", null)).containsExactly(1L);
+
+        when(menuRepository.findById(2L)).thenReturn(Optional.empty());
+        index.onCatalogChanged(CatalogChangedEvent.menuChanged(2L, 20L));
+
+        assertThat(index.search("garlic", null)).isEmpty();
+        assertThat(index.search("pizza", null)).containsExactly(3L);
+    }
+
+    @Test
+    void ignoresBlankQueries() {
+        assertThat(index.search("  ", null)).isEmpty();
+        assertThat(index.search(null, null)).isEmpty();
+    }
+
+    @Test
+    void tokenizesOnAnythingButLettersAndDigits() {
+        assertThat(MenuSearchIndex.tokenize("Jollof-Rice & 2 Plantains!")).containsExactly("jollof", "rice", "2", "plantains");
+    }
+
+    private static Menu menu(Long id, String name, String description, Long categoryId) {
+        return Menu.builder()
+                .id(id)
+                .name(name)
+                .description(description)
+                .category(Category.builder().id(categoryId).build())
+                .build();
+    }
+}
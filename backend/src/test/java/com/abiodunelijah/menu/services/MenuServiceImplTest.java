@@ -0,0 +1,63 @@
+package com.abiodunelijah.menu.services;
+
+import com.abiodunelijah.category.entities.Category;
+import com.abiodunelijah.category.repository.CategoryRepository;
+import com.abiodunelijah.enums.ImageStatus;
+import com.abiodunelijah.menu.dtos.MenuDto;
+import com.abiodunelijah.menu.entities.Menu;
+import com.abiodunelijah.menu.repository.MenuRepository;
+import com.abiodunelijah.review.entities.Review;
+import com.abiodunelijah.review.services.ReviewService;
+import com.abiodunelijah.storage.ImageUploadPipeline;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class MenuServiceImplTest {
+
+    private final MenuRepository menuRepository = mock(MenuRepository.class);
+    private final CategoryRepository categoryRepository = mock(CategoryRepository.class);
+
+    private final MenuServiceImpl menuService = new MenuServiceImpl(menuRepository, categoryRepository,
+            mock(ReviewService.class), mock(ImageUploadPipeline.class), mock(MenuCatalogCache.class),
+            mock(MenuSearchIndex.class), mock(MenuSuggestIndex.class), mock(MenuPopularityRanking.class),
+            mock(MenuCoOccurrenceIndex.class), mock(ApplicationEventPublisher.class));
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void updateRespondsWithoutLoadingTheReviews() {
+        Category category = Category.builder().id(3L).name("Mains").build();
+        List<Review> reviews = mock(List.class);
+        Menu menu = Menu.builder().id(7L).name("Jollof Rice").price(new BigDecimal("12.50")).category(category)
+                .imageUrl("https://bucket/menus/abc.jpg").imageStatus(ImageStatus.READY).reviews(reviews).build();
+        when(menuRepository.findById(7L)).thenReturn(Optional.of(menu));
+        when(categoryRepository.findById(3L)).thenReturn(Optional.of(category));
+        when(menuRepository.save(any(Menu.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        MenuDto update = new MenuDto();
+        update.setId(7L);
+        update.setCategoryId(3L);
+        update.setPrice(new BigDecimal("13.00"));
+
+        MenuDto updated = menuService.updateMenu(update).getData();
+
+        assertThat(updated.getId()).isEqualTo(7L);
+        assertThat(updated.getName()).isEqualTo("Jollof Rice");
+        assertThat(updated.getPrice()).isEqualByComparingTo("13.00");
+        assertThat(updated.getCategoryId()).isEqualTo(3L);
+        assertThat(updated.getImageUrl()).isEqualTo("https://bucket/menus/abc.jpg");
+        assertThat(updated.getImageStatus()).isEqualTo(ImageStatus.READY);
+        assertThat(updated.getSrcset()).isNull();
+        assertThat(updated.getReviews()).isNull();
+        verifyNoInteractions(reviews);
+    }
+}
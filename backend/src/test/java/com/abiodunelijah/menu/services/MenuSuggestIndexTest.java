@@ -0,0 +1,103 @@
+package com.abiodunelijah.menu.services;
+
+import com.abiodunelijah.catalog.events.CatalogChangedEvent;
+import com.abiodunelijah.menu.dtos.MenuSuggestionDto;
+import com.abiodunelijah.menu.entities.Menu;
+import com.abiodunelijah.menu.repository.MenuRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MenuSuggestIndexTest {
+
+    private final MenuRepository menuRepository = mock(MenuRepository.class);
+
+    private final MenuSuggestIndex index = new MenuSuggestIndex(menuRepository);
+
+    @BeforeEach
+    void setUp() {
+        when(menuRepository.findAll()).thenReturn(List.of(
+                menu(1L, "Jollof Rice"),
+                menu(2L, "Fried Rice"),
+                menu(3L, "Chicken Suya"),
+                menu(4L, "Pepper Soup")));
+        index.rebuild();
+    }
+
+    @Test
+    void completesTheLastTermAsAPrefix() {
+        assertThat(index.suggest("jol", 5))
+                .extracting(MenuSuggestionDto::getId, MenuSuggestionDto::getDistance)
+                .containsExactly(tuple(1L, 0));
+    }
+
+    @Test
+    void ordersEqualDistancesByShorterName() {
+        assertThat(index.suggest("ri", 5))
+                .extracting(MenuSuggestionDto::getName)
+                .containsExactly("Fried Rice", "Jollof Rice");
+    }
+
+    @Test
+    void requiresEarlierTermsToBeWholeWords() {
+        assertThat(index.suggest("fried ric", 5))
+                .extracting(MenuSuggestionDto::getId)
+                .containsExactly(2L);
+        assertThat(index.suggest("fri ric", 5)).isEmpty();
+    }
+
+    @Test
+    void correctsTypos() {
+        //missing letter
+        assertThat(index.suggest("chiken", 5))
+                .extracting(MenuSuggestionDto::getId, MenuSuggestionDto::getDistance)
+                .containsExactly(tuple(3L, 1));
+
+        //transposed letters
+        assertThat(index.suggest("suay", 5))
+                .extracting(MenuSuggestionDto::getId, MenuSuggestionDto::getDistance)
+                .containsExactly(tuple(3L, 1));
+    }
+
+    @Test
+    void doesNotCorrectShortTerms() {
+        assertThat(index.suggest("xo", 5)).isEmpty();
+    }
+
+    @Test
+    void honoursTheLimit() {
+        assertThat(index.suggest("rice", 1)).hasSize(1);
+        assertThat(index.suggest("rice", 0)).isEmpty();
+    }
+
+    @Test
+    void dropsDeletedMenus() {
+        when(menuRepository.findById(3L)).thenReturn(Optional.empty());
+        index.onCatalogChanged(CatalogChangedEvent.menuChanged(3L));
+
+        assertThat(index.suggest("chick", 5)).isEmpty();
+        assertThat(index.suggest("suya", 5)).isEmpty();
+    }
+
+    @Test
+    void measuresEditDistance() {
+        assertThat(MenuSuggestIndex.editDistance("piza", "pizza", false)).isEqualTo(1);
+        assertThat(MenuSuggestIndex.editDistance("ab", "ba", false)).isEqualTo(1);
+        assertThat(MenuSuggestIndex.editDistance("jol", "jollof", false)).isEqualTo(3);
+        assertThat(MenuSuggestIndex.editDistance("jol", "jollof", true)).isZero();
+    }
+
+    private static Menu menu(Long id, String name) {
+        return Menu.builder()
+                .id(id)
+                .name(name)
+                .build();
+    }
+}
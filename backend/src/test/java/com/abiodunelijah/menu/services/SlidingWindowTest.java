@@ -0,0 +1,85 @@
+package com.abiodunelijah.menu.services;
+
+import com.abiodunelijah.menu.services.MenuPopularityRanking.RankedMenu;
+import com.abiodunelijah.menu.services.MenuPopularityRanking.SlidingWindow;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlidingWindowTest {
+
+    //three one-second buckets
+    private final SlidingWindow window = new SlidingWindow(1000, 3);
+
+    @Test
+    void ranksByQuantityThenNewestMenu() {
+        window.add(Map.of(1L, 2, 2L, 5, 3L, 2), 0, 10);
+
+        assertThat(window.ranking()).containsExactly(
+                new RankedMenu(2L, 5),
+                new RankedMenu(3L, 2),
+                new RankedMenu(1L, 2));
+    }
+
+    @Test
+    void sumsAcrossBuckets() {
+        window.add(Map.of(1L, 2, 2L, 5), 0, 10);
+        window.add(Map.of(1L, 4), 1500, 10);
+
+        assertThat(window.ranking()).containsExactly(new RankedMenu(1L, 6), new RankedMenu(2L, 5));
+    }
+
+    @Test
+    void subtractsBucketsAsTheyExpire() {
+        window.add(Map.of(1L, 2, 2L, 5), 0, 10);
+        window.add(Map.of(1L, 4), 1500, 10);
+
+        //bucket 0 falls out once bucket 3 is the head
+        window.advanceTo(3000, 10);
+        assertThat(window.ranking()).containsExactly(new RankedMenu(1L, 4));
+
+        //a jump past the whole window clears it
+        window.advanceTo(10_000, 10);
+        assertThat(window.ranking()).isEmpty();
+    }
+
+    @Test
+    void ignoresSalesOlderThanTheWindow() {
+        window.add(Map.of(1L, 1), 3000, 10);
+        window.add(Map.of(2L, 7), 500, 10);
+
+        assertThat(window.ranking()).containsExactly(new RankedMenu(1L, 1));
+    }
+
+    @Test
+    void keepsOnlyMaxSizeEntries() {
+        window.add(Map.of(1L, 1, 2L, 4, 3L, 3, 4L, 2), 0, 2);
+
+        assertThat(window.ranking()).containsExactly(new RankedMenu(2L, 4), new RankedMenu(3L, 3));
+    }
+
+    @Test
+    void defersRankingUntilAskedWhenMaxSizeIsZero() {
+        window.add(Map.of(1L, 1), 0, 0);
+        assertThat(window.ranking()).isEmpty();
+
+        window.rerankNow(10);
+        assertThat(window.ranking()).containsExactly(new RankedMenu(1L, 1));
+    }
+
+    @Test
+    void skipsMissingAndNonPositiveQuantities() {
+        Map<Long, Integer> quantities = new HashMap<>();
+        quantities.put(1L, 0);
+        quantities.put(2L, -3);
+        quantities.put(3L, null);
+        quantities.put(4L, 2);
+
+        window.add(quantities, 0, 10);
+
+        assertThat(window.ranking()).containsExactly(new RankedMenu(4L, 2));
+    }
+}
@@ -0,0 +1,197 @@
+package com.abiodunelijah.order.services;
+
+import com.abiodunelijah.auth_users.services.UserService;
+import com.abiodunelijah.exceptions.BadRequestException;
+import com.abiodunelijah.exceptions.ConflictException;
+import com.abiodunelijah.response.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CheckoutIdempotencyStoreTest {
+
+    private final UserService userService = mock(UserService.class);
+
+    private final CheckoutIdempotencyStore store = new CheckoutIdempotencyStore(userService);
+
+    private final AtomicInteger checkouts = new AtomicInteger();
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(store, "ttlMinutes", 60L);
+        ReflectionTestUtils.setField(store, "waitSeconds", 5L);
+        when(userService.getCurrentLoggedInUserId()).thenReturn(1L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void runsEveryCheckoutWithoutAKey() {
+        store.placeOnce(null, this::checkout);
+        store.placeOnce(null, this::checkout);
+
+        assertThat(checkouts).hasValue(2);
+    }
+
+    @Test
+    void rejectsBlankAndOverlongKeys() {
+        assertThatThrownBy(() -> store.placeOnce(" ", this::checkout)).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> store.placeOnce("k".repeat(256), this::checkout)).isInstanceOf(BadRequestException.class);
+
+        assertThat(checkouts).hasValue(0);
+    }
+
+    @Test
+    void replaysTheStoredResponseForTheSameKey() {
+        Response<?> first = store.placeOnce("key-1", this::checkout);
+        Response<?> second = store.placeOnce("key-1", this::checkout);
+
+        assertThat(second).isSameAs(first);
+        assertThat(checkouts).hasValue(1);
+
+        store.placeOnce("key-2", this::checkout);
+        assertThat(checkouts).hasValue(2);
+    }
+
+    @Test
+    void scopesKeysToTheCustomer() {
+        when(userService.getCurrentLoggedInUserId()).thenReturn(1L, 2L);
+
+        store.placeOnce("key-1", this::checkout);
+        store.placeOnce("key-1", this::checkout);
+
+        assertThat(checkouts).hasValue(2);
+    }
+
+    @Test
+    void runsAgainAfterAFailedCheckout() {
+        assertThatThrownBy(() -> store.placeOnce("key-1", () -> {
+            throw new BadRequestException("Cart is empty");
+        })).isInstanceOf(BadRequestException.class);
+
+        store.placeOnce("key-1", this::checkout);
+
+        assertThat(checkouts).hasValue(1);
+    }
+
+    @Test
+    void duplicateInFlightWaitsForTheFirstResult() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<Response<?>> first = executor.submit(() -> store.placeOnce("key-1", blockingCheckout(started, release)));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        Future<Response<?>> duplicate = executor.submit(() -> store.placeOnce("key-1", this::checkout));
+        assertThat(duplicate).isNotDone();
+
+        release.countDown();
+
+        assertThat(duplicate.get(5, TimeUnit.SECONDS)).isSameAs(first.get(5, TimeUnit.SECONDS));
+        assertThat(checkouts).hasValue(1);
+    }
+
+    @Test
+    void duplicateInFlightGetsTheFirstFailure() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<Response<?>> first = executor.submit(() -> store.placeOnce("key-1", () -> {
+            started.countDown();
+            await(release);
+            throw new BadRequestException("Cart is empty");
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        Future<Response<?>> duplicate = executor.submit(() -> store.placeOnce("key-1", this::checkout));
+        release.countDown();
+
+        assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(BadRequestException.class);
+        //either it waited and got the same error, or it arrived after the failure and ran its own checkout
+        try {
+            duplicate.get(5, TimeUnit.SECONDS);
+            assertThat(checkouts).hasValue(1);
+        } catch (ExecutionException e) {
+            assertThat(e).hasCauseInstanceOf(BadRequestException.class);
+            assertThat(checkouts).hasValue(0);
+        }
+    }
+
+    @Test
+    void givesUpWaitingWithAConflict() throws Exception {
+        ReflectionTestUtils.setField(store, "waitSeconds", 0L);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<Response<?>> first = executor.submit(() -> store.placeOnce("key-1", blockingCheckout(started, release)));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> store.placeOnce("key-1", this::checkout)).isInstanceOf(ConflictException.class);
+
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+
+        //the first checkout still completed and is replayed from now on
+        assertThat(store.placeOnce("key-1", this::checkout)).isSameAs(first.get());
+        assertThat(checkouts).hasValue(1);
+    }
+
+    @Test
+    void expiredEntriesRunAgainAndAreSwept() {
+        ReflectionTestUtils.setField(store, "ttlMinutes", 0L);
+
+        store.placeOnce("key-1", this::checkout);
+        store.placeOnce("key-1", this::checkout);
+        assertThat(checkouts).hasValue(2);
+
+        store.evictExpired();
+        assertThat((Map<?, ?>) ReflectionTestUtils.getField(store, "attempts")).isEmpty();
+    }
+
+    private Response<?> checkout() {
+        return Response.builder()
+                .statusCode(200)
+                .message("Order " + checkouts.incrementAndGet())
+                .build();
+    }
+
+    private Supplier<Response<?>> blockingCheckout(CountDownLatch started, CountDownLatch release) {
+        return () -> {
+            started.countDown();
+            await(release);
+            return checkout();
+        };
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Test checkout was never released");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.abiodunelijah.order.services;
+
+import com.abiodunelijah.StatementCounter;
+import com.abiodunelijah.TestFixtures;
+import com.abiodunelijah.TestcontainersConfiguration;
+import com.abiodunelijah.auth_users.entities.User;
+import com.abiodunelijah.auth_users.services.UserService;
+import com.abiodunelijah.cart.repository.CartItemRepository;
+import com.abiodunelijah.cart.services.DatabaseCartStore;
+import com.abiodunelijah.category.entities.Category;
+import com.abiodunelijah.config.IdSequenceAlignment;
+import com.abiodunelijah.config.ModelMapperConfig;
+import com.abiodunelijah.email_notification.services.NotificationService;
+import com.abiodunelijah.exceptions.BadRequestException;
+import com.abiodunelijah.exceptions.NotFoundException;
+import com.abiodunelijah.order.events.OrderPlacedEvent;
+import com.abiodunelijah.order.repository.OrderItemRepository;
+import com.abiodunelijah.order.repository.OrderRepository;
+import com.abiodunelijah.response.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.thymeleaf.TemplateEngine;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+//Runs the checkout statement against PostgreSQL, the customer, email and event publishing are mocked.
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({TestcontainersConfiguration.class, TestFixtures.class, StatementCounter.class, IdSequenceAlignment.class, ModelMapperConfig.class, DatabaseCartStore.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class OrderServiceImplTest {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private DatabaseCartStore cartStore;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Autowired
+    private ModelMapper modelMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final UserService userService = mock(UserService.class);
+    private final NotificationService notificationService = mock(NotificationService.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+
+    private OrderServiceImpl orderService;
+
+    private User customer;
+    private Category category;
+    private Long otherUserId;
+    private Long jollofId;
+    private Long puffPuffId;
+
+    @BeforeEach
+    void setUp() {
+        orderService = new OrderServiceImpl(orderRepository, orderItemRepository, userService, notificationService, modelMapper,
+                mock(TemplateEngine.class), cartItemRepository, cartStore, eventPublisher, jdbcTemplate);
+        ReflectionTestUtils.setField(orderService, "basedPaymentLink", "http://localhost/pay?order=");
+
+        customer = fixtures.customer("ada@example.com", "1 Marina, Lagos");
+        otherUserId = fixtures.customer("bayo@example.com").getId();
+        when(userService.getCurrentLoggedInUser()).thenReturn(customer);
+
+        TestFixtures.Catalog catalog = fixtures.catalog();
+        category = catalog.category();
+        jollofId = catalog.jollofId();
+        puffPuffId = catalog.puffPuffId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixtures.truncate();
+    }
+
+    @Test
+    void turnsTheCartIntoAnOrder() {
+        cartStore.addToLine(customer.getId(), jollofId, 2);
+        cartStore.addToLine(customer.getId(), puffPuffId, 3);
+
+        Response<?> response = placeOrder();
+
+        assertThat(response.getStatusCode()).isEqualTo(200);
+
+        Map<String, Object> order = jdbcTemplate.queryForMap(
+                "SELECT id, total_amount, order_status, payment_status FROM orders WHERE user_id = ?", customer.getId());
+        assertThat((BigDecimal) order.get("total_amount")).isEqualByComparingTo("36.97");
+        assertThat(order.get("order_status")).isEqualTo("INITIALIZED");
+        assertThat(order.get("payment_status")).isEqualTo("PENDING");
+
+        Long orderId = ((Number) order.get("id")).longValue();
+        List<Map<String, Object>> items = jdbcTemplate.queryForList(
+                "SELECT menu_id, quantity, price_per_unit, subtotal FROM order_items WHERE order_id = ? ORDER BY menu_id", orderId);
+        assertThat(items).hasSize(2);
+        assertThat(((Number) items.get(0).get("menu_id")).longValue()).isEqualTo(jollofId);
+        assertThat(items.get(0).get("quantity")).isEqualTo(2);
+        assertThat((BigDecimal) items.get(0).get("subtotal")).isEqualByComparingTo("25.00");
+        assertThat(((Number) items.get(1).get("menu_id")).longValue()).isEqualTo(puffPuffId);
+        assertThat(items.get(1).get("quantity")).isEqualTo(3);
+        assertThat((BigDecimal) items.get(1).get("price_per_unit")).isEqualByComparingTo("3.99");
+        assertThat((BigDecimal) items.get(1).get("subtotal")).isEqualByComparingTo("11.97");
+
+        //the cart row stays, emptied and with its totals reset
+        assertThat(fixtures.lineCount(customer.getId())).isZero();
+        assertThat(fixtures.storedTotals(customer.getId())).isEqualTo(new TestFixtures.StoredTotals(0, 0, 3));
+
+        ArgumentCaptor<Object> event = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        OrderPlacedEvent orderPlaced = (OrderPlacedEvent) event.getValue();
+        assertThat(orderPlaced.getOrderId()).isEqualTo(orderId);
+        assertThat(orderPlaced.getQuantities()).isEqualTo(Map.of(jollofId, 2, puffPuffId, 3));
+
+        verify(notificationService).sendEmail(any());
+    }
+
+    @Test
+    void checksOutAnyCartWithTheSameTwoStatements() {
+        cartStore.addToLine(customer.getId(), jollofId, 1);
+        statementCounter.reset();
+        placeOrder();
+        int singleLine = statementCounter.count();
+
+        cartStore.addToLine(customer.getId(), jollofId, 2);
+        cartStore.addToLine(customer.getId(), puffPuffId, 3);
+        for (String name : List.of("Moi Moi", "Chin Chin", "Zobo", "Suya")) {
+            cartStore.addToLine(customer.getId(), fixtures.menu(name, "2.00", category), 1);
+        }
+        statementCounter.reset();
+        placeOrder();
+
+        //the cart lock and the checkout statement, the lines never cost a statement each
+        assertThat(statementCounter.count()).isEqualTo(2).isEqualTo(singleLine);
+        assertThat(fixtures.orderCount(customer.getId())).isEqualTo(2);
+    }
+
+    @Test
+    void leavesOtherCartsAlone() {
+        cartStore.addToLine(customer.getId(), jollofId, 1);
+        cartStore.addToLine(otherUserId, puffPuffId, 4);
+
+        placeOrder();
+
+        assertThat(fixtures.lineCount(otherUserId)).isEqualTo(1);
+        assertThat(fixtures.orderCount(otherUserId)).isZero();
+        assertThat(cartStore.getSummary(otherUserId).getTotalCents()).isEqualTo(4 * 399);
+    }
+
+    @Test
+    void refusesAnEmptyCartWithoutWritingAnOrder() {
+        cartStore.addToLine(customer.getId(), jollofId, 1);
+        cartStore.decrementLine(customer.getId(), jollofId);
+
+        assertThatThrownBy(this::placeOrder).isInstanceOf(BadRequestException.class);
+
+        assertThat(fixtures.orderCount(customer.getId())).isZero();
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void refusesAMissingCart() {
+        assertThatThrownBy(this::placeOrder).isInstanceOf(NotFoundException.class);
+
+        assertThat(fixtures.orderCount(customer.getId())).isZero();
+    }
+
+    private Response<?> placeOrder() {
+        return new TransactionTemplate(transactionManager).execute(status -> orderService.placeOrderFromCart());
+    }
+}
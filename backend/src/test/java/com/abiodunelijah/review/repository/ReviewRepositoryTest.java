@@ -0,0 +1,142 @@
+package com.abiodunelijah.review.repository;
+
+import com.abiodunelijah.TestFixtures;
+import com.abiodunelijah.TestcontainersConfiguration;
+import com.abiodunelijah.auth_users.entities.User;
+import com.abiodunelijah.auth_users.services.UserService;
+import com.abiodunelijah.config.IdSequenceAlignment;
+import com.abiodunelijah.menu.entities.Menu;
+import com.abiodunelijah.menu.repository.MenuRepository;
+import com.abiodunelijah.order.repository.OrderItemRepository;
+import com.abiodunelijah.order.repository.OrderRepository;
+import com.abiodunelijah.review.dtos.ReviewDto;
+import com.abiodunelijah.review.dtos.ReviewPageDto;
+import com.abiodunelijah.review.entities.Review;
+import com.abiodunelijah.review.services.ReviewServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+//Pages through reviews stored in PostgreSQL, where several reviews share a created_at.
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({TestcontainersConfiguration.class, TestFixtures.class, IdSequenceAlignment.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class ReviewRepositoryTest {
+
+    private static final LocalDateTime NOON = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private MenuRepository menuRepository;
+
+    @Autowired
+    private TestFixtures fixtures;
+
+    private ReviewServiceImpl reviewService;
+
+    private User user;
+    private Menu jollof;
+    private Menu puffPuff;
+    private long orderId;
+
+    @BeforeEach
+    void setUp() {
+        reviewService = new ReviewServiceImpl(reviewRepository, menuRepository, mock(OrderRepository.class),
+                mock(OrderItemRepository.class), new ModelMapper(), mock(UserService.class), mock(ApplicationEventPublisher.class));
+        ReflectionTestUtils.setField(reviewService, "defaultPageSize", 2);
+        ReflectionTestUtils.setField(reviewService, "maxPageSize", 50);
+
+        user = fixtures.customer("ada@example.com");
+        TestFixtures.Catalog catalog = fixtures.catalog();
+        jollof = menuRepository.findById(catalog.jollofId()).orElseThrow();
+        puffPuff = menuRepository.findById(catalog.puffPuffId()).orElseThrow();
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixtures.truncate();
+    }
+
+    @Test
+    void pagesThroughTiedTimestampsWithoutSkippingOrRepeating() {
+        List<Review> reviews = new ArrayList<>();
+        //three reviews share each of the two newest timestamps, so page boundaries fall inside a tie
+        for (int i = 0; i < 3; i++) {
+            reviews.add(review(jollof, NOON));
+            reviews.add(review(jollof, NOON.minusMinutes(5)));
+        }
+        //saved last, so the oldest review carries the highest id
+        reviews.add(review(jollof, NOON.minusHours(1)));
+        review(puffPuff, NOON);
+
+        List<Long> expected = reviews.stream()
+                .sorted(Comparator.comparing(Review::getCreatedAt).thenComparing(Review::getId).reversed())
+                .map(Review::getId)
+                .toList();
+
+        List<Long> paged = new ArrayList<>();
+        Long cursor = null;
+        int pages = 0;
+        do {
+            ReviewPageDto page = reviewService.getReviewPage(jollof.getId(), cursor, null);
+            assertThat(page.getReviews()).hasSizeLessThanOrEqualTo(2);
+            page.getReviews().stream().map(ReviewDto::getId).forEach(paged::add);
+            cursor = page.getNextCursor();
+            assertThat(page.isHasMore()).isEqualTo(cursor != null);
+            pages++;
+        } while (cursor != null);
+
+        assertThat(paged).containsExactlyElementsOf(expected);
+        assertThat(pages).isEqualTo(4);
+    }
+
+    @Test
+    void endsOnAFullLastPageWithoutAnEmptyFollowUp() {
+        review(jollof, NOON);
+        review(jollof, NOON);
+
+        ReviewPageDto page = reviewService.getReviewPage(jollof.getId(), null, 2);
+
+        assertThat(page.getReviews()).hasSize(2);
+        assertThat(page.isHasMore()).isFalse();
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void clampsTheRequestedPageSize() {
+        for (int i = 0; i < 3; i++) {
+            review(jollof, NOON.minusMinutes(i));
+        }
+        ReflectionTestUtils.setField(reviewService, "maxPageSize", 2);
+
+        assertThat(reviewService.getReviewPage(jollof.getId(), null, 100).getReviews()).hasSize(2);
+        assertThat(reviewService.getReviewPage(jollof.getId(), null, 0).getReviews()).hasSize(1);
+    }
+
+    private Review review(Menu menu, LocalDateTime createdAt) {
+        return reviewRepository.save(Review.builder().user(user).menu(menu).orderId(++orderId).rating(8)
+                .comment("Lovely").createdAt(createdAt).build());
+    }
+}
@@ -0,0 +1,40 @@
+package com.abiodunelijah.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContentKeysTest {
+
+    private static final String TEST_DIGEST = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+
+    @Test
+    void keysByTheHexDigestAndKeepsTheExtension() {
+        assertThat(ContentKeys.keyFor("menus", digestOf("test"), "Jollof.JPG"))
+                .isEqualTo("menus/" + TEST_DIGEST + ".jpg");
+    }
+
+    @Test
+    void sameBytesGetTheSameKeyWhateverTheirName() {
+        assertThat(ContentKeys.keyFor("menus", digestOf("test"), "a.png"))
+                .isEqualTo(ContentKeys.keyFor("menus", digestOf("test"), "b.png"));
+        assertThat(ContentKeys.keyFor("menus", digestOf("test"), "a.png"))
+                .isNotEqualTo(ContentKeys.keyFor("menus", digestOf("test2"), "a.png"));
+    }
+
+    @Test
+    void dropsMissingOrUnsafeExtensions() {
+        assertThat(ContentKeys.keyFor("profile", digestOf("test"), null)).isEqualTo("profile/" + TEST_DIGEST);
+        assertThat(ContentKeys.keyFor("profile", digestOf("test"), "photo")).isEqualTo("profile/" + TEST_DIGEST);
+        assertThat(ContentKeys.keyFor("profile", digestOf("test"), "photo.")).isEqualTo("profile/" + TEST_DIGEST);
+        assertThat(ContentKeys.keyFor("profile", digestOf("test"), "photo.jpeg2000")).isEqualTo("profile/" + TEST_DIGEST);
+        assertThat(ContentKeys.keyFor("profile", digestOf("test"), "photo.j/../x")).isEqualTo("profile/" + TEST_DIGEST);
+        assertThat(ContentKeys.keyFor("profile", digestOf("test"), "archive.tar.gz")).isEqualTo("profile/" + TEST_DIGEST + ".gz");
+    }
+
+    private static byte[] digestOf(String content) {
+        return ContentKeys.sha256().digest(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,129 @@
+package com.abiodunelijah.storage;
+
+import com.abiodunelijah.enums.ImageRendition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageRenditionServiceTest {
+
+    private static final String ORIGINAL_KEY = "menus/abc123.png";
+
+    @TempDir
+    private Path root;
+
+    @TempDir
+    private Path sources;
+
+    private LocalStorageService storageService;
+
+    private ImageRenditionService renditionService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        storageService = new LocalStorageService(root.toString(), "http://localhost/api/images/");
+        renditionService = new ImageRenditionService(storageService);
+        ReflectionTestUtils.setField(renditionService, "jpegQuality", 0.8f);
+        ReflectionTestUtils.setField(renditionService, "maxSourcePixels", 40_000_000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        renditionService.shutdown();
+    }
+
+    @Test
+    void storesEveryRenditionAsAScaledJpeg() throws IOException {
+        Path source = png(2000, 1000);
+
+        assertThat(renditionService.createRenditions(ORIGINAL_KEY, source)).isTrue();
+
+        for (ImageRendition rendition : ImageRendition.values()) {
+            Path file = storageService.resolve(rendition.keyOf(ORIGINAL_KEY));
+            BufferedImage image = ImageIO.read(file.toFile());
+            assertThat(image.getWidth()).isEqualTo(rendition.getWidth());
+            assertThat(image.getHeight()).isEqualTo(rendition.getWidth() / 2);
+            //jpeg start of image marker
+            assertThat(Files.readAllBytes(file)).startsWith((byte) 0xFF, (byte) 0xD8);
+
+            //the transparent left half is flattened onto white, the opaque right half keeps its colour
+            assertThat(new Color(image.getRGB(image.getWidth() / 8, image.getHeight() / 2))).satisfies(this::nearlyWhite);
+            assertThat(new Color(image.getRGB(image.getWidth() * 7 / 8, image.getHeight() / 2)).getRed()).isGreaterThan(200);
+        }
+    }
+
+    @Test
+    void neverScalesASmallImageUp() throws IOException {
+        Path source = png(100, 50);
+
+        assertThat(renditionService.createRenditions(ORIGINAL_KEY, source)).isTrue();
+
+        for (ImageRendition rendition : ImageRendition.values()) {
+            BufferedImage image = ImageIO.read(storageService.resolve(rendition.keyOf(ORIGINAL_KEY)).toFile());
+            assertThat(image.getWidth()).isEqualTo(100);
+            assertThat(image.getHeight()).isEqualTo(50);
+        }
+    }
+
+    @Test
+    void skipsSourcesThatCannotBeDecoded() throws IOException {
+        Path source = Files.writeString(sources.resolve("not-an-image.png"), "plain text");
+
+        assertThat(renditionService.createRenditions(ORIGINAL_KEY, source)).isFalse();
+        assertThat(storageService.exists(ImageRendition.THUMBNAIL.keyOf(ORIGINAL_KEY))).isFalse();
+    }
+
+    @Test
+    void rejectsImagesAboveThePixelLimitBeforeDecodingThem() throws IOException {
+        ReflectionTestUtils.setField(renditionService, "maxSourcePixels", 10_000L);
+        Path source = png(200, 100);
+
+        assertThat(renditionService.createRenditions(ORIGINAL_KEY, source)).isFalse();
+        assertThat(storageService.exists(ImageRendition.THUMBNAIL.keyOf(ORIGINAL_KEY))).isFalse();
+    }
+
+    @Test
+    void reusesRenditionsAlreadyStoredUnderTheSameKey() throws IOException {
+        for (ImageRendition rendition : ImageRendition.values()) {
+            byte[] content = "stored".getBytes(StandardCharsets.UTF_8);
+            storageService.uploadFile(rendition.keyOf(ORIGINAL_KEY), new ByteArrayInputStream(content), content.length, "image/jpeg");
+        }
+        //an undecodable source proves nothing is rendered again
+        Path source = Files.writeString(sources.resolve("not-an-image.png"), "plain text");
+
+        assertThat(renditionService.createRenditions(ORIGINAL_KEY, source)).isTrue();
+        assertThat(storageService.resolve(ImageRendition.DETAIL.keyOf(ORIGINAL_KEY))).hasContent("stored");
+    }
+
+    //left half transparent, right half opaque red
+    private Path png(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        for (int x = width / 2; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                image.setRGB(x, y, Color.RED.getRGB());
+            }
+        }
+        Path source = sources.resolve(width + "x" + height + ".png");
+        ImageIO.write(image, "png", source.toFile());
+        return source;
+    }
+
+    private void nearlyWhite(Color color) {
+        assertThat(color.getRed()).isGreaterThan(240);
+        assertThat(color.getGreen()).isGreaterThan(240);
+        assertThat(color.getBlue()).isGreaterThan(240);
+    }
+}
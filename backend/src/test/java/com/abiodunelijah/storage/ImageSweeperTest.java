@@ -0,0 +1,41 @@
+package com.abiodunelijah.storage;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageSweeperTest {
+
+    @Test
+    void takesTheDecodedFileNameOfAStoredUrl() {
+        assertThat(ImageSweeper.keyOf("menus", "https://bucket.s3.amazonaws.com/menus/abc123.jpg"))
+                .isEqualTo("menus/abc123.jpg");
+        assertThat(ImageSweeper.keyOf("menus", "/api/images/menus/abc123.jpg?v=2"))
+                .isEqualTo("menus/abc123.jpg");
+        assertThat(ImageSweeper.keyOf("profile", "https://bucket.s3.amazonaws.com/profile/my%20photo.png"))
+                .isEqualTo("profile/my photo.png");
+    }
+
+    @Test
+    void keepsPlusSignsAndStrayPercentSigns() {
+        assertThat(ImageSweeper.keyOf("menus", "https://host/menus/rice+beans.jpg")).isEqualTo("menus/rice+beans.jpg");
+        assertThat(ImageSweeper.keyOf("menus", "https://host/menus/100%.jpg")).isEqualTo("menus/100%.jpg");
+    }
+
+    @Test
+    void ignoresMissingUrls() {
+        assertThat(ImageSweeper.keyOf("menus", null)).isNull();
+        assertThat(ImageSweeper.keyOf("menus", "")).isNull();
+    }
+
+    @Test
+    void matchesOnTheFileNameUpToTheFirstCharacterAnEncoderCouldRewrite() {
+        assertThat(ImageSweeper.likePattern("menus/abc123.jpg")).isEqualTo("%/abc123.jpg%");
+        assertThat(ImageSweeper.likePattern("profile/my photo.png")).isEqualTo("%/my%");
+    }
+
+    @Test
+    void escapesLikeWildcards() {
+        assertThat(ImageSweeper.likePattern("menus/jollof_rice.jpg")).isEqualTo("%/jollof\\_rice.jpg%");
+    }
+}
@@ -0,0 +1,97 @@
+package com.abiodunelijah.storage;
+
+import com.abiodunelijah.exceptions.NotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LocalStorageServiceTest {
+
+    @TempDir
+    private Path root;
+
+    private LocalStorageService storageService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        storageService = new LocalStorageService(root.toString(), "http://localhost/api/images/");
+    }
+
+    @Test
+    void touchingAReusedKeyMakesItNewForTheSweeper() throws IOException {
+        store("menus/abc123.jpg");
+        Path file = root.resolve("menus/abc123.jpg");
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(Duration.ofDays(2))));
+
+        assertThat(storageService.touch("menus/abc123.jpg")).isTrue();
+
+        assertThat(Files.getLastModifiedTime(file).toInstant()).isAfter(Instant.now().minus(Duration.ofMinutes(1)));
+    }
+
+    @Test
+    void touchingAMissingKeyCreatesNothing() {
+        assertThat(storageService.touch("menus/missing.jpg")).isFalse();
+        assertThat(storageService.touch("menus")).isFalse();
+
+        assertThat(root.resolve("menus/missing.jpg")).doesNotExist();
+    }
+
+    @Test
+    void refusesKeysThatEscapeTheRoot() throws IOException {
+        Path outside = Files.writeString(root.resolveSibling(root.getFileName() + "-secret.txt"), "secret");
+        try {
+            String escaping = "../" + outside.getFileName();
+
+            assertThatThrownBy(() -> storageService.resolve(escaping)).isInstanceOf(NotFoundException.class);
+            assertThatThrownBy(() -> storageService.resolve("menus/../../" + outside.getFileName())).isInstanceOf(NotFoundException.class);
+            assertThatThrownBy(() -> storageService.resolve(outside.toString())).isInstanceOf(NotFoundException.class);
+            assertThatThrownBy(() -> storageService.resolve("")).isInstanceOf(NotFoundException.class);
+            assertThatThrownBy(() -> storageService.resolve("menus/..")).isInstanceOf(NotFoundException.class);
+
+            assertThatThrownBy(() -> storageService.deleteFile(escaping)).isInstanceOf(NotFoundException.class);
+            assertThatThrownBy(() -> store(escaping)).isInstanceOf(NotFoundException.class);
+            assertThat(outside).hasContent("secret");
+        } finally {
+            Files.deleteIfExists(outside);
+        }
+    }
+
+    @Test
+    void resolvesKeysInsideTheRoot() {
+        assertThat(storageService.resolve("menus/./abc123.jpg")).isEqualTo(root.toAbsolutePath().normalize().resolve("menus/abc123.jpg"));
+    }
+
+    @Test
+    void listsNothingOutsideTheRoot() {
+        store("menus/abc123.jpg");
+        store("menus/.upload-123.tmp");
+
+        List<String> listed = new ArrayList<>();
+        storageService.listObjects("../", object -> listed.add(object.keyName()));
+        storageService.listObjects("menus/../..", object -> listed.add(object.keyName()));
+        assertThat(listed).isEmpty();
+
+        //in progress writes are skipped too
+        storageService.listObjects("menus", object -> listed.add(object.keyName()));
+        assertThat(listed).containsExactly("menus/abc123.jpg");
+    }
+
+    private void store(String keyName) {
+        byte[] content = keyName.getBytes(StandardCharsets.UTF_8);
+        storageService.uploadFile(keyName, new ByteArrayInputStream(content), content.length, "image/jpeg");
+    }
+}
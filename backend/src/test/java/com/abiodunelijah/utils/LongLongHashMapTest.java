@@ -0,0 +1,110 @@
+package com.abiodunelijah.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LongLongHashMapTest {
+
+    @Test
+    void putsGetsAndOverwrites() {
+        LongLongHashMap map = new LongLongHashMap();
+
+        map.put(7L, 1L);
+        map.put(7L, 3L);
+
+        assertThat(map.get(7L)).isEqualTo(3L);
+        assertThat(map.get(8L)).isZero();
+        assertThat(map.containsKey(8L)).isFalse();
+        assertThat(map.size()).isEqualTo(1);
+    }
+
+    @Test
+    void removesEntriesThatAddUpToZero() {
+        LongLongHashMap map = new LongLongHashMap();
+
+        assertThat(map.addTo(5L, 3L)).isEqualTo(3L);
+        assertThat(map.addTo(5L, -3L)).isZero();
+
+        assertThat(map.containsKey(5L)).isFalse();
+        assertThat(map.isEmpty()).isTrue();
+
+        //a zero delta on a missing key does not insert it
+        map.addTo(6L, 0L);
+        assertThat(map.isEmpty()).isTrue();
+    }
+
+    @Test
+    void rejectsTheReservedKey() {
+        LongLongHashMap map = new LongLongHashMap();
+
+        assertThatThrownBy(() -> map.put(0L, 1L)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> map.addTo(0L, 1L)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(map.get(0L)).isZero();
+        assertThat(map.remove(0L)).isZero();
+    }
+
+    @Test
+    void growsPastItsExpectedSize() {
+        LongLongHashMap map = new LongLongHashMap(4);
+
+        for (long key = 1; key <= 1000; key++) {
+            map.put(key, key * 10);
+        }
+
+        assertThat(map.size()).isEqualTo(1000);
+        for (long key = 1; key <= 1000; key++) {
+            assertThat(map.get(key)).isEqualTo(key * 10);
+        }
+    }
+
+    @Test
+    void keepsProbeChainsIntactAfterRemovals() {
+        //a small table so every removal shifts part of a collision chain back
+        LongLongHashMap map = new LongLongHashMap(4);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 20_000; i++) {
+            long key = 1 + random.nextInt(64);
+            long delta = random.nextInt(7) - 3;
+
+            if (random.nextInt(4) == 0) {
+                assertThat(map.remove(key)).isEqualTo(expected.getOrDefault(key, 0L));
+                expected.remove(key);
+            } else {
+                long value = expected.getOrDefault(key, 0L) + delta;
+                assertThat(map.addTo(key, delta)).isEqualTo(value);
+                if (value == 0L) {
+                    expected.remove(key);
+                } else {
+                    expected.put(key, value);
+                }
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        expected.forEach((key, value) -> assertThat(map.get(key)).isEqualTo(value));
+
+        Map<Long, Long> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertThat(visited).isEqualTo(expected);
+    }
+
+    @Test
+    void clearsEverything() {
+        LongLongHashMap map = new LongLongHashMap();
+        map.put(1L, 1L);
+        map.put(2L, 2L);
+
+        map.clear();
+
+        assertThat(map.isEmpty()).isTrue();
+        assertThat(map.containsKey(1L)).isFalse();
+    }
+}
@@ -9,6 +9,8 @@ const MenuDetailsPage = () => {
     const navigate = useNavigate();
     const [menu, setMenu] = useState(null);
     const [averageRating, setAverageRating] = useState(0);
+    const [reviews, setReviews] = useState([]);
+    const [nextReviewCursor, setNextReviewCursor] = useState(null);
     const [quantity, setQuantity] = useState(1);
     const [cartSuccess, setCartSuccess] = useState(false);
 
@@ -21,6 +23,9 @@ const MenuDetailsPage = () => {
                 const response = await ApiService.getMenuById(id);
                 if (response.statusCode === 200) {
                     setMenu(response.data);
+                    // the menu only carries the first page of reviews
+                    setReviews(response.data.reviews || []);
+                    setNextReviewCursor(response.data.nextReviewCursor || null);
 
                     // Fetch average rating
                     const ratingResponse = await ApiService.getMenuAverageOverallReview(id);
@@ -38,6 +43,20 @@ const MenuDetailsPage = () => {
         fetchMenu();
     }, [id]);
 
+    const handleLoadMoreReviews = async () => {
+        try {
+            const response = await ApiService.getMenuReviews(id, nextReviewCursor);
+            if (response.statusCode === 200) {
+                setReviews(prev => [...prev, ...response.data.reviews]);
+                setNextReviewCursor(response.data.nextCursor || null);
+            } else {
+                showError(response.message);
+            }
+        } catch (error) {
+            showError(error.response?.data?.message || error.message);
+        }
+    };
+
     const handleBackToMenu = () => {
         navigate(-1); // Go back to previous page
     };
@@ -114,7 +133,7 @@ const MenuDetailsPage = () => {
                             <div className="rating">
                                 <span className="rating-value">{averageRating.toFixed(1)}</span>
                                 <span className="rating-star">★</span>
-                                <span className="rating-count">({menu.reviews?.length || 0} reviews)</span>
+                                <span className="rating-count">({menu.rating?.count || 0} reviews)</span>
                             </div>
                         </div>
 
@@ -154,9 +173,9 @@ const MenuDetailsPage = () => {
                 <div className="reviews-section">
                     <h2 className="reviews-title">Customer Reviews</h2>
 
-                    {menu.reviews && menu.reviews.length > 0 ? (
+                    {reviews.length > 0 ? (
                         <div className="reviews-list">
-                            {menu.reviews.map((review) => (
+                            {reviews.map((review) => (
                                 <div key={review.id} className="review-card">
                                     <div className="review-header">
                                         <span className="review-user">{review.userName}</span>
@@ -170,6 +189,11 @@ const MenuDetailsPage = () => {
                                     <p className="review-comment">{review.comment}</p>
                                 </div>
                             ))}
+                            {nextReviewCursor && (
+                                <button onClick={handleLoadMoreReviews} className="load-more-reviews-btn">
+                                    Load more reviews
+                                </button>
+                            )}
                         </div>
                     ) : (
                         <p className="no-reviews">No reviews yet. Be the first to review!</p>
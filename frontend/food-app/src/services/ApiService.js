@@ -348,6 +348,14 @@ export default class ApiService{
         return resp.data;
     }
 
+    // reviews come in pages, newest first; pass the nextCursor of the previous page to get the next one
+    static async getMenuReviews(menuId, cursor) {
+        const resp = await axios.get(`${this.BASE_URL}/reviews/menu-item/${menuId}`, {
+            params: cursor ? { cursor } : {}
+        });
+        return resp.data;
+    }
+
     static async createReview(body) {
         const resp = await axios.post(`${this.BASE_URL}/reviews`, body, {
             headers: this.getHeader()